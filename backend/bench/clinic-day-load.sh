@@ -0,0 +1,101 @@
+#!/bin/bash
+# Simulated clinic day: how many reception / doctor devices can one server carry?
+#
+#   bench/clinic-day-load.sh                      # seeded embedded server, steps 3,6,12,24 devices
+#   TARGET=http://clinic-pc:8080 bench/clinic-day-load.sh   # existing server, no seeding
+#
+# Without TARGET a fresh embedded (H2 file) server is started under a temp folder (your ~/DrPro_Data
+# is not touched) and seeded through the bulk import API with a few years of a busy practice.
+# Env: PATIENTS (default 3000), APPOINTMENTS (default 20000), PAYMENTS (default 30000),
+#      STEPS (default 3,6,12,24), DURATION / WARMUP seconds per step (default 60 / 10),
+#      THINK_MS (default 1000), SLO_P95_MS (default 500). Extra arguments go to ClinicDayLoad.
+# Latency distributions (.hgrm, HdrHistogram format) are written to target/load/.
+
+set -e
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-18091}
+PATIENTS=${PATIENTS:-3000}
+APPOINTMENTS=${APPOINTMENTS:-20000}
+PAYMENTS=${PAYMENTS:-30000}
+STEPS=${STEPS:-3,6,12,24}
+DURATION=${DURATION:-60}
+WARMUP=${WARMUP:-10}
+THINK_MS=${THINK_MS:-1000}
+SLO_P95_MS=${SLO_P95_MS:-500}
+WORK=$(mktemp -d)
+PID=
+
+cleanup() {
+    if [ -n "$PID" ]; then kill $PID 2>/dev/null; wait $PID 2>/dev/null || true; fi
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+echo "Building..."
+./mvnw -q -B package -DskipTests
+./mvnw -q -B test-compile dependency:build-classpath -Dmdep.outputFile=target/load-classpath.txt -Dmdep.includeScope=test
+JAR=$(ls target/backend-*.jar | head -1)
+
+# Epoch day -> yyyy-mm-dd inside awk (no GNU date needed, works on macOS too)
+CIVIL='function civil(z,  era, doe, yoe, y, doy, mp, d, m) {
+    z += 719468; era = int(z / 146097); doe = z - era * 146097;
+    yoe = int((doe - int(doe / 1460) + int(doe / 36524) - int(doe / 146096)) / 365);
+    y = yoe + era * 400; doy = doe - (365 * yoe + int(yoe / 4) - int(yoe / 100));
+    mp = int((5 * doy + 2) / 153); d = doy - int((153 * mp + 2) / 5) + 1; m = mp < 10 ? mp + 3 : mp - 9;
+    return sprintf("%04d-%02d-%02d", m <= 2 ? y + 1 : y, m, d)
+}'
+
+# CSV files for /api/import, spread over the last three years
+seed() {
+    local base=$1
+    local today=$(( $(date +%s) / 86400 ))
+    awk -v n="$PATIENTS" 'BEGIN {
+        srand(1); split("Asha Rahul Priya Vikram Neha Arjun Kavya Rohan Isha Karan Meera Aditya Sneha Varun Pooja", first, " ");
+        split("Sharma Patel Iyer Reddy Gupta Nair Singh Das Joshi Kulkarni", last, " ");
+        print "name,phone,gender,dob";
+        for (i = 1; i <= n; i++)
+            printf "%s %s,98%08d,%s,%d-%02d-%02d\n", first[int(rand() * 15) + 1], last[int(rand() * 10) + 1], i,
+                (rand() < 0.5 ? "F" : "M"), 1950 + int(rand() * 60), int(rand() * 12) + 1, int(rand() * 28) + 1
+    }' > "$WORK/patients.csv"
+    awk -v n="$APPOINTMENTS" -v p="$PATIENTS" -v today="$today" "$CIVIL"' BEGIN {
+        srand(2); print "patientId,date,time,notes,cost,status";
+        for (i = 1; i <= n; i++)
+            printf "%d,%s,%02d:%02d,Visit %d,%d,Completed\n", int(rand() * p) + 1, civil(today - int(rand() * 1095)),
+                9 + int(rand() * 9), int(rand() * 4) * 15, i, 500 + int(rand() * 40) * 100
+    }' > "$WORK/appointments.csv"
+    awk -v n="$PAYMENTS" -v p="$PATIENTS" -v today="$today" "$CIVIL"' BEGIN {
+        srand(3); split("Cash UPI Card", methods, " "); print "patientId,amount,description,method,date";
+        for (i = 1; i <= n; i++)
+            printf "%d,%d,Payment %d,%s,%s\n", int(rand() * p) + 1, 200 + int(rand() * 50) * 100, i,
+                methods[int(rand() * 3) + 1], civil(today - int(rand() * 1095))
+    }' > "$WORK/payments.csv"
+
+    for type in patients appointments payments; do
+        printf "  %-13s " "$type:"
+        curl -s -X POST -H "Content-Type: text/csv" --data-binary @"$WORK/$type.csv" "$base/api/import/$type" \
+            | grep -o '"rowsImported":[0-9]*,"rowsRejected":[0-9]*'
+    done
+    for p in "Root Canal Treatment:5000" "Crown (Ceramic):8000" "Scaling and Polishing:1500" "Composite Filling:1200" \
+             "Extraction:1000" "Implant:25000" "Braces (Metal):35000"; do
+        curl -s -o /dev/null -X POST "$base/api/procedures" -H 'Content-Type: application/json' \
+            -d "{\"description\": \"${p%%:*}\", \"price\": ${p##*:}}"
+    done
+}
+
+if [ -z "$TARGET" ]; then
+    TARGET="http://localhost:$PORT"
+    echo "Starting embedded server on port $PORT (data in $WORK)..."
+    java -Duser.home="$WORK" -jar "$JAR" --spring.profiles.active=embedded --server.port="$PORT" > "$WORK/server.log" 2>&1 &
+    PID=$!
+    until curl -s -o /dev/null "$TARGET/test"; do
+        if ! kill -0 $PID 2>/dev/null; then echo "Server failed to start:"; tail -30 "$WORK/server.log"; exit 1; fi
+        sleep 0.2
+    done
+    echo "Seeding $PATIENTS patients, $APPOINTMENTS appointments, $PAYMENTS payments..."
+    seed "$TARGET"
+fi
+
+java -cp "target/test-classes:$(cat target/load-classpath.txt)" com.drpro.backend.load.ClinicDayLoad \
+    --base "$TARGET" --steps "$STEPS" --duration "$DURATION" --warmup "$WARMUP" --think-ms "$THINK_MS" \
+    --slo-p95-ms "$SLO_P95_MS" --out target/load "$@"
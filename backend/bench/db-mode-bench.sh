@@ -0,0 +1,85 @@
+#!/bin/bash
+# Compares the embedded (H2 file) and MySQL modes: startup time, memory and request latency.
+#
+#   bench/db-mode-bench.sh [embedded|mysql|both]   (default: both)
+#
+# Each mode gets a fresh scratch database, seeded with the same data through the API:
+#   embedded -> H2 file under a temp folder (your ~/DrPro_Data is not touched)
+#   mysql    -> database 'drpro_bench' (override with MYSQL_URL / MYSQL_USER / MYSQL_PASSWORD)
+# Env: PATIENTS (default 200), PAYMENTS per patient (default 5), REQUESTS per endpoint (default 200)
+
+set -e
+cd "$(dirname "$0")/.."
+
+MODE=${1:-both}
+PORT=${PORT:-18090}
+PATIENTS=${PATIENTS:-200}
+PAYMENTS=${PAYMENTS:-5}
+REQUESTS=${REQUESTS:-200}
+MYSQL_URL=${MYSQL_URL:-"jdbc:mysql://localhost:3306/drpro_bench?createDatabaseIfNotExist=true&useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true"}
+MYSQL_USER=${MYSQL_USER:-root}
+MYSQL_PASSWORD=${MYSQL_PASSWORD:-root}
+BASE="http://localhost:$PORT"
+WORK=$(mktemp -d)
+JAR=$(ls target/backend-*.jar 2>/dev/null | head -1)
+
+if [ -z "$JAR" ]; then
+    echo "Building jar..."
+    ./mvnw -q -B package -DskipTests
+    JAR=$(ls target/backend-*.jar | head -1)
+fi
+
+rss_kb() {
+    ps -o rss= -p "$1" | tr -d ' '
+}
+
+# p50 / p95 / max in ms of REQUESTS sequential GETs
+measure() {
+    for i in $(seq 1 "$REQUESTS"); do
+        curl -s -o /dev/null -w '%{time_total}\n' "$BASE$1"
+    done | sort -n | awk -v path="$1" '{ t[NR] = $1 * 1000 }
+        END { printf "    %-36s p50 %6.2f ms   p95 %6.2f ms   max %6.2f ms\n", path, t[int(NR * 0.5)], t[int(NR * 0.95)], t[NR] }'
+}
+
+seed() {
+    for p in $(seq 1 "$PATIENTS"); do
+        curl -s -o /dev/null -X POST "$BASE/api/patients" -F "name=Bench Patient $p" -F "phone=98000$p" -F gender=F
+        for i in $(seq 1 "$PAYMENTS"); do
+            curl -s -o /dev/null -X POST "$BASE/api/revenue" -H 'Content-Type: application/json' \
+                -d "{\"patientId\": $p, \"amount\": $((RANDOM % 5000 + 100)), \"date\": \"2025-0$((RANDOM % 9 + 1))-1$((RANDOM % 9))\"}"
+        done
+    done
+    curl -s -o /dev/null -X POST "$BASE/api/procedures" -H 'Content-Type: application/json' -d '{"description": "Root Canal", "price": 5000}'
+}
+
+run() {
+    local mode=$1; shift
+    echo "=== $mode ==="
+    local start=$(date +%s%N)
+    java -Duser.home="$WORK/$mode" -jar "$JAR" --server.port="$PORT" "$@" > "$WORK/$mode.log" 2>&1 &
+    local pid=$!
+    until curl -s -o /dev/null "$BASE/test"; do
+        if ! kill -0 $pid 2>/dev/null; then echo "  failed to start, see $WORK/$mode.log"; return; fi
+        sleep 0.1
+    done
+    echo "  startup:        $(( ($(date +%s%N) - start) / 1000000 )) ms"
+    echo "  RSS idle:       $(( $(rss_kb $pid) / 1024 )) MB (app)"
+
+    seed
+    for path in /api/patients /api/patients/1 /api/revenue /api/finance/summary "/api/finance/timeseries?from=2025-01-01&to=2025-12-31&bucket=month" "/api/procedures/suggest?q=ro"; do
+        measure "$path"
+    done
+    echo "  RSS after load: $(( $(rss_kb $pid) / 1024 )) MB (app)"
+    if [ "$mode" = mysql ] && pgrep -x mysqld > /dev/null; then
+        echo "  + mysqld RSS:   $(( $(rss_kb "$(pgrep -x mysqld | head -1)") / 1024 )) MB"
+    fi
+    kill $pid; wait $pid 2>/dev/null || true
+}
+
+if [ "$MODE" = embedded ] || [ "$MODE" = both ]; then
+    run embedded --spring.profiles.active=embedded
+fi
+if [ "$MODE" = mysql ] || [ "$MODE" = both ]; then
+    run mysql --spring.datasource.url="$MYSQL_URL" --spring.datasource.username="$MYSQL_USER" --spring.datasource.password="$MYSQL_PASSWORD"
+fi
+rm -rf "$WORK"
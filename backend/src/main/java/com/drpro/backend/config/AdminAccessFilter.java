@@ -0,0 +1,56 @@
+package com.drpro.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * /api/admin/** (tenants, replicas, profiler) answers on this machine only, like actuator on
+ * the management port: the app has no login, and attach / detach must not be one LAN request
+ * away. Use curl on the node itself (or an SSH tunnel).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class AdminAccessFilter extends OncePerRequestFilter {
+
+    public static final String ADMIN_PATH = "/api/admin/";
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + ADMIN_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isLoopback(request.getRemoteAddr())) {
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"status\":403,\"error\":\"Forbidden\",\"message\":\"Admin endpoints only answer on this machine\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    // The remote address is a literal IP: no DNS lookup happens here
+    private static boolean isLoopback(String address) {
+        try {
+            return address != null && InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
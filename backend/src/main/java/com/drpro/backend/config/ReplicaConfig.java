@@ -0,0 +1,355 @@
+package com.drpro.backend.config;
+
+import com.drpro.backend.config.TenancyConfig.TenantRoutingDataSource;
+import com.drpro.backend.dto.ReplicaReportDTO;
+import com.drpro.backend.dto.ReplicaStatusDTO;
+import com.drpro.backend.service.TenantService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read replicas: read-only transactions of GET requests (lists, reports, the calendar) are
+ * served by a replica, everything else by the primary. Off unless replica.urls is set.
+ *
+ * Replica lag is measured, not assumed: every node upserts its own row in replica_heartbeat
+ * on the primary each replica.heartbeat-ms and reads it back from each replica. A replica
+ * showing a beat from time T has applied everything the primary committed before T, so:
+ *   - a replica more than replica.max-lag-ms behind (or unreachable) is left out until it catches up
+ *   - a client that wrote at W (DRPRO_LAST_WRITE cookie) only reads from a replica that shows
+ *     a beat from after W; until then it reads from the primary (read-your-writes)
+ *   - a list answered with an ETag (@TableVersioned) likewise waits for a beat from after its
+ *     tables last changed, so its body is never older than its ETag
+ *   - the sync feed and fills of long-lived caches read from the primary (ReplicaContext.usePrimary)
+ * One request sticks to the server its first read went to, so it never sees time go backwards.
+ *
+ * Transactions on a replica read the second-level cache but do not fill it: a row read there
+ * may be a little old, and the cache is shared with everyone reading from the primary.
+ */
+@Configuration
+public class ReplicaConfig {
+
+    // ================= DATABASE =================
+
+    // After TenancyConfig's wrapper and before RequestTimingConfig's: the replica pools get their
+    // own tenant routing, and the timed DataSource sits outside and times both
+    @Bean
+    public static ReplicaPostProcessor replicaRoutingDataSourcePostProcessor(Environment environment,
+                                                                             ObjectProvider<TenantService> tenants) {
+        return new ReplicaPostProcessor(environment, tenants);
+    }
+
+    static class ReplicaPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+        private final Environment environment;
+        private final ObjectProvider<TenantService> tenants;
+        private final List<ReplicaRoutingDataSource> created = new CopyOnWriteArrayList<>();
+
+        ReplicaPostProcessor(Environment environment, ObjectProvider<TenantService> tenants) {
+            this.environment = environment;
+            this.tenants = tenants;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            String urls = environment.getProperty("replica.urls", "");
+            if (!(bean instanceof TenantRoutingDataSource primary) || urls.isBlank()) return bean;
+
+            List<HikariDataSource> pools = new ArrayList<>();
+            for (String url : urls.split(",")) {
+                if (url.isBlank()) continue;
+                HikariDataSource pool = new HikariDataSource();
+                pool.setPoolName("replica-" + (pools.size() + 1));
+                pool.setJdbcUrl(url.trim());
+                pool.setUsername(environment.getProperty("replica.username", environment.getProperty("spring.datasource.username")));
+                pool.setPassword(environment.getProperty("replica.password", environment.getProperty("spring.datasource.password")));
+                String driver = environment.getProperty("spring.datasource.driver-class-name");
+                if (driver != null) pool.setDriverClassName(driver);
+                pool.setMaximumPoolSize(environment.getProperty("replica.pool-size", Integer.class, 10));
+                pool.setReadOnly(true);
+                pool.setConnectionTimeout(2000);      // A busy replica: fall back to the primary soon
+                pool.setInitializationFailTimeout(-1); // A replica that is down does not stop startup
+                pools.add(pool);
+            }
+            ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, pools, tenants,
+                    environment.getProperty("replica.max-lag-ms", Long.class, 5000L),
+                    environment.getProperty("replica.heartbeat-ms", Long.class, 1000L),
+                    environment.getProperty("replica.clock-skew-ms", Long.class, 500L));
+            created.add(routing);
+            return routing;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+
+        @Override
+        public void destroy() {
+            created.forEach(ReplicaRoutingDataSource::close);
+        }
+    }
+
+    // ================= TRANSACTIONS =================
+
+    // Boot registers it with the transaction manager; it runs before each transaction takes its connection
+    @Bean
+    public TransactionExecutionListener replicaTransactionListener(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return new TransactionExecutionListener() {
+            @Override
+            public void beforeBegin(TransactionExecution transaction) {
+                if (ReplicaContext.request() != null) ReplicaContext.begin(transaction.isReadOnly());
+            }
+
+            @Override
+            public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+                if (ReplicaContext.request() == null) return;
+                if (beginFailure != null) {
+                    ReplicaContext.end();
+                    return;
+                }
+                ReplicaContext.Transaction current = ReplicaContext.transaction();
+                if (current != null && current.onReplica) {
+                    EntityManagerHolder holder = (EntityManagerHolder)
+                            TransactionSynchronizationManager.getResource(entityManagerFactory.getObject());
+                    if (holder != null) holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+                }
+            }
+
+            @Override
+            public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+                if (ReplicaContext.request() == null) return;
+                ReplicaContext.Transaction ended = ReplicaContext.end();
+                if (ended != null && !ended.readOnly && commitFailure == null) {
+                    ReplicaContext.wrote(System.currentTimeMillis());
+                }
+            }
+
+            @Override
+            public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+                if (ReplicaContext.request() != null) ReplicaContext.end();
+            }
+        };
+    }
+
+    // ================= ROUTING =================
+
+    /**
+     * The primary (the target) plus the replica pools, each with its own tenant routing.
+     * unwrap() reaches the primary's pool, as with the plain DataSource.
+     */
+    public static class ReplicaRoutingDataSource extends DelegatingDataSource {
+
+        private static final String CREATE_SQL =
+                "CREATE TABLE IF NOT EXISTS replica_heartbeat (node VARCHAR(64) PRIMARY KEY, beat BIGINT NOT NULL)";
+        private static final String BEAT_SQL =
+                "INSERT INTO replica_heartbeat (node, beat) VALUES (?, ?) ON DUPLICATE KEY UPDATE beat = VALUES(beat)";
+        private static final String READ_SQL = "SELECT beat FROM replica_heartbeat WHERE node = ?";
+
+        private final List<Replica> replicas = new ArrayList<>();
+        private final long maxLagMs;
+        private final long clockSkewMs;
+        private final String node = UUID.randomUUID().toString();
+        private final ScheduledExecutorService heartbeat;
+        private final AtomicInteger next = new AtomicInteger();
+        private final LongAdder primaryReads = new LongAdder();
+        private volatile boolean tableReady;
+
+        private class Replica {
+            final HikariDataSource pool;
+            final DataSource dataSource;
+            final LongAdder reads = new LongAdder();
+            volatile long appliedUpTo;  // Beat seen on it (epoch ms of the primary's clock), 0 = none yet
+            volatile boolean healthy;
+            volatile String error;
+
+            Replica(HikariDataSource pool, ObjectProvider<TenantService> tenants) {
+                this.pool = pool;
+                this.dataSource = new TenantRoutingDataSource(pool, tenants);
+            }
+
+            boolean canServe(long lastWrite, long now) {
+                return healthy
+                        && now - appliedUpTo <= maxLagMs
+                        && (lastWrite == 0 || appliedUpTo >= lastWrite + clockSkewMs);
+            }
+
+            void failed(Exception e) {
+                healthy = false; // Out of rotation until its next good beat
+                error = e.getMessage();
+            }
+        }
+
+        ReplicaRoutingDataSource(TenantRoutingDataSource primary, List<HikariDataSource> pools,
+                                 ObjectProvider<TenantService> tenants, long maxLagMs, long heartbeatMs, long clockSkewMs) {
+            super(primary);
+            this.maxLagMs = maxLagMs;
+            this.clockSkewMs = clockSkewMs;
+            for (HikariDataSource pool : pools) replicas.add(new Replica(pool, tenants));
+
+            // One thread each, so a replica that hangs does not hold up the others' readings
+            heartbeat = Executors.newScheduledThreadPool(1 + replicas.size(), task -> {
+                Thread thread = new Thread(task, "replica-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            heartbeat.scheduleWithFixedDelay(this::beat, 0, heartbeatMs, TimeUnit.MILLISECONDS);
+            for (Replica replica : replicas) {
+                heartbeat.scheduleWithFixedDelay(() -> read(replica), heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+            }
+            System.out.println("📚 Read replicas: " + pools.size() + " (max lag " + maxLagMs + " ms)");
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Replica replica = pick();
+            if (replica != null) {
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.reads.increment();
+                    ReplicaContext.Transaction transaction = ReplicaContext.transaction();
+                    if (transaction != null) transaction.onReplica = true;
+                    return connection;
+                } catch (SQLException | RuntimeException e) {
+                    replica.failed(e);
+                    ReplicaContext.Request request = ReplicaContext.request();
+                    if (request != null) request.server = null; // This request carries on on the primary
+                }
+            }
+            if (readOnlyRequest()) primaryReads.increment();
+            return super.getConnection();
+        }
+
+        // The replica for this connection, or null for the primary
+        private Replica pick() {
+            if (!readOnlyRequest()) return null;
+            ReplicaContext.Request request = ReplicaContext.request();
+            long now = System.currentTimeMillis();
+            if (request.decided) {
+                Replica pinned = (Replica) request.server;
+                return pinned != null && pinned.canServe(request.lastWrite, now) ? pinned : null;
+            }
+            request.decided = true;
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (replica.canServe(request.lastWrite, now)) {
+                    request.server = replica;
+                    return replica;
+                }
+            }
+            return null;
+        }
+
+        // A GET / HEAD request inside a read-only transaction
+        private static boolean readOnlyRequest() {
+            ReplicaContext.Request request = ReplicaContext.request();
+            ReplicaContext.Transaction transaction = ReplicaContext.transaction();
+            return request != null && request.readOnly && transaction != null && transaction.readOnly;
+        }
+
+        // ================= HEARTBEAT =================
+
+        private void beat() {
+            long now = System.currentTimeMillis();
+            try (Connection connection = getTargetDataSource().getConnection()) {
+                if (!tableReady) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute(CREATE_SQL);
+                    }
+                    tableReady = true;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(BEAT_SQL)) {
+                    statement.setString(1, node);
+                    statement.setLong(2, now);
+                    statement.executeUpdate();
+                }
+            } catch (SQLException | RuntimeException e) {
+                // Primary unreachable: the beats seen on the replicas age until they drop out
+            }
+        }
+
+        private void read(Replica replica) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(READ_SQL)) {
+                statement.setString(1, node);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next()) {
+                        replica.appliedUpTo = rs.getLong(1);
+                        replica.healthy = true;
+                        replica.error = null;
+                    } else {
+                        replica.failed(new SQLException("No heartbeat from this node replicated yet"));
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.failed(e);
+            }
+        }
+
+        void close() {
+            heartbeat.shutdownNow();
+            try (Connection connection = getTargetDataSource().getConnection();
+                 PreparedStatement statement = connection.prepareStatement("DELETE FROM replica_heartbeat WHERE node = ?")) {
+                statement.setString(1, node);
+                statement.executeUpdate();
+            } catch (SQLException | RuntimeException e) {
+                // Left behind: a stale row of a node that is gone does no harm
+            }
+            for (Replica replica : replicas) replica.pool.close();
+        }
+
+        // ================= STATUS =================
+
+        public long getMaxLagMs() {
+            return maxLagMs;
+        }
+
+        public ReplicaReportDTO report() {
+            long now = System.currentTimeMillis();
+            ReplicaReportDTO report = new ReplicaReportDTO();
+            report.setMaxLagMs(maxLagMs);
+            report.setPrimaryReads(primaryReads.sum());
+            for (Replica replica : replicas) {
+                ReplicaStatusDTO status = new ReplicaStatusDTO();
+                status.setName(replica.pool.getPoolName());
+                status.setUrl(replica.pool.getJdbcUrl().replaceAll("([?&]password=)[^&]*", "$1***"));
+                status.setHealthy(replica.healthy);
+                status.setLagMs(replica.appliedUpTo > 0 ? now - replica.appliedUpTo : null);
+                status.setInRotation(replica.canServe(0, now));
+                status.setReads(replica.reads.sum());
+                status.setError(replica.error);
+                report.getReplicas().add(status);
+            }
+            return report;
+        }
+    }
+}
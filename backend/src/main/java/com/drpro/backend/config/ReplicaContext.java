@@ -0,0 +1,117 @@
+package com.drpro.backend.config;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * What the replica routing (ReplicaConfig) needs to know about the current thread:
+ *   - the request: only GET / HEAD may read from a replica, and not before the replica has
+ *     caught up with the client's own last write (bound by {@link ReplicaFilter})
+ *   - the open transactions: only read-only ones go to a replica (bound by the transaction
+ *     listener in ReplicaConfig, before the transaction takes its connection)
+ *
+ * Threads outside a request (startup, scheduled jobs, workers) always use the primary.
+ */
+public final class ReplicaContext {
+
+    private static final ThreadLocal<Request> REQUEST = new ThreadLocal<>();
+    private static final ThreadLocal<Deque<Transaction>> TRANSACTIONS = new ThreadLocal<>();
+
+    private ReplicaContext() {
+    }
+
+    static final class Request {
+        final boolean readOnly;           // GET / HEAD
+        long lastWrite;                   // The client's last write (epoch ms, from the cookie), 0 if none
+        boolean wrote;                    // This request committed a write (the filter sets the cookie)
+        boolean decided;                  // Reads of this request stay on one server once it is picked...
+        Object server;                    // ...this replica, or null for the primary
+
+        Request(boolean readOnly, long lastWrite) {
+            this.readOnly = readOnly;
+            this.lastWrite = lastWrite;
+        }
+    }
+
+    static final class Transaction {
+        final boolean readOnly;
+        boolean onReplica;
+
+        Transaction(boolean readOnly) {
+            this.readOnly = readOnly;
+        }
+    }
+
+    // ================= LIFECYCLE (filter only) =================
+
+    static void bind(Request request) {
+        REQUEST.set(request);
+    }
+
+    static void clear() {
+        REQUEST.remove();
+        TRANSACTIONS.remove();
+    }
+
+    static Request request() {
+        return REQUEST.get();
+    }
+
+    // ================= TRANSACTIONS =================
+
+    static void begin(boolean readOnly) {
+        Deque<Transaction> open = TRANSACTIONS.get();
+        if (open == null) TRANSACTIONS.set(open = new ArrayDeque<>());
+        open.push(new Transaction(readOnly));
+    }
+
+    static Transaction end() {
+        Deque<Transaction> open = TRANSACTIONS.get();
+        if (open == null) return null;
+        Transaction ended = open.poll();
+        if (open.isEmpty()) TRANSACTIONS.remove();
+        return ended;
+    }
+
+    /** The innermost open transaction, or null when none is open. */
+    static Transaction transaction() {
+        Deque<Transaction> open = TRANSACTIONS.get();
+        return open != null ? open.peek() : null;
+    }
+
+    // ================= REQUIREMENTS (handlers, services) =================
+
+    /**
+     * The rest of this request reads from the primary: for results that must not lag behind it
+     * at all (the sync feed) or that are kept for every client (caches). Transactions already
+     * open keep their connection, so call it before the reads start.
+     */
+    public static void usePrimary() {
+        Request request = REQUEST.get();
+        if (request == null) return;
+        request.decided = true;
+        request.server = null;
+    }
+
+    /**
+     * This request only reads from a replica that has applied everything the primary committed
+     * before 'at' (epoch ms), e.g. the last change of the tables behind an ETag.
+     */
+    public static void notBefore(long at) {
+        Request request = REQUEST.get();
+        if (request != null && at > request.lastWrite) request.lastWrite = at;
+    }
+
+    /**
+     * A write committed: this request's later reads stay on the primary, and so do the
+     * client's next requests (cookie) until the replicas have caught up with it.
+     */
+    static void wrote(long at) {
+        Request request = REQUEST.get();
+        if (request == null) return;
+        request.lastWrite = at;
+        request.wrote = true;
+        request.decided = true;
+        request.server = null;
+    }
+}
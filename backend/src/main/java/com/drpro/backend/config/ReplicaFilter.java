@@ -0,0 +1,163 @@
+package com.drpro.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+
+/**
+ * Binds each request for the replica routing (see ReplicaContext): GET / HEAD requests may read
+ * from a replica, and the DRPRO_LAST_WRITE cookie says when this client last wrote, so it keeps
+ * reading from the primary until a replica has caught up with that write (read-your-writes,
+ * across nodes too).
+ *
+ * The cookie has to go out with the headers, so it is stamped right before the body starts
+ * (or the request ends, for replies without one), with the time of that moment: later than
+ * every write the handler made, transactional or not. Non-GET requests always get it; a GET
+ * only when it committed a write. A reply that streams while it is still writing (none do
+ * today) would carry the time its body started.
+ *
+ * Does nothing unless replica.urls is set.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ReplicaFilter extends OncePerRequestFilter {
+
+    public static final String LAST_WRITE_COOKIE = "DRPRO_LAST_WRITE";
+
+    // Long enough for any replica still in rotation (replica.max-lag-ms) to have the write
+    private static volatile long cookieMaxAgeSeconds;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Boolean enabled;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (enabled == null) {
+            try {
+                enabled = dataSource.isWrapperFor(ReplicaConfig.ReplicaRoutingDataSource.class);
+                if (enabled) {
+                    cookieMaxAgeSeconds = dataSource.unwrap(ReplicaConfig.ReplicaRoutingDataSource.class).getMaxLagMs() / 1000 + 2;
+                }
+            } catch (SQLException e) {
+                enabled = false;
+            }
+        }
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        boolean readOnly = method.equals("GET") || method.equals("HEAD");
+        ReplicaContext.Request bound = new ReplicaContext.Request(readOnly, lastWrite(request));
+        ReplicaContext.bind(bound);
+        LastWriteResponse wrapped = new LastWriteResponse(response, bound);
+        try {
+            chain.doFilter(request, wrapped);
+        } finally {
+            wrapped.stamp(); // A reply without a body commits after the filters
+            ReplicaContext.clear();
+        }
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) return 0;
+        for (Cookie cookie : cookies) {
+            if (!cookie.getName().equals(LAST_WRITE_COOKIE)) continue;
+            try {
+                return Long.parseLong(cookie.getValue());
+            } catch (NumberFormatException e) {
+                return System.currentTimeMillis(); // Unreadable: play safe, read from the primary
+            }
+        }
+        return 0;
+    }
+
+    private static void setLastWriteCookie(HttpServletResponse response, long at) {
+        if (response.isCommitted()) return;
+        ResponseCookie cookie = ResponseCookie.from(LAST_WRITE_COOKIE, Long.toString(at))
+                .path("/")
+                .maxAge(cookieMaxAgeSeconds)
+                .httpOnly(true)
+                .sameSite("Lax")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    // ================= RESPONSE WRAPPER =================
+
+    /** Sets the cookie before anything could commit the response. */
+    private static class LastWriteResponse extends HttpServletResponseWrapper {
+        private final ReplicaContext.Request request;
+        private boolean stamped;
+
+        LastWriteResponse(HttpServletResponse response, ReplicaContext.Request request) {
+            super(response);
+            this.request = request;
+        }
+
+        // Writes outside a transaction (plain JdbcTemplate) are not seen by the listener: any
+        // non-GET request may have written
+        synchronized void stamp() {
+            if (stamped || (request.readOnly && !request.wrote)) return;
+            stamped = true;
+            setLastWriteCookie((HttpServletResponse) getResponse(), System.currentTimeMillis());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            stamp();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            stamp();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            stamp();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            stamp();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            stamp();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            stamp();
+            super.sendRedirect(location);
+        }
+    }
+}
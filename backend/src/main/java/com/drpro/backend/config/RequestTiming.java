@@ -0,0 +1,174 @@
+package com.drpro.backend.config;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Where the time of the current request went, per category, for the Server-Timing header and
+ * the per-request log line written by {@link RequestTimingFilter}.
+ *
+ * Code that waits on something wraps it in a span:
+ *
+ *     try (RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.STORAGE)) { ... }
+ *
+ * Spans nest: the database statements run inside a storage span are counted as "db", not twice.
+ * Outside a request (scheduled jobs, startup) spans cost nothing and record nothing.
+ */
+public final class RequestTiming {
+
+    public enum Category {
+        DB("db", "Database"),
+        STORAGE("storage", "File storage"),
+        REMOTE("remote", "Remote services"),
+        JSON("json", "JSON serialization"),
+        PDF("pdf", "PDF rendering");
+
+        private final String metric;
+        private final String description;
+
+        Category(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+    }
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final Span NOOP = () -> { };
+
+    private final String traceId;
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[Category.values().length];
+    private final int[] counts = new int[Category.values().length];
+    private final Deque<OpenSpan> open = new ArrayDeque<>();
+    private final Map<String, Integer> statements = new HashMap<>(); // SQL fingerprint -> times run
+
+    private RequestTiming(String traceId) {
+        this.traceId = traceId;
+    }
+
+    /** A timed section. Closing it twice, or out of order, is harmless. */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // ================= LIFECYCLE (filter only) =================
+
+    static RequestTiming begin(String traceId) {
+        RequestTiming timing = new RequestTiming(traceId);
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    // ================= SPANS =================
+
+    public static Span start(Category category) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) return NOOP;
+        OpenSpan span = timing.new OpenSpan(category);
+        timing.open.push(span);
+        return span;
+    }
+
+    private final class OpenSpan implements Span {
+        private final Category category;
+        private final long start = System.nanoTime();
+        private long children; // Time already counted by spans opened inside this one
+        private boolean closed;
+
+        OpenSpan(Category category) {
+            this.category = category;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            long elapsed = System.nanoTime() - start;
+            nanos[category.ordinal()] += Math.max(0, elapsed - children);
+            counts[category.ordinal()]++;
+            open.remove(this);
+            OpenSpan parent = open.peek();
+            if (parent != null) parent.children += elapsed;
+        }
+    }
+
+    // ================= STATEMENTS =================
+
+    private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+    /** Counts one run of a SQL statement (by fingerprint), for spotting N+1 query loops. */
+    public void countStatement(String fingerprint) {
+        if (statements.size() < MAX_DISTINCT_STATEMENTS || statements.containsKey(fingerprint)) {
+            statements.merge(fingerprint, 1, Integer::sum);
+        }
+    }
+
+    public Map<String, Integer> getStatements() {
+        return statements;
+    }
+
+    // ================= REPORT =================
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Server-Timing value: one metric per category that saw any time, then "app" (everything not
+     * in a category: our own code, locks, the network) and "total". Spans still open when this is
+     * called (a large body still being written) count as "app" so far.
+     */
+    public String serverTiming() {
+        long total = elapsedNanos();
+        long accounted = 0;
+        StringJoiner header = new StringJoiner(", ");
+        for (Category c : Category.values()) {
+            if (counts[c.ordinal()] == 0) continue;
+            accounted += nanos[c.ordinal()];
+            header.add(c.metric + ";dur=" + millis(nanos[c.ordinal()]) + ";desc=\"" + c.description
+                    + (c == Category.DB ? ", " + counts[c.ordinal()] + " calls" : "") + "\"");
+        }
+        header.add("app;dur=" + millis(Math.max(0, total - accounted)));
+        header.add("total;dur=" + millis(total));
+        return header.toString();
+    }
+
+    /** key=value pairs for the log line, every category included so the lines line up. */
+    public String logFields() {
+        long total = elapsedNanos();
+        long accounted = 0;
+        StringBuilder line = new StringBuilder("total_ms=").append(millis(total));
+        for (Category c : Category.values()) {
+            accounted += nanos[c.ordinal()];
+            line.append(' ').append(c.metric).append("_ms=").append(millis(nanos[c.ordinal()]));
+            if (c == Category.DB) line.append(" db_calls=").append(counts[c.ordinal()]);
+        }
+        line.append(" app_ms=").append(millis(Math.max(0, total - accounted)));
+        return line.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
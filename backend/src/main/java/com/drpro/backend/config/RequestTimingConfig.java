@@ -0,0 +1,197 @@
+package com.drpro.backend.config;
+
+import com.drpro.backend.config.RequestTiming.Category;
+import com.drpro.backend.service.PerfProfilerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The two measuring points that cannot be a simple span in a service: every JDBC call (JPA and
+ * JdbcTemplate alike) and JSON serialization of response bodies. See {@link RequestTiming}.
+ * Each statement's SQL and time also goes to the {@link PerfProfilerService}.
+ */
+@Configuration
+public class RequestTimingConfig {
+
+    // ================= JSON =================
+
+    // Replaces Boot's Jackson converter (same ObjectMapper, same behaviour), timing the writes
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                try (RequestTiming.Span span = RequestTiming.start(Category.JSON)) {
+                    super.writeInternal(object, type, new HeldFlushMessage(outputMessage));
+                }
+            }
+        };
+    }
+
+    /**
+     * Jackson flushes when it is done, which commits the response before the span above has
+     * closed and so before Server-Timing can include it. The converter flushes again right
+     * after writeInternal anyway, so that first flush is held back.
+     */
+    private static class HeldFlushMessage implements HttpOutputMessage {
+        private final HttpOutputMessage delegate;
+
+        HeldFlushMessage(HttpOutputMessage delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return new FilterOutputStream(delegate.getBody()) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+    }
+
+    // ================= DATABASE =================
+
+    // Static: a BeanPostProcessor must exist before the DataSource bean is created
+    // (hence the lazy ObjectProvider for the profiler too)
+    @Bean
+    public static BeanPostProcessor timedDataSourcePostProcessor(ObjectProvider<PerfProfilerService> profiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TimedDataSource)) {
+                    return new TimedDataSource(dataSource, profiler);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Counts waiting for a pooled connection, every execute*, commit and rollback as "db".
+     * Reading a ResultSet row by row is not counted: the driver has the rows by then.
+     * unwrap() still reaches the pool (Boot's Hikari metrics and health check rely on that).
+     */
+    static class TimedDataSource extends DelegatingDataSource {
+        private final ObjectProvider<PerfProfilerService> profilerProvider;
+        private volatile PerfProfilerService profiler;
+
+        TimedDataSource(DataSource target, ObjectProvider<PerfProfilerService> profilerProvider) {
+            super(target);
+            this.profilerProvider = profilerProvider;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            try (RequestTiming.Span span = RequestTiming.start(Category.DB)) {
+                return timed(super.getConnection());
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            try (RequestTiming.Span span = RequestTiming.start(Category.DB)) {
+                return timed(super.getConnection(username, password));
+            }
+        }
+
+        private Connection timed(Connection connection) {
+            return proxy(Connection.class, connection, (target, method, args) -> {
+                String name = method.getName();
+                if (name.equals("commit") || name.equals("rollback")) return timedCall(target, method, args);
+                Object result = call(target, method, args);
+                // prepareStatement / prepareCall get their SQL up front, createStatement at execute
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                if (result instanceof CallableStatement s) return proxy(CallableStatement.class, s, statementCall(sql));
+                if (result instanceof PreparedStatement s) return proxy(PreparedStatement.class, s, statementCall(sql));
+                if (result instanceof Statement s) return proxy(Statement.class, s, statementCall(null));
+                return result;
+            });
+        }
+
+        private Call statementCall(String preparedSql) {
+            return (target, method, args) -> {
+                if (!method.getName().startsWith("execute")) return call(target, method, args);
+                String sql = preparedSql != null ? preparedSql
+                        : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                long start = System.nanoTime();
+                try {
+                    return timedCall(target, method, args);
+                } finally {
+                    PerfProfilerService p = profiler();
+                    if (p != null) p.recordStatement(sql, System.nanoTime() - start);
+                }
+            };
+        }
+
+        private PerfProfilerService profiler() {
+            PerfProfilerService p = profiler;
+            if (p == null) profiler = p = profilerProvider.getIfAvailable();
+            return p;
+        }
+
+        private static Object timedCall(Object target, Method method, Object[] args) throws Throwable {
+            try (RequestTiming.Span span = RequestTiming.start(Category.DB)) {
+                return call(target, method, args);
+            }
+        }
+
+        private static Object call(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private interface Call {
+            Object invoke(Object target, Method method, Object[] args) throws Throwable;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Call call) {
+            InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> call.invoke(target, method, args);
+            };
+            return (T) Proxy.newProxyInstance(RequestTimingConfig.class.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
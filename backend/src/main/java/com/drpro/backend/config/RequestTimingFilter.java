@@ -0,0 +1,209 @@
+package com.drpro.backend.config;
+
+import com.drpro.backend.service.PerfProfilerService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every request a trace ID and reports where its time went:
+ *   - "X-Request-Id" response header (an incoming one from a proxy or the frontend is kept),
+ *     also in the logging MDC as "traceId"
+ *   - "Server-Timing" header (db, storage, remote, json, pdf, app, total), shown per request in
+ *     the browser devtools Network tab on the clinic PC
+ *   - one key=value log line for requests slower than request-timing.log-threshold-ms
+ *   - the request's time and statements to the PerfProfilerService (per endpoint pattern)
+ *
+ * Headers must go out before the body, so Server-Timing is added at the last moment before the
+ * response commits: after the whole body for normal JSON replies, mid-body for large downloads
+ * (then it covers everything up to the first flushed byte).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_HEADER = "X-Request-Id";
+    public static final String MDC_KEY = "traceId";
+
+    private static final Pattern SAFE_TRACE_ID = Pattern.compile("[A-Za-z0-9._-]{8,64}");
+
+    @Autowired
+    private PerfProfilerService perfProfilerService;
+
+    @Value("${request-timing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${request-timing.log-threshold-ms:500}")
+    private long logThresholdMs;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String incoming = request.getHeader(TRACE_HEADER);
+        String traceId = incoming != null && SAFE_TRACE_ID.matcher(incoming).matches()
+                ? incoming
+                : UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+
+        RequestTiming timing = RequestTiming.begin(traceId);
+        MDC.put(MDC_KEY, traceId);
+        response.setHeader(TRACE_HEADER, traceId);
+        response.setHeader("Timing-Allow-Origin", "*"); // Lets the frontend read it via the Performance API too
+        TimingResponse wrapped = new TimingResponse(response, timing);
+        try {
+            chain.doFilter(request, wrapped);
+        } finally {
+            wrapped.addServerTiming();
+            log(request, response, timing);
+            perfProfilerService.recordRequest(request.getMethod(),
+                    (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+                    response.getStatus(), timing.elapsedNanos(), timing.getStatements());
+            RequestTiming.end();
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+        if (timing.elapsedNanos() < logThresholdMs * 1_000_000L) return;
+        String path = request.getRequestURI();
+        if (request.getQueryString() != null) path += "?" + request.getQueryString();
+        System.out.println("⏱️ trace=" + timing.getTraceId()
+                + " method=" + request.getMethod()
+                + " path=\"" + path.replace("\"", "%22") + "\""
+                + " status=" + response.getStatus()
+                + " " + timing.logFields());
+    }
+
+    // ================= RESPONSE WRAPPER =================
+
+    /** Adds Server-Timing right before anything could commit the response. */
+    private static class TimingResponse extends HttpServletResponseWrapper {
+        private final RequestTiming timing;
+        private boolean added;
+        private TimingOutputStream stream;
+
+        TimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        synchronized void addServerTiming() {
+            if (added) return;
+            added = true;
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (!response.isCommitted()) response.setHeader("Server-Timing", timing.serverTiming());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) stream = new TimingOutputStream(super.getOutputStream(), this);
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            // Only error pages and plain-text replies write through a writer: stamp it up front
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+
+    /**
+     * Passes bytes through, adding the header before the write that could fill the container's
+     * buffer (which commits the response) and before any flush.
+     */
+    private static class TimingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private final TimingResponse response;
+        private long written;
+
+        TimingOutputStream(ServletOutputStream delegate, TimingResponse response) {
+            this.delegate = delegate;
+            this.response = response;
+        }
+
+        private void beforeWrite(int length) {
+            written += length;
+            if (written >= response.getBufferSize()) response.addServerTiming();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            beforeWrite(1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            beforeWrite(len);
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            response.addServerTiming();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.addServerTiming();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.drpro.backend.config;
+
+import com.drpro.backend.event.BulkWriteEvent;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache: rarely changing rows (patients, the procedure catalog,
+ * clinic / doctor settings) are served from a bounded Caffeine cache instead of MySQL.
+ *
+ * Hibernate keeps the regions in step with its own writes; JDBC bulk writes announce
+ * themselves with a BulkWriteEvent and the matching region is dropped here.
+ * Hit / miss counts per region show up under /actuator/metrics/hibernate.second.level.cache.requests
+ * (management port, 127.0.0.1 only).
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // Region names used in the entities' @Cache(region = ...)
+    public static final String PATIENTS = "patients";
+    public static final String PROCEDURE_ITEMS = "procedure_items";
+    public static final String CLINIC_SETTINGS = "clinic_settings";
+    public static final String DOCTOR_PROFILE = "doctor_profile";
+
+    @Autowired
+    @Lazy
+    private EntityManagerFactory entityManagerFactory;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // A manager of its own: the provider's default one is shared by every application context in the JVM (tests)
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("drpro-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        createRegion(cacheManager, PATIENTS, 10_000, Duration.ofHours(1));
+        createRegion(cacheManager, PROCEDURE_ITEMS, 1_000, Duration.ofHours(12));
+        createRegion(cacheManager, CLINIC_SETTINGS, 10, Duration.ofHours(12));
+        createRegion(cacheManager, DOCTOR_PROFILE, 10, Duration.ofHours(12));
+
+        // Query cache: results are id lists, checked against the table timestamps below
+        createRegion(cacheManager, "default-query-results-region", 500, Duration.ofHours(1));
+        // Timestamps must never be evicted early, or stale query results could be served
+        createRegion(cacheManager, "default-update-timestamps-region", 0, null);
+        return cacheManager;
+    }
+
+    private void createRegion(CacheManager cacheManager, String name, long maxEntries, Duration ttl) {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        if (maxEntries > 0) config.setMaximumSize(OptionalLong.of(maxEntries));
+        if (ttl != null) config.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        config.setStatisticsEnabled(true);
+        cacheManager.createCache(name, config);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // JDBC bulk writes never went through Hibernate, so its cached copies are stale
+    @EventListener
+    public void onBulkWrite(BulkWriteEvent event) {
+        for (EntityType<?> type : entityManagerFactory.getMetamodel().getEntities()) {
+            Table table = type.getJavaType().getAnnotation(Table.class);
+            if (table != null && table.name().equals(event.getTable())) {
+                entityManagerFactory.getCache().evict(type.getJavaType());
+            }
+        }
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictQueryRegions();
+    }
+}
@@ -0,0 +1,117 @@
+package com.drpro.backend.config;
+
+import com.drpro.backend.service.BlobStore;
+import com.drpro.backend.service.FileSystemBlobStore;
+import com.drpro.backend.service.S3BlobStore;
+import com.drpro.backend.service.TenantService.Tenant;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Which BlobStore holds the uploads (storage.type), and where each tenant's share of it is:
+ *   - local:  <tenant data dir>/uploads, as always
+ *   - shared: <storage.shared.root>/uploads, other tenants under tenants/<id>/uploads
+ *   - s3:     <storage.s3.prefix>uploads/..., other tenants under tenants/<id>/uploads/...
+ *
+ * With shared or s3 no machine keeps a file the others cannot read, and stored references are
+ * keys, not URLs with one node's address in them, so any number of app nodes can serve the same
+ * database and uploads. (With local, every node keeps only the uploads it received itself.)
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${storage.type:local}")
+    private String type;
+
+    @Value("${storage.public-url:}")
+    private String publicUrl;
+
+    @Value("${storage.shared.root:}")
+    private String sharedRoot;
+
+    @Value("${storage.s3.endpoint:}")
+    private String s3Endpoint;
+
+    @Value("${storage.s3.bucket:}")
+    private String s3Bucket;
+
+    @Value("${storage.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${storage.s3.access-key:}")
+    private String s3AccessKey;
+
+    @Value("${storage.s3.secret-key:}")
+    private String s3SecretKey;
+
+    @Value("${storage.s3.path-style:true}")
+    private boolean s3PathStyle;
+
+    @Value("${storage.s3.prefix:}")
+    private String s3Prefix;
+
+    // One client (and connection pool) for every tenant's store
+    private HttpClient s3Client;
+
+    @PostConstruct
+    public void init() {
+        UploadUrls.setPublicUrl(publicUrl);
+        type = type.trim().toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "local" -> {
+            }
+            case "shared" -> require("storage.shared.root", sharedRoot);
+            case "s3" -> {
+                require("storage.s3.endpoint", s3Endpoint);
+                require("storage.s3.bucket", s3Bucket);
+                require("storage.s3.access-key", s3AccessKey);
+                require("storage.s3.secret-key", s3SecretKey);
+                s3Client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+            }
+            default -> throw new IllegalStateException("storage.type must be local, shared or s3, not '" + type + "'");
+        }
+    }
+
+    /** The store for one tenant's uploads. */
+    public BlobStore storeFor(Tenant tenant, boolean isDefault) throws IOException {
+        String tenantPath = isDefault ? "" : "tenants/" + tenant.id() + "/";
+        return switch (type) {
+            case "shared" -> new FileSystemBlobStore(Paths.get(sharedRoot).resolve(tenantPath + "uploads"), true);
+            case "s3" -> new S3BlobStore(s3Client, s3Endpoint, s3Bucket, s3Region, s3AccessKey, s3SecretKey,
+                    s3PathStyle, s3Prefix + tenantPath + "uploads/", tenant.dataDir().resolve("upload-staging"));
+            default -> new FileSystemBlobStore(tenant.dataDir().resolve("uploads"), false);
+        };
+    }
+
+    /**
+     * Where work files that every node must see live (resumable upload sessions): the shared
+     * mount if there is one, else the tenant's own data folder.
+     */
+    public Path workDirectoryFor(Tenant tenant, boolean isDefault) {
+        if (type.equals("shared")) {
+            return Paths.get(sharedRoot).resolve(isDefault ? "" : "tenants/" + tenant.id());
+        }
+        return tenant.dataDir();
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    private static void require(String property, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException(property + " must be set for this storage.type");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.drpro.backend.config;
+
+import com.drpro.backend.service.TableVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+@Component
+public class TableVersionInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method) || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        TableVersioned versioned = method.getMethodAnnotation(TableVersioned.class);
+        if (versioned == null) {
+            return true;
+        }
+
+        // Query string is part of the URL, so the browser keeps one ETag per filter/patientId
+        String etag = tableVersionService.etag(versioned.value());
+
+        // Browser must revalidate every time, but a 304 costs no DB query and no JSON
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) return false;
+
+        // The body must be at least as new as its ETag: no replica that has not applied the last change
+        ReplicaContext.notBefore(tableVersionService.lastChange(versioned.value()));
+        return true;
+    }
+}
@@ -0,0 +1,16 @@
+package com.drpro.backend.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose response only depends on the listed tables.
+ * TableVersionInterceptor answers it with an ETag and 304 Not Modified when nothing changed.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TableVersioned {
+    String[] value();
+}
@@ -0,0 +1,282 @@
+package com.drpro.backend.config;
+
+import com.drpro.backend.service.TenantService;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Schema per tenant on one connection pool: every connection handed out is switched to the
+ * current tenant's schema first (MySQL: its database), for JPA and JdbcTemplate alike.
+ * Hibernate runs in multi-tenant mode on top of that, which also keys its second-level and
+ * query caches by tenant, so one branch never sees another's cached rows.
+ *
+ * The default tenant keeps the schema of spring.datasource.url; other tenants' schemas are
+ * created if missing and brought up to date with the same ddl-auto setting (see TenantService).
+ */
+@Configuration
+public class TenancyConfig {
+
+    // ================= SCOPE =================
+
+    @Bean
+    public static BeanFactoryPostProcessor tenantScopeRegistrar(Environment environment) {
+        return beanFactory -> {
+            // Before any connection is handed out: the default tenant decides the schema
+            TenantContext.setDefaultTenant(environment.getProperty("tenancy.default-tenant", "main"));
+            TenantScope scope = new TenantScope(beanFactory);
+            beanFactory.registerScope(TenantScope.NAME, scope);
+            beanFactory.registerSingleton("tenantScope", scope);
+        };
+    }
+
+    // ================= DATABASE =================
+
+    // Ordered, so it runs before RequestTimingConfig's wrapper: the timed DataSource sits
+    // outside and its "db" time includes switching the schema. Spring sees Ordered only if the
+    // declared return type says so, hence not just BeanPostProcessor.
+    @Bean
+    public static RoutingPostProcessor tenantRoutingDataSourcePostProcessor(ObjectProvider<TenantService> tenants) {
+        return new RoutingPostProcessor(tenants);
+    }
+
+    static class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+        private final ObjectProvider<TenantService> tenants;
+
+        RoutingPostProcessor(ObjectProvider<TenantService> tenants) {
+            this.tenants = tenants;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)) {
+                return new TenantRoutingDataSource(dataSource, tenants);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+    @Bean
+    public TenantSchemaMigrator tenantSchemaMigrator() {
+        return new TenantSchemaMigrator();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer tenancyCustomizer(DataSource dataSource, TenantSchemaMigrator migrator) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, new TenantConnectionProvider(dataSource));
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new TenantIdentifierResolver());
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(migrator));
+        };
+    }
+
+    /**
+     * Switches each connection to the current tenant's schema as it leaves the pool. Every
+     * checkout sets it (the default tenant included), since the pool does not reset it on return.
+     */
+    public static class TenantRoutingDataSource extends DelegatingDataSource {
+        private final ObjectProvider<TenantService> tenants;
+        private volatile boolean initialized;
+        private boolean catalogs;   // MySQL: a schema is a catalog (database); H2 and others: a schema
+        private boolean upperCase;  // H2 folds unquoted names to upper case
+        private String defaultSchema;
+
+        TenantRoutingDataSource(DataSource target, ObjectProvider<TenantService> tenants) {
+            super(target);
+            this.tenants = tenants;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return routed(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return routed(super.getConnection(username, password));
+        }
+
+        private Connection routed(Connection connection) throws SQLException {
+            try {
+                if (!initialized) init(connection);
+                String tenant = TenantContext.current();
+                String schema = tenant.equals(TenantContext.getDefaultTenant())
+                        ? defaultSchema : physicalName(tenants.getObject().require(tenant).schema());
+                if (catalogs) {
+                    if (!schema.equals(connection.getCatalog())) connection.setCatalog(schema);
+                } else if (!schema.equals(connection.getSchema())) {
+                    connection.setSchema(schema);
+                }
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        // First connection of the pool, still on the URL's own schema
+        private synchronized void init(Connection connection) throws SQLException {
+            if (initialized) return;
+            DatabaseMetaData meta = connection.getMetaData();
+            String product = meta.getDatabaseProductName().toLowerCase(Locale.ROOT);
+            catalogs = product.contains("mysql") || product.contains("mariadb");
+            upperCase = meta.storesUpperCaseIdentifiers();
+            defaultSchema = catalogs ? connection.getCatalog() : connection.getSchema();
+            initialized = true;
+        }
+
+        public boolean usesCatalogs() {
+            return catalogs;
+        }
+
+        public String getDefaultSchema() throws SQLException {
+            if (!initialized) {
+                try (Connection connection = getTargetDataSource().getConnection()) {
+                    init(connection);
+                }
+            }
+            return defaultSchema;
+        }
+
+        /** The name the database stores for 'schema' (e.g. NORTH on H2). */
+        public String physicalName(String schema) {
+            return upperCase ? schema.toUpperCase(Locale.ROOT) : schema;
+        }
+
+        /** Creates a tenant's schema if it does not exist yet (the tables come from the migrator). */
+        public void createSchema(String schema) throws SQLException {
+            try (Connection connection = getTargetDataSource().getConnection();
+                 Statement statement = connection.createStatement()) {
+                if (!initialized) init(connection);
+                String name = physicalName(schema);
+                statement.execute(catalogs
+                        ? "CREATE DATABASE IF NOT EXISTS `" + name + "`"
+                        : "CREATE SCHEMA IF NOT EXISTS \"" + name + "\"");
+            }
+        }
+    }
+
+    // ================= HIBERNATE =================
+
+    private static class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
+        @Override
+        public String resolveCurrentTenantIdentifier() {
+            return TenantContext.current();
+        }
+
+        @Override
+        public boolean validateExistingCurrentSessions() {
+            return false;
+        }
+    }
+
+    // Hibernate asks for a tenant explicitly; the DataSource routes by TenantContext, so bind it
+    private static class TenantConnectionProvider implements MultiTenantConnectionProvider<String> {
+        private final DataSource dataSource;
+
+        TenantConnectionProvider(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        // Startup and schema tooling: the current tenant (TenantService binds the one it migrates)
+        @Override
+        public Connection getAnyConnection() throws SQLException {
+            return dataSource.getConnection();
+        }
+
+        @Override
+        public void releaseAnyConnection(Connection connection) throws SQLException {
+            connection.close();
+        }
+
+        @Override
+        public Connection getConnection(String tenant) throws SQLException {
+            try {
+                return TenantContext.call(tenant, dataSource::getConnection);
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException(e);
+            }
+        }
+
+        @Override
+        public void releaseConnection(String tenant, Connection connection) throws SQLException {
+            connection.close();
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> type) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            throw new UnknownUnwrapTypeException(type);
+        }
+    }
+
+    /**
+     * Keeps Hibernate's mapping model, so a tenant schema can get the same ddl-auto treatment
+     * (e.g. "update": missing tables and columns added) as the default schema gets at startup.
+     */
+    public static class TenantSchemaMigrator implements Integrator {
+        private volatile Metadata metadata;
+        private volatile SessionFactoryImplementor sessionFactory;
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+            this.metadata = metadata;
+            this.sessionFactory = sessionFactory;
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+
+        /** Runs the configured schema action against 'schema' (a physical name), qualifying every table with it. */
+        public void migrate(String schema, boolean catalogs) {
+            Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+            settings.put(catalogs ? AvailableSettings.DEFAULT_CATALOG : AvailableSettings.DEFAULT_SCHEMA, schema);
+            SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings, action -> { });
+        }
+    }
+}
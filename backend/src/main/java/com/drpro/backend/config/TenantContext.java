@@ -0,0 +1,75 @@
+package com.drpro.backend.config;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The clinic branch (tenant) the current thread works for. Set per request by
+ * {@link TenantFilter}; everything below follows it: the schema connections are routed to
+ * (TenancyConfig), the @TenantScoped services and their caches, and the upload / backup folders.
+ *
+ * Threads outside a request (startup, scheduled jobs, workers) work for the default tenant
+ * unless they bind one with run() / call(). Tenant-scoped services that start their own
+ * threads pass their tenant on that way.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    private static volatile String defaultTenant = "main";
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : defaultTenant;
+    }
+
+    public static String getDefaultTenant() {
+        return defaultTenant;
+    }
+
+    static void setDefaultTenant(String tenant) {
+        defaultTenant = tenant;
+    }
+
+    // ================= LIFECYCLE (filter only) =================
+
+    static void bind(String tenant) {
+        CURRENT.set(tenant);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    // ================= BACKGROUND WORK =================
+
+    /** Runs 'task' for 'tenant', then restores whatever the thread was bound to before. */
+    public static void run(String tenant, Runnable task) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static <T> T call(String tenant, Callable<T> task) throws Exception {
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    private static void restore(String previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
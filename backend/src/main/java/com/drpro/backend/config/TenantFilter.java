@@ -0,0 +1,79 @@
+package com.drpro.backend.config;
+
+import com.drpro.backend.service.TenantService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Picks the tenant (clinic branch) of each request and binds it for everything downstream:
+ *   - "X-Tenant-Id" header, set by the frontend or by a proxy routing branches to nodes
+ *   - else "?tenant=" in the URL, for what cannot send headers: <img> links to uploads,
+ *     EventSource (/api/events), downloads opened in a new tab
+ *   - else the default tenant
+ *
+ * A tenant this node does not serve gets 421 Misdirected Request, so a proxy can tell a moved
+ * branch from a missing page. Runs just inside RequestTimingFilter, so those are traced too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    public static final String TENANT_PARAM = "tenant";
+
+    private static final int MISDIRECTED_REQUEST = 421; // Not in HttpStatus
+
+    @Autowired
+    private TenantService tenantService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String tenant = request.getHeader(TENANT_HEADER);
+        if (tenant == null) tenant = queryParam(request, TENANT_PARAM);
+        if (tenant == null) tenant = TenantContext.getDefaultTenant();
+
+        // Same URL, different branch: browser caches and 304s must not mix them up
+        response.addHeader(HttpHeaders.VARY, TENANT_HEADER);
+        if (tenantService.find(tenant) == null) {
+            response.setStatus(MISDIRECTED_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"status\":421,\"error\":\"Misdirected Request\",\"message\":\"Tenant '"
+                    + tenant.replaceAll("[^A-Za-z0-9_-]", "?") + "' is not served by this node\"}");
+            return;
+        }
+
+        TenantContext.bind(tenant);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    // From the query string only: getParameter() would read (and for the streaming upload, consume) the body
+    private static String queryParam(HttpServletRequest request, String name) {
+        String query = request.getQueryString();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return URLDecoder.decode(pair.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,122 @@
+package com.drpro.backend.config;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.Scope;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bean scope behind {@link TenantScoped}: instances are kept per tenant (TenantContext.current())
+ * and live until the tenant is detached or the application stops.
+ *
+ * Instances are created eagerly for every tenant (createAll) rather than on first use, so that
+ * their @Scheduled jobs are registered even for a branch nobody has opened yet.
+ */
+public class TenantScope implements Scope {
+
+    public static final String NAME = "tenant";
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final Map<String, Instances> tenants = new ConcurrentHashMap<>();
+    private final Set<String> detached = ConcurrentHashMap.newKeySet();
+
+    // Creation order, so destruction can run in reverse (dependents first)
+    private static class Instances {
+        final Map<String, Object> beans = new LinkedHashMap<>();
+        final Map<String, Runnable> destructionCallbacks = new LinkedHashMap<>();
+    }
+
+    public TenantScope(ConfigurableListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        String tenant = TenantContext.current();
+        // A request or job that was already running when its tenant was detached
+        if (detached.contains(tenant)) throw new IllegalStateException("Tenant '" + tenant + "' was detached");
+        Instances instances = tenants.computeIfAbsent(tenant, t -> new Instances());
+        // Per tenant, and re-entrant: creating one bean may create the scoped beans it uses
+        synchronized (instances) {
+            Object bean = instances.beans.get(name);
+            if (bean == null) {
+                bean = objectFactory.getObject();
+                instances.beans.put(name, bean);
+            }
+            return bean;
+        }
+    }
+
+    @Override
+    public Object remove(String name) {
+        Instances instances = tenants.get(TenantContext.current());
+        if (instances == null) return null;
+        synchronized (instances) {
+            instances.destructionCallbacks.remove(name);
+            return instances.beans.remove(name);
+        }
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        Instances instances = tenants.computeIfAbsent(TenantContext.current(), t -> new Instances());
+        synchronized (instances) {
+            instances.destructionCallbacks.put(name, callback);
+        }
+    }
+
+    @Override
+    public Object resolveContextualObject(String key) {
+        return null;
+    }
+
+    @Override
+    public String getConversationId() {
+        return TenantContext.current();
+    }
+
+    // ================= LIFECYCLE (TenantService) =================
+
+    /** Creates every tenant-scoped bean for the current tenant. */
+    public void createAll() {
+        detached.remove(TenantContext.current());
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            if (NAME.equals(beanFactory.getBeanDefinition(name).getScope())) {
+                beanFactory.getBean(name);
+            }
+        }
+    }
+
+    public int size(String tenant) {
+        Instances instances = tenants.get(tenant);
+        return instances == null ? 0 : instances.beans.size();
+    }
+
+    /** Destroys a tenant's instances (@PreDestroy, scheduled jobs cancelled); none are made again until createAll. */
+    public void destroy(String tenant) {
+        detached.add(tenant);
+        Instances instances = tenants.remove(tenant);
+        if (instances == null) return;
+        List<Runnable> callbacks;
+        synchronized (instances) {
+            callbacks = new ArrayList<>(instances.destructionCallbacks.values());
+        }
+        for (int i = callbacks.size() - 1; i >= 0; i--) {
+            try {
+                TenantContext.run(tenant, callbacks.get(i));
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Error stopping a service of tenant '" + tenant + "': " + e.getMessage());
+            }
+        }
+    }
+
+    public void destroyAll() {
+        new ArrayList<>(tenants.keySet()).forEach(this::destroy);
+    }
+}
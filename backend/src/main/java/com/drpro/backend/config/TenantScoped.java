@@ -0,0 +1,23 @@
+package com.drpro.backend.config;
+
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * One instance of the service per tenant (see {@link TenantScope}), for services that hold
+ * clinic data in memory: indexes, caches, counters, open packs, SSE subscribers.
+ * Callers keep injecting it as usual; the proxy picks the instance of the current tenant.
+ *
+ * ApplicationReadyEvent only reaches the default tenant's instance: warm-up code listens for
+ * TenantReadyEvent instead, which every tenant gets once its schema is ready.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Scope(value = TenantScope.NAME, proxyMode = ScopedProxyMode.TARGET_CLASS)
+public @interface TenantScoped {
+}
@@ -0,0 +1,26 @@
+package com.drpro.backend.config;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A field (String or list of Strings) that stores uploads as storage keys ("3f2a....png") rather
+ * than URLs. The JSON carries a full URL built for the request being answered (see UploadUrls),
+ * and a URL sent back by a client is stored as its key again.
+ *
+ * SparseFieldService looks for it on entity fields too, since ?fields= rows bypass Jackson's
+ * bean serializers.
+ */
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonSerialize(using = UploadUrls.Serializer.class)
+@JsonDeserialize(using = UploadUrls.Deserializer.class)
+public @interface UploadRef {
+}
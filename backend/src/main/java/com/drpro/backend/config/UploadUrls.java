@@ -0,0 +1,110 @@
+package com.drpro.backend.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Storage keys <-> the URLs clients load uploads from.
+ *
+ * Rows store the key only, so no host, port or node is baked into the database: the URL is
+ * built when a response is written, from storage.public-url if set, otherwise from the address
+ * the client itself used for this request. Other branches' links carry ?tenant= (see TenantFilter).
+ *
+ * Anything that is not a key (Cloudinary URLs, base64 data: URIs) passes through untouched, and
+ * so do old absolute URLs until UploadUrlMigrationService has rewritten them.
+ */
+public final class UploadUrls {
+
+    public static final String PATH = "/uploads/";
+
+    // What FileStorageService generates: a UUID plus the original extension
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,199}");
+
+    private static volatile String publicUrl;
+
+    private UploadUrls() {
+    }
+
+    static void setPublicUrl(String url) {
+        publicUrl = url == null || url.isBlank() ? null : url.replaceAll("/+$", "");
+    }
+
+    public static boolean isKey(String value) {
+        return value != null && KEY.matcher(value).matches() && !value.contains("..");
+    }
+
+    /** The URL for a stored reference: keys become links to /uploads/, anything else is returned as is. */
+    public static String toUrl(String ref) {
+        if (!isKey(ref)) return ref;
+        String url = baseUrl() + PATH + ref;
+        String tenant = TenantContext.current();
+        return tenant.equals(TenantContext.getDefaultTenant())
+                ? url : url + "?" + TenantFilter.TENANT_PARAM + "=" + URLEncoder.encode(tenant, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The key inside one of our own upload URLs ("http://192.168.1.5:8080/uploads/abc.png?tenant=x"
+     * or "/uploads/abc.png" -> "abc.png"); keys and foreign values are returned as they are.
+     */
+    public static String toKey(String ref) {
+        if (ref == null || isKey(ref)) return ref;
+        int at = ref.lastIndexOf(PATH);
+        if (at < 0 || !(at == 0 || ref.startsWith("http://") || ref.startsWith("https://"))) return ref;
+        String name = ref.substring(at + PATH.length());
+        int query = name.indexOf('?');
+        if (query >= 0) name = name.substring(0, query);
+        return isKey(name) ? name : ref;
+    }
+
+    // Relative when there is no request to take the host from (e.g. a background thread)
+    private static String baseUrl() {
+        if (publicUrl != null) return publicUrl;
+        if (RequestContextHolder.getRequestAttributes() == null) return "";
+        return ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+    }
+
+    // ================= JACKSON (@UploadRef) =================
+
+    public static class Serializer extends JsonSerializer<Object> {
+        @Override
+        public void serialize(Object value, JsonGenerator json, SerializerProvider provider) throws IOException {
+            if (value instanceof Iterable<?> refs) {
+                json.writeStartArray();
+                for (Object ref : refs) {
+                    json.writeString(ref != null ? toUrl(ref.toString()) : null);
+                }
+                json.writeEndArray();
+            } else {
+                json.writeString(toUrl(value.toString()));
+            }
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Object> {
+        @Override
+        public Object deserialize(JsonParser json, DeserializationContext context) throws IOException {
+            if (json.currentToken() == JsonToken.START_ARRAY) {
+                List<String> keys = new ArrayList<>();
+                while (json.nextToken() != JsonToken.END_ARRAY) {
+                    keys.add(toKey(json.getValueAsString()));
+                }
+                return keys;
+            }
+            return toKey(json.getValueAsString());
+        }
+    }
+}
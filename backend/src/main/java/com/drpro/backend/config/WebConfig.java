@@ -1,12 +1,40 @@
 package com.drpro.backend.config;
 
+import com.drpro.backend.controller.UploadController;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
     // We removed the addResourceHandlers method because 
     // FileController.java now handles image loading reliably.
+
+    @Autowired
+    private TableVersionInterceptor tableVersionInterceptor;
+
+    // ETag / 304 support for endpoints annotated with @TableVersioned
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(tableVersionInterceptor).addPathPatterns("/api/**");
+    }
+
+    // Replaces Boot's resolver: same behaviour, except the streaming upload endpoint gets
+    // its body untouched (otherwise Tomcat would spool every part to a temp file first)
+    @Bean
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                return !request.getRequestURI().startsWith(UploadController.PATH) && super.isMultipart(request);
+            }
+        };
+    }
 }
 
 
@@ -0,0 +1,64 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.dto.AnalyticsResultDTO;
+import com.drpro.backend.dto.FinanceBucketDTO;
+import com.drpro.backend.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    // Row counts and memory of the column store
+    @GetMapping
+    public Map<String, Object> getStats() {
+        return analyticsService.stats();
+    }
+
+    // e.g. GET /api/analytics/payments?groupBy=method&from=2025-01-01
+    //      GET /api/analytics/treatments?groupBy=procedure&patientId=12
+    @GetMapping("/{source}")
+    public AnalyticsResultDTO query(
+            @PathVariable String source,
+            @RequestParam(value = "groupBy", defaultValue = "none") String groupBy,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "patientId", required = false) Long patientId,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        try {
+            AnalyticsResultDTO result = analyticsService.query(AnalyticsService.source(source),
+                    AnalyticsService.dimension(groupBy), from, to, patientId, category, limit);
+            result.setGroupBy(groupBy); // Echo "method" / "procedure" rather than "category"
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // e.g. GET /api/analytics/net?groupBy=quarter
+    @GetMapping("/net")
+    public List<FinanceBucketDTO> net(
+            @RequestParam(value = "groupBy", defaultValue = "month") String groupBy,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        try {
+            return analyticsService.net(AnalyticsService.dimension(groupBy), from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -1,21 +1,39 @@
 package com.drpro.backend.controller;
 
+import com.drpro.backend.config.TableVersioned;
 import com.drpro.backend.dto.AppointmentDTO;
+import com.drpro.backend.dto.CalendarMonthDTO;
+import com.drpro.backend.dto.FreeSlotDTO;
+import com.drpro.backend.event.SyncRevisionListener;
 import com.drpro.backend.model.Appointment;
-import com.drpro.backend.model.Patient;
 import com.drpro.backend.repository.AppointmentRepository;
 import com.drpro.backend.repository.PatientRepository;
+import com.drpro.backend.service.CalendarService;
 import com.drpro.backend.service.FileStorageService;
+import com.drpro.backend.service.JsonStreamService;
+import com.drpro.backend.service.ScheduleIndexService;
+import com.drpro.backend.service.SparseFieldService;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.stream.Collectors;
 
 @RestController
@@ -31,6 +49,36 @@ public class AppointmentController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ScheduleIndexService scheduleIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CalendarService calendarService;
+
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    @Autowired
+    private SparseFieldService sparseFieldService;
+
+    private SparseFieldService.FieldCatalog appointmentFields;
+
+    @PostConstruct
+    public void init() {
+        appointmentFields = sparseFieldService.catalog(Appointment.class)
+                .join("patientName", "COALESCE(p.name, 'Unknown')", "LEFT JOIN Patient p ON p.id = e.patientId")
+                .collection("fileUrls", ids -> {
+                    Map<Long, List<Object>> files = new HashMap<>();
+                    for (Object[] row : appointmentRepo.findFileUrls(ids)) {
+                        files.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add(row[1]);
+                    }
+                    return files;
+                });
+    }
+
     /**
      * Helper method to convert Entity to DTO.
      * Crucial for ensuring the fileUrls list is serialized correctly as a JSON array.
@@ -41,6 +89,7 @@ public class AppointmentController {
         dto.setPatientId(app.getPatientId());
         dto.setDate(app.getDate());
         dto.setTime(app.getTime());
+        dto.setDurationMinutes(app.getDurationMinutes());
         dto.setNotes(app.getNotes());
         dto.setCost(app.getCost());
         dto.setStatus(app.getStatus());
@@ -56,8 +105,31 @@ public class AppointmentController {
         return dto;
     }
 
+    // Locks the day while saving, so two devices (on any node) can't book the slot at the same moment
+    private Appointment saveWithHold(Appointment app) {
+        return transactionTemplate.execute(status -> {
+            scheduleIndex.lockDay(app.getDate(), app.getTime(), app.getDurationMinutes(), app.getStatus(), app.getId());
+            return appointmentRepo.save(app);
+        });
+    }
+
     @GetMapping
-    public List<AppointmentDTO> getAppointments(@RequestParam(required = false) Long patientId) {
+    @TableVersioned({"appointments", "patients"})
+    public void getAppointments(@RequestParam(required = false) Long patientId,
+                                @RequestParam(required = false) String fields,
+                                HttpServletResponse response) throws IOException {
+        // ?fields=date,time,patientName selects just those columns (id is always included, ordered by id)
+        if (fields != null) {
+            try {
+                sparseFieldService.writeArray(response, appointmentFields, fields,
+                        patientId != null ? "e.patientId = :patientId" : null,
+                        patientId != null ? Map.of("patientId", patientId) : Map.of());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            return;
+        }
+
         List<Appointment> appointments;
         if (patientId != null) {
             appointments = appointmentRepo.findByPatientId(patientId);
@@ -66,14 +138,16 @@ public class AppointmentController {
         }
         
         // Fetch patient names for mapping
-        Map<Long, String> patientMap = patientRepo.findAll().stream()
-                .collect(Collectors.toMap(Patient::getId, Patient::getName));
+        Map<Long, String> patientMap = new HashMap<>();
+        for (Object[] row : patientRepo.findAllNames()) {
+            patientMap.put((Long) row[0], (String) row[1]);
+        }
         
-        return appointments.stream().map(app -> {
+        jsonStreamService.writeList(response, appointments.stream().map(app -> {
             AppointmentDTO dto = convertToDTO(app);
             dto.setPatientName(patientMap.getOrDefault(app.getPatientId(), "Unknown"));
             return dto;
-        }).collect(Collectors.toList());
+        }).collect(Collectors.toList()));
     }
 
     // ==========================================
@@ -84,6 +158,7 @@ public class AppointmentController {
             @RequestParam("patientId") Long patientId,
             @RequestParam("date") String date,
             @RequestParam(value = "time", required = false) String time,
+            @RequestParam(value = "durationMinutes", required = false) Integer durationMinutes,
             @RequestParam(value = "notes", required = false) String notes,
             @RequestParam(value = "cost", required = false) Double cost,
             @RequestParam(value = "status", defaultValue = "Scheduled") String status,
@@ -94,10 +169,14 @@ public class AppointmentController {
         app.setPatientId(patientId);
         app.setDate(LocalDate.parse(date));
         if (time != null && !time.isEmpty()) app.setTime(LocalTime.parse(time));
+        app.setDurationMinutes(durationMinutes);
         app.setNotes(notes);
         app.setCost(cost);
         app.setStatus(status);
 
+        // Reject double bookings before storing any files (throws 409 Conflict)
+        scheduleIndex.checkAvailable(app.getDate(), app.getTime(), app.getDurationMinutes(), app.getStatus(), null);
+
         // 1. Prescription
         if (prescriptionFile != null && !prescriptionFile.isEmpty()) {
             String fileName = fileStorageService.storeFile(prescriptionFile);
@@ -114,7 +193,7 @@ public class AppointmentController {
             }
         }
         
-        Appointment savedApp = appointmentRepo.save(app);
+        Appointment savedApp = saveWithHold(app);
         // Return DTO so frontend gets the clean list of URLs immediately
         return convertToDTO(savedApp);
     }
@@ -127,6 +206,7 @@ public class AppointmentController {
             @PathVariable Long id,
             @RequestParam(value = "date", required = false) String date,
             @RequestParam(value = "time", required = false) String time,
+            @RequestParam(value = "durationMinutes", required = false) Integer durationMinutes,
             @RequestParam(value = "notes", required = false) String notes,
             @RequestParam(value = "cost", required = false) Double cost,
             @RequestParam(value = "status", required = false) String status,
@@ -138,10 +218,14 @@ public class AppointmentController {
         
         if (date != null) app.setDate(LocalDate.parse(date));
         if (time != null && !time.isEmpty()) app.setTime(LocalTime.parse(time));
+        if (durationMinutes != null) app.setDurationMinutes(durationMinutes);
         if (notes != null) app.setNotes(notes);
         if (cost != null) app.setCost(cost);
         if (status != null) app.setStatus(status);
 
+        // Moving / extending a booking must not overlap others (its own old slot is ignored)
+        scheduleIndex.checkAvailable(app.getDate(), app.getTime(), app.getDurationMinutes(), app.getStatus(), app.getId());
+
         // 1. Update Prescription (Overwrites old one)
         if (prescriptionFile != null && !prescriptionFile.isEmpty()) {
             String fileName = fileStorageService.storeFile(prescriptionFile);
@@ -156,17 +240,63 @@ public class AppointmentController {
                     app.getFileUrls().add(fileName);
                 }
             }
+            // Collection-only change: make sure the sync revision moves too
+            SyncRevisionListener.markChanged(app);
         }
         
-        Appointment savedApp = appointmentRepo.save(app);
+        Appointment savedApp = saveWithHold(app);
         // Return DTO so frontend gets the clean list of URLs immediately
         return convertToDTO(savedApp);
     }
 
+    // ==========================================
+    // CALENDAR HEATMAP
+    // ==========================================
+    // e.g. /api/appointments/calendar?month=2026-05 -> per-day counts by status (no appointment bodies)
+    @GetMapping("/calendar")
+    @TableVersioned("appointments")
+    public CalendarMonthDTO getCalendarMonth(@RequestParam(value = "month", required = false) String month) {
+        YearMonth ym = month != null && !month.isEmpty() ? YearMonth.parse(month) : YearMonth.now();
+        return calendarService.getMonth(ym);
+    }
+
+    // ==========================================
+    // FREE SLOTS
+    // ==========================================
+    // e.g. /api/appointments/free-slots?duration=45&count=5 -> next 5 openings of 45 min from now
+    @GetMapping("/free-slots")
+    public List<FreeSlotDTO> getFreeSlots(
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "duration", defaultValue = "30") int duration,
+            @RequestParam(value = "count", defaultValue = "5") int count,
+            @RequestParam(value = "step", defaultValue = "15") int step,
+            @RequestParam(value = "days", defaultValue = "30") int days
+    ) {
+        LocalDateTime start = LocalDateTime.now();
+        if (from != null && !from.isEmpty()) {
+            start = from.contains("T") ? LocalDateTime.parse(from) : LocalDate.parse(from).atStartOfDay();
+        }
+        return scheduleIndex.findFreeSlots(start,
+                Math.max(5, Math.min(duration, 8 * 60)),
+                Math.max(1, Math.min(count, 50)),
+                Math.max(5, step),
+                Math.max(1, Math.min(days, 366)));
+    }
+
     @DeleteMapping("/{id}")
     public void deleteAppointment(@PathVariable Long id) {
         appointmentRepo.deleteById(id);
     }
+
+    // Only this message goes back to the client: it names the clashing booking, nothing internal
+    @ExceptionHandler(ScheduleIndexService.ConflictException.class)
+    public ResponseEntity<Map<String, Object>> conflict(ScheduleIndexService.ConflictException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", HttpStatus.CONFLICT.getReasonPhrase());
+        body.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
 }
 
 
@@ -0,0 +1,38 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.config.TableVersioned;
+import com.drpro.backend.dto.PatientBalanceDTO;
+import com.drpro.backend.service.PatientBalanceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class BalanceController {
+
+    @Autowired
+    private PatientBalanceService patientBalanceService;
+
+    // Charged / paid / outstanding for one patient (primary-key lookup)
+    @GetMapping("/patients/{id}/balance")
+    @TableVersioned({"patients", "payments", "appointments", "dental_records", "treatment_table_rows"})
+    public PatientBalanceDTO getBalance(@PathVariable Long id) {
+        return patientBalanceService.getBalance(id);
+    }
+
+    // Patients owing the most, e.g. GET /api/balances/outstanding?limit=10
+    @GetMapping("/balances/outstanding")
+    @TableVersioned({"patients", "payments", "appointments", "dental_records", "treatment_table_rows"})
+    public List<PatientBalanceDTO> getTopOutstanding(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return patientBalanceService.topOutstanding(limit);
+    }
+
+    // Recompute the ledger from scratch (after manual SQL edits, restores, ...)
+    @PostMapping("/balances/rebuild")
+    public Map<String, Object> rebuild() {
+        return Map.of("patients", patientBalanceService.rebuild());
+    }
+}
@@ -1,15 +1,25 @@
 package com.drpro.backend.controller;
 
+import com.drpro.backend.config.TableVersioned;
+import com.drpro.backend.dto.DentalRecordListItem;
 import com.drpro.backend.model.DentalRecord;
 import com.drpro.backend.repository.DentalRecordRepository;
 import com.drpro.backend.service.CloudinaryService;
+import com.drpro.backend.service.JsonStreamService;
+import com.drpro.backend.service.SparseFieldService;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -21,6 +31,19 @@ public class ClinicController {
     @Autowired
     private CloudinaryService cloudinaryService;
 
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    @Autowired
+    private SparseFieldService sparseFieldService;
+
+    private SparseFieldService.FieldCatalog dentalRecordFields;
+
+    @PostConstruct
+    public void init() {
+        dentalRecordFields = sparseFieldService.catalog(DentalRecord.class);
+    }
+
     // ==================================================================
     // NOTE: Patient & Appointment endpoints have been moved to:
     // 1. PatientController.java
@@ -30,14 +53,28 @@ public class ClinicController {
 
     // ================= DENTAL RECORDS =================
 
+    // ?fields=date,treatmentName selects just those columns (id is always included, ordered by id)
     @GetMapping("/dentalrecords")
-    public List<DentalRecord> getDentalRecords(
-            @RequestParam(required = false) Long patientId
-    ) {
-        if (patientId != null) {
-            return dentalRecordRepo.findByPatientIdOrderByDateDesc(patientId);
+    @TableVersioned("dental_records")
+    public void getDentalRecords(
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) String fields,
+            HttpServletResponse response
+    ) throws IOException {
+        if (fields != null) {
+            try {
+                sparseFieldService.writeArray(response, dentalRecordFields, fields,
+                        patientId != null ? "e.patientId = :patientId" : null,
+                        patientId != null ? Map.of("patientId", patientId) : Map.of());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            return;
         }
-        return dentalRecordRepo.findAllByOrderByDateDesc();
+        List<DentalRecordListItem> records = patientId != null
+                ? dentalRecordRepo.findByPatientIdOrderByDateDesc(patientId)
+                : dentalRecordRepo.findAllByOrderByDateDesc();
+        jsonStreamService.writeList(response, records);
     }
 
     @PostMapping(value = "/dentalrecords", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
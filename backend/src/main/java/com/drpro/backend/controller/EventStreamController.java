@@ -0,0 +1,35 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.service.LiveEventService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/events")
+public class EventStreamController {
+
+    @Autowired
+    private LiveEventService liveEventService;
+
+    // Example: new EventSource("/api/events?tables=appointments,payments&patientId=12")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestParam(required = false) String tables,
+            @RequestParam(required = false) Long patientId
+    ) {
+        Set<String> wanted = LiveEventService.PUBLISHED_TABLES;
+        if (tables != null && !tables.isBlank()) {
+            wanted = Arrays.stream(tables.split(","))
+                    .map(String::trim)
+                    .filter(LiveEventService.PUBLISHED_TABLES::contains)
+                    .collect(Collectors.toSet());
+        }
+        return liveEventService.subscribe(wanted, patientId);
+    }
+}
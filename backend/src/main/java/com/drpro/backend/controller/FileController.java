@@ -1,51 +1,58 @@
 package com.drpro.backend.controller;
 
+import com.drpro.backend.config.UploadUrls;
+import com.drpro.backend.service.ColdStorageService;
+import com.drpro.backend.service.FileStorageService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.MalformedURLException;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 @RestController
 @RequestMapping("/uploads")
 // REMOVED specific @CrossOrigin to use the Global Config (allows all IPs)
 public class FileController {
 
-    private final Path fileStorageLocation;
+    @Autowired
+    private FileStorageService fileStorageService;
 
-    public FileController() {
-        String homeDir = System.getProperty("user.home");
-        this.fileStorageLocation = Paths.get(homeDir, "DrPro_Data", "uploads")
-                .toAbsolutePath().normalize();
-    }
+    @Autowired
+    private ColdStorageService coldStorageService;
 
+    // The current tenant's uploads (TenantFilter reads ?tenant= from the link), by key
     @GetMapping("/{fileName:.+}")
     public ResponseEntity<Resource> getFile(@PathVariable String fileName) {
+        if (!UploadUrls.isKey(fileName)) return ResponseEntity.notFound().build();
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists()) {
-                String contentType = "application/octet-stream";
-                try {
-                    contentType = Files.probeContentType(filePath);
-                } catch (Exception ex) {
-                    // ignore
-                }
+            MediaType contentType = MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+            Resource resource = fileStorageService.load(fileName);
 
+            if (resource != null) {
+                Path local = fileStorageService.getStorageLocation();
+                if (local != null) {
+                    coldStorageService.touch(local.resolve(fileName)); // Still in use: keep it out of the cold packs
+                }
                 return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
+                        .contentType(contentType)
                         .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
             }
-        } catch (MalformedURLException e) {
+
+            // Not loose any more: old attachments live in the cold-storage packs
+            Resource packed = coldStorageService.find(fileName);
+            if (packed != null) {
+                return ResponseEntity.ok()
+                        .contentType(contentType)
+                        .contentLength(packed.contentLength())
+                        .body(packed);
+            }
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+}
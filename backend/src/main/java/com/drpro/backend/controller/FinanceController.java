@@ -1,19 +1,32 @@
 package com.drpro.backend.controller;
 
+import com.drpro.backend.config.TableVersioned;
+import com.drpro.backend.dto.ExpenseListItem;
+import com.drpro.backend.dto.FinanceSeriesDTO;
+import com.drpro.backend.dto.PaymentListItem;
 import com.drpro.backend.model.Expense;
 import com.drpro.backend.model.Payment;
 import com.drpro.backend.repository.ExpenseRepository;
 import com.drpro.backend.repository.PaymentRepository;
 import com.drpro.backend.service.CloudinaryService;
+import com.drpro.backend.service.FinanceSeriesService;
+import com.drpro.backend.service.JsonStreamService;
+import com.drpro.backend.service.SparseFieldService;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import org.springframework.core.io.InputStreamResource;
     import org.springframework.http.HttpHeaders;
     import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -35,12 +48,40 @@ public class FinanceController {
     @Autowired
     private com.drpro.backend.service.InvoiceService invoiceService; // Inject the service
 
+    @Autowired
+    private FinanceSeriesService financeSeriesService;
+
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    @Autowired
+    private SparseFieldService sparseFieldService;
+
+    private SparseFieldService.FieldCatalog paymentFields;
+    private SparseFieldService.FieldCatalog expenseFields;
+
+    @PostConstruct
+    public void init() {
+        paymentFields = sparseFieldService.catalog(Payment.class);
+        expenseFields = sparseFieldService.catalog(Expense.class);
+    }
+
     // ================= REVENUE (PAYMENTS) =================
 
     // Matches Frontend: api.getRevenueEntries() -> GET /api/revenue
     @GetMapping("/revenue")
-    public List<Payment> getAllPayments() {
-        return paymentRepo.findAll();
+    // ?fields=amount,date selects just those columns (id is always included)
+    @TableVersioned("payments")
+    public void getAllPayments(@RequestParam(required = false) String fields, HttpServletResponse response) throws IOException {
+        if (fields == null) {
+            jsonStreamService.writeArray(response, paymentRepo::findByIdGreaterThanOrderByIdAsc, PaymentListItem::getId);
+            return;
+        }
+        try {
+            sparseFieldService.writeArray(response, paymentFields, fields, null, Map.of());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     // Matches Frontend: api.addRevenueEntry() -> POST /api/revenue (JSON Body)
@@ -92,8 +133,18 @@ public class FinanceController {
 
     // Matches Frontend: api.getExpenseEntries() -> GET /api/expenses
     @GetMapping("/expenses")
-    public List<Expense> getAllExpenses() {
-        return expenseRepo.findAll();
+    // ?fields=amount,date selects just those columns (id is always included)
+    @TableVersioned("expenses")
+    public void getAllExpenses(@RequestParam(required = false) String fields, HttpServletResponse response) throws IOException {
+        if (fields == null) {
+            jsonStreamService.writeArray(response, expenseRepo::findByIdGreaterThanOrderByIdAsc, ExpenseListItem::getId);
+            return;
+        }
+        try {
+            sparseFieldService.writeArray(response, expenseFields, fields, null, Map.of());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     // Matches Frontend: api.addExpenseEntry() -> POST /api/expenses (JSON Body)
@@ -105,9 +156,11 @@ public class FinanceController {
     // ================= DASHBOARD SUMMARY =================
 
     @GetMapping("/finance/summary")
+    @TableVersioned({"payments", "expenses"})
     public Map<String, Object> getStats() {
-        double totalRevenue = paymentRepo.findAll().stream().mapToDouble(Payment::getAmount).sum();
-        double totalExpenses = expenseRepo.findAll().stream().mapToDouble(Expense::getAmount).sum();
+        // Summed by the database instead of loading every row
+        double totalRevenue = paymentRepo.sumAmount();
+        double totalExpenses = expenseRepo.sumAmount();
 
         Map<String, Object> response = new HashMap<>();
         response.put("totalRevenue", totalRevenue);
@@ -117,6 +170,25 @@ public class FinanceController {
         return response;
     }
 
+    // Matches Frontend: FinanceCalendar / FinanceChart -> GET /api/finance/timeseries?from=&to=&bucket=week
+    @GetMapping("/finance/timeseries")
+    @TableVersioned({"payments", "expenses"})
+    public FinanceSeriesDTO getTimeSeries(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "bucket", defaultValue = "day") String bucket,
+            @RequestParam(value = "breakdown", defaultValue = "false") boolean breakdown
+    ) {
+        if (!List.of("day", "week", "month").contains(bucket)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bucket must be day, week or month");
+        }
+        try {
+            return financeSeriesService.getSeries(from, to, bucket, breakdown);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/payments/{id}/invoice")
     public ResponseEntity<InputStreamResource> downloadInvoice(@PathVariable Long id) {
         Payment payment = paymentRepo.findById(id)
@@ -0,0 +1,50 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.dto.ImportReportDTO;
+import com.drpro.backend.service.BulkImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    /**
+     * Raw request body is streamed (not multipart), so even huge files are never held in memory:
+     *   curl -X POST -H "Content-Type: text/csv" --data-binary @patients.csv /api/import/patients
+     *   curl -X POST -H "Content-Type: application/json" --data-binary @payments.json /api/import/payments
+     * Pass ?jobId=... to follow progress from another device via /api/import/jobs/{jobId}.
+     */
+    @PostMapping("/{type}")
+    public ImportReportDTO importRows(
+            @PathVariable String type,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "jobId", required = false) String jobId,
+            HttpServletRequest request
+    ) throws IOException {
+        if (format == null) {
+            String contentType = request.getContentType();
+            format = contentType != null && contentType.contains("json") ? "json" : "csv";
+        }
+        return bulkImportService.importStream(type, format, request.getInputStream(), jobId);
+    }
+
+    @GetMapping("/jobs")
+    public List<ImportReportDTO> getJobs() {
+        return bulkImportService.getJobs();
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ImportReportDTO> getJob(@PathVariable String jobId) {
+        ImportReportDTO job = bulkImportService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+}
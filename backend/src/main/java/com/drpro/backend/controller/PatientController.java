@@ -1,15 +1,24 @@
 package com.drpro.backend.controller;
 
+import com.drpro.backend.config.TableVersioned;
+import com.drpro.backend.dto.PatientListItem;
 import com.drpro.backend.model.Patient;
 import com.drpro.backend.repository.PatientRepository;
 import com.drpro.backend.service.FileStorageService; // CHANGED
+import com.drpro.backend.service.JsonStreamService;
+import com.drpro.backend.service.SparseFieldService;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/patients")
@@ -22,9 +31,35 @@ public class PatientController {
     @Autowired
     private FileStorageService fileStorageService; // CHANGED
 
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    @Autowired
+    private SparseFieldService sparseFieldService;
+
+    private SparseFieldService.FieldCatalog patientFields;
+
+    @PostConstruct
+    public void init() {
+        patientFields = sparseFieldService.catalog(Patient.class);
+    }
+
+    // List columns only (the detail page loads the full patient), streamed page by page.
+    // ?fields=name,phone selects just those columns (id is always included)
     @GetMapping
-    public List<Patient> getAllPatients(@RequestParam(required = false) String query) {
-        return patientRepo.findAll();
+    @TableVersioned("patients")
+    public void getAllPatients(@RequestParam(required = false) String query,
+                               @RequestParam(required = false) String fields,
+                               HttpServletResponse response) throws IOException {
+        if (fields == null) {
+            jsonStreamService.writeArray(response, patientRepo::findByIdGreaterThanOrderByIdAsc, PatientListItem::getId);
+            return;
+        }
+        try {
+            sparseFieldService.writeArray(response, patientFields, fields, null, Map.of());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
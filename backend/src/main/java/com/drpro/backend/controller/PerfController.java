@@ -0,0 +1,37 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.dto.PerfReportDTO;
+import com.drpro.backend.service.PerfProfilerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/admin/perf")
+public class PerfController {
+
+    @Autowired
+    private PerfProfilerService perfProfilerService;
+
+    // Slowest statements and endpoints since startup (or the last reset), plus N+1 suspects
+    // sort: total (default), avg, p99, max, count
+    @GetMapping
+    public PerfReportDTO report(@RequestParam(value = "top", defaultValue = "20") int top,
+                                @RequestParam(value = "sort", defaultValue = "total") String sort) {
+        if (top < 1 || top > 500) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "top must be between 1 and 500");
+        }
+        try {
+            return perfProfilerService.getReport(top, sort);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Starts a fresh profile, e.g. before reproducing a slow screen
+    @DeleteMapping
+    public void reset() {
+        perfProfilerService.reset();
+    }
+}
@@ -1,7 +1,10 @@
 package com.drpro.backend.controller;
 
+import com.drpro.backend.config.TableVersioned;
+import com.drpro.backend.dto.ProcedureSuggestionDTO;
 import com.drpro.backend.model.ProcedureItem;
 import com.drpro.backend.repository.ProcedureItemRepository;
+import com.drpro.backend.service.ProcedureCatalogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,11 +18,24 @@ public class ProcedureItemController {
     @Autowired
     private ProcedureItemRepository repository;
 
+    @Autowired
+    private ProcedureCatalogService catalogService;
+
     @GetMapping
+    @TableVersioned("procedure_items")
     public List<ProcedureItem> getAll() {
         return repository.findAll();
     }
 
+    // Autocomplete, e.g. GET /api/procedures/suggest?q=root&limit=8
+    @GetMapping("/suggest")
+    public List<ProcedureSuggestionDTO> suggest(
+            @RequestParam(value = "q", defaultValue = "") String q,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        return catalogService.suggest(q, limit);
+    }
+
     @PostMapping
     public ProcedureItem create(@RequestBody ProcedureItem item) {
         return repository.save(item);
@@ -0,0 +1,30 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.config.ReplicaConfig.ReplicaRoutingDataSource;
+import com.drpro.backend.dto.ReplicaReportDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@RestController
+@RequestMapping("/api/admin/replicas")
+public class ReplicaController {
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Lag and reads per replica (replica.urls); 404 when this node reads from the primary only
+    @GetMapping
+    public ReplicaReportDTO report() throws SQLException {
+        if (!dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No read replicas configured (replica.urls)");
+        }
+        return dataSource.unwrap(ReplicaRoutingDataSource.class).report();
+    }
+}
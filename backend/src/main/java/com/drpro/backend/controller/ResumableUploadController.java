@@ -0,0 +1,84 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.dto.UploadSessionDTO;
+import com.drpro.backend.dto.UploadSessionRequestDTO;
+import com.drpro.backend.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resumable upload protocol for large scans:
+ *   POST   /api/uploads/sessions                  -> open (fileName, size, appointmentId | dentalRecordId)
+ *   PUT    /api/uploads/sessions/{id}?offset=N    -> raw bytes starting at N (any chunk size)
+ *   HEAD / GET /api/uploads/sessions/{id}         -> current offset (Upload-Offset header)
+ *   POST   /api/uploads/sessions/{id}/complete    -> move into uploads/ and attach
+ *   DELETE /api/uploads/sessions/{id}             -> abandon
+ * After a failed PUT the client asks for the offset and sends only the rest.
+ */
+@RestController
+@RequestMapping("/api/uploads/sessions")
+public class ResumableUploadController {
+
+    private static final String OFFSET_HEADER = "Upload-Offset";
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @PostMapping
+    public UploadSessionDTO create(@RequestBody UploadSessionRequestDTO request) {
+        try {
+            return resumableUploadService.create(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDTO> get(@PathVariable String id) {
+        UploadSessionDTO session = resumableUploadService.get(id);
+        return ResponseEntity.ok()
+                .header(OFFSET_HEADER, String.valueOf(session.getOffset()))
+                .header("Cache-Control", "no-store")
+                .body(session);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<UploadSessionDTO> append(@PathVariable String id,
+                                                   @RequestParam("offset") long offset,
+                                                   HttpServletRequest request) throws IOException {
+        UploadSessionDTO session = resumableUploadService.append(id, offset, request.getInputStream());
+        return ResponseEntity.ok()
+                .header(OFFSET_HEADER, String.valueOf(session.getOffset()))
+                .body(session);
+    }
+
+    @PostMapping("/{id}/complete")
+    public UploadSessionDTO complete(@PathVariable String id) {
+        return resumableUploadService.complete(id);
+    }
+
+    @DeleteMapping("/{id}")
+    public void cancel(@PathVariable String id) {
+        resumableUploadService.cancel(id);
+    }
+
+    // Wrong offset / still busy: tell the client where to resume instead of just failing
+    @ExceptionHandler(ResumableUploadService.OffsetMismatchException.class)
+    public ResponseEntity<Map<String, Object>> offsetMismatch(ResumableUploadService.OffsetMismatchException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("message", e.getMessage());
+        body.put("offset", e.getOffset());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(OFFSET_HEADER, String.valueOf(e.getOffset()))
+                .body(body);
+    }
+}
@@ -0,0 +1,107 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.config.ReplicaContext;
+import com.drpro.backend.dto.SyncChangeDTO;
+import com.drpro.backend.dto.SyncFeedDTO;
+import com.drpro.backend.model.SyncTombstone;
+import com.drpro.backend.model.SyncTracked;
+import com.drpro.backend.model.TreatmentTable;
+import com.drpro.backend.repository.SyncTombstoneRepository;
+import com.drpro.backend.service.SyncRevisionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private static final int MAX_LIMIT = 2000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private SyncTombstoneRepository tombstoneRepo;
+
+    @Autowired
+    private SyncRevisionService syncRevisionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    public void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Delta feed: every row changed or deleted after ?since=, oldest first.
+     * Start with since=0, then keep passing back the returned "revision".
+     */
+    @GetMapping
+    public SyncFeedDTO getChanges(
+            @RequestParam(defaultValue = "0") Long since,
+            @RequestParam(defaultValue = "500") int limit
+    ) {
+        // From the primary: a cursor handed out here must never run ahead of the rows a client got
+        ReplicaContext.usePrimary();
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return readOnly.execute(status -> feed(since, max));
+    }
+
+    private SyncFeedDTO feed(long since, int limit) {
+        long upTo = syncRevisionService.stableRevision();
+
+        // 1. Up to 'limit' candidates from every table, each already sorted by revision
+        List<SyncChangeDTO> changes = new ArrayList<>();
+        for (Map.Entry<String, Class<? extends SyncTracked>> entry : SyncRevisionService.TRACKED.entrySet()) {
+            String jpql = "SELECT e FROM " + entry.getValue().getSimpleName() + " e"
+                    + " WHERE e.revision > :since AND e.revision <= :upTo ORDER BY e.revision";
+            List<? extends SyncTracked> rows = entityManager.createQuery(jpql, entry.getValue())
+                    .setParameter("since", since)
+                    .setParameter("upTo", upTo)
+                    .setMaxResults(limit)
+                    .getResultList();
+            for (SyncTracked row : rows) {
+                // Serialized after the transaction (no open-in-view): load lazy rows now, batched
+                if (row instanceof TreatmentTable table) Hibernate.initialize(table.getRows());
+                changes.add(new SyncChangeDTO(row.getRevision(), entry.getKey(), "upsert", row.getId(), row));
+            }
+        }
+
+        List<SyncTombstone> tombstones = tombstoneRepo
+                .findByRevisionGreaterThanAndRevisionLessThanEqualOrderByRevisionAsc(since, upTo, PageRequest.of(0, limit));
+        for (SyncTombstone t : tombstones) {
+            changes.add(new SyncChangeDTO(t.getRevision(), t.getTableName(), "delete", t.getEntityId(), null));
+        }
+
+        // 2. Merge and keep the oldest 'limit' changes
+        changes.sort(Comparator.comparing(SyncChangeDTO::getRevision));
+
+        SyncFeedDTO feed = new SyncFeedDTO();
+        feed.setSince(since);
+        if (changes.size() >= limit) {
+            // A table may have been cut off at 'limit', so we can only vouch up to the last kept row
+            changes = new ArrayList<>(changes.subList(0, limit));
+            feed.setHasMore(true);
+        }
+        feed.setChanges(changes);
+        feed.setRevision(feed.isHasMore() ? changes.get(changes.size() - 1).getRevision() : Math.max(since, upTo));
+        return feed;
+    }
+}
@@ -0,0 +1,44 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.dto.TenantDTO;
+import com.drpro.backend.service.TenantService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/tenants")
+public class TenantController {
+
+    @Autowired
+    private TenantService tenantService;
+
+    // Branches served by this node, the default one first
+    @GetMapping
+    public List<TenantDTO> list() {
+        return tenantService.list();
+    }
+
+    // Starts serving a branch (e.g. moved here from another node); its schema is created if missing
+    @PutMapping("/{id}")
+    public TenantDTO attach(@PathVariable String id, @RequestParam("schema") String schema) {
+        try {
+            return tenantService.attach(id, schema);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Stops serving a branch; its schema and files are left alone
+    @DeleteMapping("/{id}")
+    public void detach(@PathVariable String id) {
+        try {
+            tenantService.detach(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.drpro.backend.controller;
 
+import com.drpro.backend.config.TableVersioned;
+import com.drpro.backend.dto.TreatmentBatchRequestDTO;
+import com.drpro.backend.dto.TreatmentRowItem;
+import com.drpro.backend.dto.TreatmentTableDTO;
+import com.drpro.backend.dto.TreatmentTableItem;
+import com.drpro.backend.dto.TreatmentTableSummaryDTO;
 import com.drpro.backend.model.TreatmentTable;
 import com.drpro.backend.model.TreatmentTableRow;
 import com.drpro.backend.repository.TreatmentTableRepository;
 import com.drpro.backend.repository.TreatmentTableRowRepository;
+import com.drpro.backend.service.TreatmentBatchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/treatments")
@@ -21,10 +31,27 @@ public class TreatmentController {
     @Autowired
     private TreatmentTableRowRepository rowRepo;
 
-    // Get all tables for a patient
+    @Autowired
+    private TreatmentBatchService treatmentBatchService;
+
+    // Get all tables for a patient (two queries: the tables, then all their rows)
     @GetMapping
-    public List<TreatmentTable> getTables(@RequestParam Long patientId) {
-        return tableRepo.findByPatientId(patientId);
+    @TableVersioned({"treatment_tables", "treatment_table_rows"})
+    public List<TreatmentTableDTO> getTables(@RequestParam Long patientId) {
+        Map<Long, TreatmentTableDTO> tables = new LinkedHashMap<>();
+        for (TreatmentTableItem item : tableRepo.findByPatientIdOrderByIdAsc(patientId)) {
+            TreatmentTableDTO dto = new TreatmentTableDTO();
+            dto.setId(item.getId());
+            dto.setPatientId(item.getPatientId());
+            dto.setTitle(item.getTitle());
+            tables.put(item.getId(), dto);
+        }
+        if (tables.isEmpty()) return List.of();
+        for (TreatmentRowItem row : rowRepo.findItemsByPatientId(patientId)) {
+            TreatmentTableDTO table = tables.get(row.getTableId());
+            if (table != null) table.getRows().add(row);
+        }
+        return new ArrayList<>(tables.values());
     }
 
     // Create a new Table
@@ -42,7 +69,8 @@ public class TreatmentController {
     // Add a Row to a Table
     @PostMapping("/{tableId}/rows")
     public TreatmentTableRow addRow(@PathVariable Long tableId, @RequestBody TreatmentTableRow row) {
-        TreatmentTable table = tableRepo.findById(tableId).orElseThrow();
+        // Reference only: no need to load the table (and its rows) just to set the FK
+        TreatmentTable table = tableRepo.getReferenceById(tableId);
         row.setTreatmentTable(table);
         if (row.getDate() == null) row.setDate(LocalDate.now());
         return rowRepo.save(row);
@@ -59,6 +87,12 @@ public class TreatmentController {
         return rowRepo.save(row);
     }
 
+    // Apply many grid edits (inserts / updates / deletes) in one round trip
+    @PostMapping("/{tableId}/batch")
+    public TreatmentTableSummaryDTO applyBatch(@PathVariable Long tableId, @RequestBody TreatmentBatchRequestDTO batch) {
+        return treatmentBatchService.applyBatch(tableId, batch);
+    }
+
     // Delete a Row
     @DeleteMapping("/rows/{rowId}")
     public void deleteRow(@PathVariable Long rowId) {
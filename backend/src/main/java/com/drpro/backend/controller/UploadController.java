@@ -0,0 +1,58 @@
+package com.drpro.backend.controller;
+
+import com.drpro.backend.dto.ColdStorageReportDTO;
+import com.drpro.backend.dto.UploadGcReportDTO;
+import com.drpro.backend.dto.UploadResultDTO;
+import com.drpro.backend.service.ColdStorageService;
+import com.drpro.backend.service.StreamingUploadService;
+import com.drpro.backend.service.UploadGcService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping(UploadController.PATH)
+public class UploadController {
+
+    // Excluded from Spring's multipart handling in WebConfig: this endpoint reads the raw body
+    public static final String PATH = "/api/uploads";
+
+    @Autowired
+    private StreamingUploadService streamingUploadService;
+
+    @Autowired
+    private UploadGcService uploadGcService;
+
+    @Autowired
+    private ColdStorageService coldStorageService;
+
+    // Streams any number of files (multipart/form-data) straight into uploads/, returns their URLs
+    @PostMapping
+    public UploadResultDTO upload(HttpServletRequest request) {
+        return streamingUploadService.ingest(request);
+    }
+
+    // Orphaned file collection: last (or running) report
+    @GetMapping("/gc")
+    public UploadGcReportDTO gcReport() {
+        return uploadGcService.getLastReport();
+    }
+
+    // Starts a collection now; dryRun=true only counts what would be deleted
+    @PostMapping("/gc")
+    public UploadGcReportDTO startGc(@RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        return uploadGcService.start(dryRun);
+    }
+
+    // Cold storage: pack totals and the last tiering run
+    @GetMapping("/cold")
+    public ColdStorageReportDTO coldStorageReport() {
+        return coldStorageService.getReport();
+    }
+
+    // Packs everything that has gone cold now instead of waiting for the night
+    @PostMapping("/cold")
+    public ColdStorageReportDTO startTiering() {
+        return coldStorageService.start();
+    }
+}
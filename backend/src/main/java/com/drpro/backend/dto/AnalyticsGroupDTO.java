@@ -0,0 +1,12 @@
+package com.drpro.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AnalyticsGroupDTO {
+    private String key;   // "UPI", "2026-Q2", "MONDAY", patient id ...
+    private long count;
+    private double total;
+}
@@ -0,0 +1,18 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class AnalyticsResultDTO {
+    private String source;   // payments / expenses / treatment_table_rows
+    private String groupBy;
+    private LocalDate from;  // null = from the first entry
+    private LocalDate to;
+    private long count;      // Matching entries
+    private double total;
+    private long tookMicros;
+    private List<AnalyticsGroupDTO> groups = new ArrayList<>();
+}
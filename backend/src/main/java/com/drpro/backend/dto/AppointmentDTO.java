@@ -1,5 +1,6 @@
 package com.drpro.backend.dto;
 
+import com.drpro.backend.config.UploadRef;
 import lombok.Data;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -14,14 +15,18 @@ public class AppointmentDTO {
     private String patientName; // Derived field
     private LocalDate date;
     private LocalTime time;
+    private Integer durationMinutes;
     private String notes;
     private Double cost;
     private String status;
 
     // Legacy fields
+    @UploadRef
     private String prescriptionUrl;
+    @UploadRef
     private String additionalFileUrl;
 
     // ✅ ADD THIS: The missing list!
+    @UploadRef
     private List<String> fileUrls = new ArrayList<>();
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.drpro.backend.dto;
+
+import java.time.LocalDate;
+
+// Spring Data projection for the calendar GROUP BY (one row per day + status)
+public interface AppointmentDayCount {
+    LocalDate getDate();
+    String getStatus();
+    Long getCount();
+}
@@ -0,0 +1,13 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class CalendarDayDTO {
+    private LocalDate date;
+    private long total;
+    private Map<String, Long> byStatus = new LinkedHashMap<>(); // "Scheduled" -> 4, "Completed" -> 2
+}
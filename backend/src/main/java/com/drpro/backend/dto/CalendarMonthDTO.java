@@ -0,0 +1,12 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CalendarMonthDTO {
+    private String month; // "2026-05"
+    private long total;
+    private List<CalendarDayDTO> days = new ArrayList<>(); // Only days with appointments
+}
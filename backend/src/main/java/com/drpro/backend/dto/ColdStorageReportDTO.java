@@ -0,0 +1,24 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One cold-storage tiering run, plus the pack totals at the time it was read
+@Data
+public class ColdStorageReportDTO {
+    private String status;          // IDLE, RUNNING, DONE, FAILED, SKIPPED
+    private LocalDateTime startedAt;
+    private long elapsedMs;
+
+    private long scannedFiles;      // Loose files looked at in uploads/
+    private long packedFiles;       // Moved into packs by this run
+    private long packedBytes;
+    private long compactedPacks;    // Mostly-dead packs rewritten and deleted
+    private String error;
+
+    private long packs;
+    private long filesInPacks;
+    private long bytesInPacks;      // Live file bytes
+    private long deadBytes;         // Removed files still taking space until compaction
+}
@@ -0,0 +1,10 @@
+package com.drpro.backend.dto;
+
+import java.time.LocalDate;
+
+// Spring Data projection: SUM(amount) per day and category (payment method / expense type)
+public interface DaySum {
+    LocalDate getDate();
+    String getCategory();
+    Double getTotal();
+}
@@ -1,5 +1,6 @@
 package com.drpro.backend.dto;
 
+import com.drpro.backend.config.UploadRef;
 import lombok.Data;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -16,8 +17,10 @@ public class DentalRecordDTO {
     private String status;
 
     // Legacy field (single file)
+    @UploadRef
     private String attachmentUrl;
 
     // ✅ CRITICAL: The list for multiple images
+    @UploadRef
     private List<String> fileUrls = new ArrayList<>();
 }
\ No newline at end of file
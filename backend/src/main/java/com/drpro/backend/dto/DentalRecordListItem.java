@@ -0,0 +1,21 @@
+package com.drpro.backend.dto;
+
+import com.drpro.backend.config.UploadRef;
+
+import java.time.LocalDate;
+
+// Spring Data projection for GET /api/dentalrecords
+public interface DentalRecordListItem {
+    Long getId();
+    Long getPatientId();
+    LocalDate getDate();
+    String getTreatmentName();
+    String getNotes();
+    Double getCost();
+    @UploadRef
+    String getPrescriptionUrl();
+    @UploadRef
+    String getAdditionalFileUrl();
+    String getPrescriptionFileName();
+    String getAdditionalFileName();
+}
@@ -0,0 +1,16 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+// One endpoint (method + mapped path pattern) as seen by the profiler since startup
+@Data
+public class EndpointStatDTO {
+    private String endpoint;        // e.g. "GET /api/patients/{id}"
+    private long count;
+    private long errors;            // 5xx responses
+    private double totalMs;
+    private double avgMs;
+    private double p99Ms;           // Over the most recent samples, not the whole run
+    private double maxMs;
+    private double avgStatements;   // SQL statements per request
+}
@@ -0,0 +1,12 @@
+package com.drpro.backend.dto;
+
+import java.time.LocalDate;
+
+// Spring Data projection for GET /api/expenses
+public interface ExpenseListItem {
+    Long getId();
+    String getType();
+    Double getAmount();
+    String getNotes();
+    LocalDate getDate();
+}
@@ -0,0 +1,21 @@
+package com.drpro.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FinanceBucketDTO {
+    private String label;      // "2026-05-04", "2026-W19" or "2026-05"
+    private LocalDate start;
+    private LocalDate end;     // inclusive
+    private double revenue;
+    private double expenses;
+    private double net;
+
+    // Only filled when asked for with ?breakdown=
+    private Map<String, Double> revenueByMethod;
+    private Map<String, Double> expensesByType;
+}
@@ -0,0 +1,17 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class FinanceSeriesDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private String bucket; // day / week / month
+    private double totalRevenue;
+    private double totalExpenses;
+    private double netProfit;
+    private List<FinanceBucketDTO> buckets = new ArrayList<>(); // Every bucket in range, empty ones included
+}
@@ -0,0 +1,14 @@
+package com.drpro.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@AllArgsConstructor
+public class FreeSlotDTO {
+    private LocalDate date;
+    private LocalTime start;
+    private LocalTime end;
+}
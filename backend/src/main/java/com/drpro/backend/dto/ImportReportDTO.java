@@ -0,0 +1,23 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Live progress + final result of one bulk import (also polled via /api/import/jobs)
+@Data
+public class ImportReportDTO {
+    private String jobId;
+    private String type;        // patients / appointments / payments
+    private String status;      // RUNNING, DONE, FAILED
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private LocalDateTime startedAt;
+    private long elapsedMs;
+    private long rowsPerSecond;
+
+    // First few problems only ("row 17: date is not a valid date")
+    private List<String> errors = new CopyOnWriteArrayList<>();
+}
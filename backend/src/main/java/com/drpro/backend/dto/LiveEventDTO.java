@@ -0,0 +1,15 @@
+package com.drpro.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Compact "something changed" message pushed over /api/events. Clients re-fetch what they need.
+@Data
+@AllArgsConstructor
+public class LiveEventDTO {
+    private String table;     // "appointments", "payments", "patients"
+    private String op;        // INSERT / UPDATE / DELETE (UPSERT: written on another node)
+    private Object id;
+    private Long patientId;
+    private Long revision;    // Matches the /api/sync revision (null on deletes)
+}
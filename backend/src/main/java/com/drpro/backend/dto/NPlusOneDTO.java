@@ -0,0 +1,12 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+// The same statement run many times within one request: usually a lazy load inside a loop
+@Data
+public class NPlusOneDTO {
+    private String endpoint;
+    private String sql;
+    private long requests;          // Requests where it repeated at least the threshold
+    private long maxRepeats;        // Most runs seen in a single request
+}
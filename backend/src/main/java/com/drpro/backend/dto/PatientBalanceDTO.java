@@ -0,0 +1,12 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+@Data
+public class PatientBalanceDTO {
+    private Long patientId;
+    private String patientName;
+    private double charged;
+    private double paid;
+    private double outstanding;
+}
@@ -0,0 +1,18 @@
+package com.drpro.backend.dto;
+
+import com.drpro.backend.config.UploadRef;
+
+import java.time.LocalDate;
+
+// Spring Data projection for the patient list: no address / medical text (only the detail page shows those)
+public interface PatientListItem {
+    Long getId();
+    String getName();
+    LocalDate getDob();
+    String getPhone();
+    String getAlternatePhone();
+    String getEmail();
+    String getGender();
+    @UploadRef
+    String getAvatarUrl();
+}
@@ -0,0 +1,18 @@
+package com.drpro.backend.dto;
+
+import com.drpro.backend.config.UploadRef;
+
+import java.time.LocalDate;
+
+// Spring Data projection for GET /api/revenue (the sync columns are served by /api/sync)
+public interface PaymentListItem {
+    Long getId();
+    Long getPatientId();
+    Double getAmount();
+    String getDescription();
+    String getMethod();
+    LocalDate getDate();
+    String getStatus();
+    @UploadRef
+    String getReceiptUrl();
+}
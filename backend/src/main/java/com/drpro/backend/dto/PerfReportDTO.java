@@ -0,0 +1,19 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Embedded profiler snapshot for /api/admin/perf
+@Data
+public class PerfReportDTO {
+    private LocalDateTime since;    // Startup or the last reset
+    private long statements;
+    private long requests;
+    private long untrackedStatements; // Runs of new statement shapes after the fingerprint limit was hit
+
+    private List<QueryStatDTO> queries;
+    private List<EndpointStatDTO> endpoints;
+    private List<NPlusOneDTO> repeatedQueries; // N+1 suspects
+}
@@ -0,0 +1,11 @@
+package com.drpro.backend.dto;
+
+import lombok.Value;
+
+// Immutable: one instance is shared by every request reading the same catalog snapshot
+@Value
+public class ProcedureSuggestionDTO {
+    Long id;
+    String description;
+    Double price;
+}
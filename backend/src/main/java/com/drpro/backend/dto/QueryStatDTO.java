@@ -0,0 +1,14 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+// One SQL statement shape (literals replaced by ?) as seen by the profiler since startup
+@Data
+public class QueryStatDTO {
+    private String sql;
+    private long count;
+    private double totalMs;
+    private double avgMs;
+    private double p99Ms;           // Over the most recent samples, not the whole run
+    private double maxMs;
+}
@@ -0,0 +1,14 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Read replica routing on this node, for /api/admin/replicas
+@Data
+public class ReplicaReportDTO {
+    private long maxLagMs;          // Replicas further behind are left out
+    private long primaryReads;      // Read-only GET connections the primary served (lag, read-your-writes, no replica)
+    private List<ReplicaStatusDTO> replicas = new ArrayList<>();
+}
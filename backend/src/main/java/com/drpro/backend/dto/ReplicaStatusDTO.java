@@ -0,0 +1,15 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+// One read replica, as the heartbeat last saw it
+@Data
+public class ReplicaStatusDTO {
+    private String name;
+    private String url;
+    private boolean healthy;     // Reachable, and replicating this node's heartbeat
+    private Long lagMs;          // Age of the newest heartbeat it has applied; null before the first one
+    private boolean inRotation;  // Serving reads now (healthy and within replica.max-lag-ms)
+    private long reads;          // Connections it has served
+    private String error;        // Why it is not healthy
+}
@@ -0,0 +1,14 @@
+package com.drpro.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SyncChangeDTO {
+    private Long revision;
+    private String table;   // "patients", "appointments", ...
+    private String op;      // "upsert" or "delete"
+    private Long id;
+    private Object data;    // Full row for upserts, null for deletes
+}
@@ -0,0 +1,13 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class SyncFeedDTO {
+    private Long since;
+    private Long revision;   // Pass this as ?since= on the next call
+    private boolean hasMore; // Call again straight away if true
+    private List<SyncChangeDTO> changes = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+// A clinic branch served by this node, for /api/admin/tenants
+@Data
+public class TenantDTO {
+    private String id;
+    private String schema;          // null for the default tenant: the schema of spring.datasource.url
+    private String dataDir;         // uploads/, packs/, backups/ ... of this tenant
+    private boolean defaultTenant;  // Requests without X-Tenant-Id go here
+    private int services;           // Tenant-scoped service instances currently running
+}
@@ -0,0 +1,14 @@
+package com.drpro.backend.dto;
+
+import com.drpro.backend.model.TreatmentTableRow;
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+// Every pending grid edit for one treatment table, sent in one request
+@Data
+public class TreatmentBatchRequestDTO {
+    private List<TreatmentTableRow> inserts = new ArrayList<>();
+    private List<TreatmentTableRow> updates = new ArrayList<>(); // id + changed fields only
+    private List<Long> deletes = new ArrayList<>();
+}
@@ -0,0 +1,16 @@
+package com.drpro.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+
+// Spring Data projection: one treatment grid row, fetched for all of a patient's tables at once
+public interface TreatmentRowItem {
+    @JsonIgnore
+    Long getTableId();     // Only for grouping: the row is written inside its table
+    Long getId();
+    String getNotes();
+    Double getCost();
+    String getStatus();
+    LocalDate getDate();
+}
@@ -0,0 +1,15 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// GET /api/treatments: one table with its rows, built from two projection queries instead of lazy loading
+@Data
+public class TreatmentTableDTO {
+    private Long id;
+    private Long patientId;
+    private String title;
+    private List<TreatmentRowItem> rows = new ArrayList<>();
+}
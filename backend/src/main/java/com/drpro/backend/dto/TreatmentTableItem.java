@@ -0,0 +1,8 @@
+package com.drpro.backend.dto;
+
+// Spring Data projection: a treatment table without its rows (those come from TreatmentRowItem)
+public interface TreatmentTableItem {
+    Long getId();
+    Long getPatientId();
+    String getTitle();
+}
@@ -0,0 +1,14 @@
+package com.drpro.backend.dto;
+
+import com.drpro.backend.model.TreatmentTable;
+import lombok.Data;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class TreatmentTableSummaryDTO {
+    private TreatmentTable table;
+    private int rowCount;
+    private double totalCost;
+    private Map<String, Double> totalsByStatus = new LinkedHashMap<>(); // "Paid" -> 1200.0, "Unpaid" -> 300.0
+}
@@ -0,0 +1,22 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Result of one orphaned-upload collection (also the live progress while it runs)
+@Data
+public class UploadGcReportDTO {
+    private String status;          // RUNNING, DONE, FAILED, SKIPPED
+    private boolean dryRun;         // Only counted what it would delete
+    private LocalDateTime startedAt;
+    private long elapsedMs;
+
+    private long referencedFiles;   // Distinct upload file names found in the database
+    private long scannedFiles;      // Files looked at in uploads/
+    private long scannedBytes;
+    private long youngFiles;        // Unreferenced but still inside the grace period
+    private long reclaimedFiles;
+    private long reclaimedBytes;
+    private String error;
+}
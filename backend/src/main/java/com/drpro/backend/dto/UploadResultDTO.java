@@ -0,0 +1,14 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class UploadResultDTO {
+    private List<UploadedFileDTO> files = new ArrayList<>();
+    private Map<String, String> fields = new LinkedHashMap<>(); // Plain (non-file) form fields
+    private long elapsedMs;
+}
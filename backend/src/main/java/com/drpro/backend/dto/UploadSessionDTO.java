@@ -0,0 +1,26 @@
+package com.drpro.backend.dto;
+
+import com.drpro.backend.config.UploadRef;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// State of one resumable upload. Also the session's sidecar file on disk.
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadSessionDTO {
+    private String id;
+    private String fileName;
+    private String contentType;
+    private long size;
+    private long offset;          // Bytes received so far: the next PUT starts here
+    private String sha256;        // Expected digest while open, actual digest once complete
+    private Long appointmentId;
+    private Long dentalRecordId;
+    private String status;        // OPEN or COMPLETE
+    @UploadRef
+    private String url;           // Set once complete
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
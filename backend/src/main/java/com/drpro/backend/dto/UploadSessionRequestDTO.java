@@ -0,0 +1,13 @@
+package com.drpro.backend.dto;
+
+import lombok.Data;
+
+// Opens a resumable upload: what is coming and where it goes once complete
+@Data
+public class UploadSessionRequestDTO {
+    private String fileName;      // Original name; its extension decides the accepted type
+    private Long size;            // Total bytes the client will send
+    private String sha256;        // Optional hex digest, checked on complete
+    private Long appointmentId;   // Attach to this appointment's files...
+    private Long dentalRecordId;  // ...or as this dental record's additional file
+}
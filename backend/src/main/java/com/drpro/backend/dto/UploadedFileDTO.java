@@ -0,0 +1,15 @@
+package com.drpro.backend.dto;
+
+import com.drpro.backend.config.UploadRef;
+import lombok.Data;
+
+@Data
+public class UploadedFileDTO {
+    private String field;        // Form field the file came in (e.g. "files")
+    private String originalName;
+    private String contentType;
+    @UploadRef
+    private String url;          // Stored as the key FileStorageService.storeFile() returns
+    private long size;
+    private String sha256;       // Hex, computed while writing
+}
@@ -0,0 +1,22 @@
+package com.drpro.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published after a JDBC bulk write (e.g. BulkImportService) that skipped the per-row
+ * EntityChangeEvents. Caches built from 'table' should rebuild or drop what they hold.
+ *
+ * 'remote' marks a write made by another app node (TableVersionService saw its version move):
+ * nothing is known about it, not even that it only inserted.
+ */
+@Data
+@AllArgsConstructor
+public class BulkWriteEvent {
+    private String table;
+    private boolean remote;
+
+    public BulkWriteEvent(String table) {
+        this(table, false);
+    }
+}
@@ -0,0 +1,25 @@
+package com.drpro.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Published (synchronously) by EntityChangeListener whenever Hibernate writes a row.
+ * Listeners that only care about committed data should use @TransactionalEventListener.
+ */
+@Data
+@AllArgsConstructor
+public class EntityChangeEvent {
+
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    private String table;   // e.g. "patients", "appointments"
+    private Object entityId;
+    private Type type;
+    private Object entity;
+
+    // UPDATE only: old value of every changed column, e.g. {"date": 2024-05-01, "cost": 500.0}
+    private Map<String, Object> previous;
+}
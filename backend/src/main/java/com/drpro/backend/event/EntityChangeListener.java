@@ -0,0 +1,118 @@
+package com.drpro.backend.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Table;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Hooks into Hibernate's event system so every insert / update / delete
+ * (including changes to element collections like appointment_images)
+ * is turned into a single EntityChangeEvent.
+ *
+ * NOTE: Bulk JPQL / JDBC writes bypass this. Code doing those must publish events itself.
+ */
+@Component
+public class EntityChangeListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener,
+        PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getEntity(), event.getId(), EntityChangeEvent.Type.INSERT, Map.of());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Map<String, Object> previous = new HashMap<>();
+        Object[] oldState = event.getOldState();
+        if (oldState != null) {
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] state = event.getState();
+            for (int i = 0; i < names.length; i++) {
+                if (!Objects.equals(oldState[i], state[i])) {
+                    previous.put(names[i], oldState[i]);
+                }
+            }
+        }
+        publish(event.getEntity(), event.getId(), EntityChangeEvent.Type.UPDATE, previous);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getEntity(), event.getId(), EntityChangeEvent.Type.DELETE, Map.of());
+    }
+
+    // Collection changes (e.g. new X-Ray added to an appointment) count as an update of the owner
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        publishOwner(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        publishOwner(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        publishOwner(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // ================= HELPERS =================
+
+    private void publishOwner(AbstractCollectionEvent event) {
+        Object owner = event.getAffectedOwnerOrNull();
+        if (owner != null) {
+            publish(owner, event.getAffectedOwnerIdOrNull(), EntityChangeEvent.Type.UPDATE, Map.of());
+        }
+    }
+
+    private void publish(Object entity, Object id, EntityChangeEvent.Type type, Map<String, Object> previous) {
+        String table = tableName(entity);
+        if (table != null) {
+            publisher.publishEvent(new EntityChangeEvent(table, id, type, entity, previous));
+        }
+    }
+
+    public static String tableName(Object entity) {
+        Table table = Hibernate.getClass(entity).getAnnotation(Table.class);
+        return table != null ? table.name() : null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.drpro.backend.event;
+
+import com.drpro.backend.model.SyncTracked;
+import com.drpro.backend.model.TreatmentTableRow;
+import com.drpro.backend.service.SyncRevisionService;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import java.time.LocalDateTime;
+
+/**
+ * JPA entity listener (instantiated through Spring's bean container) that stamps
+ * revision / updatedAt on every write and leaves a tombstone behind on delete.
+ *
+ * NOTE: @PreUpdate only fires for dirty columns. Code that only changes an
+ * element collection (e.g. Appointment.fileUrls) must call markChanged() itself.
+ */
+public class SyncRevisionListener {
+
+    @Autowired
+    @Lazy // Listener is built while the EntityManagerFactory is still starting
+    private SyncRevisionService syncRevisionService;
+
+    @PrePersist
+    @PreUpdate
+    public void stamp(Object entity) {
+        if (entity instanceof SyncTracked tracked) {
+            tracked.setRevision(syncRevisionService.next());
+            tracked.setUpdatedAt(LocalDateTime.now());
+        }
+        touchParent(entity);
+    }
+
+    @PreRemove
+    public void tombstone(Object entity) {
+        if (entity instanceof SyncTracked tracked && tracked.getId() != null) {
+            syncRevisionService.recordTombstone(EntityChangeListener.tableName(entity), tracked.getId());
+        }
+        touchParent(entity);
+    }
+
+    public static void markChanged(SyncTracked entity) {
+        entity.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private void touchParent(Object entity) {
+        if (entity instanceof TreatmentTableRow row && row.getTreatmentTable() != null
+                && row.getTreatmentTable().getId() != null) {
+            syncRevisionService.touchTreatmentTable(row.getTreatmentTable().getId());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.drpro.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published once per tenant when its schema is up to date, with TenantContext bound to it:
+ * at startup for every configured tenant, and when a tenant is attached at runtime.
+ * Tenant-scoped services load their in-memory state from it (instead of ApplicationReadyEvent).
+ */
+@Data
+@AllArgsConstructor
+public class TenantReadyEvent {
+    private String tenant;
+}
@@ -1,16 +1,23 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.config.UploadRef;
+import com.drpro.backend.event.SyncRevisionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Data
-@Table(name = "appointments")
-public class Appointment {
+@EntityListeners(SyncRevisionListener.class)
+@Table(name = "appointments", indexes = {
+        @Index(columnList = "revision"),
+        @Index(columnList = "date, time") // Calendar / day queries
+})
+public class Appointment implements SyncTracked {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +27,7 @@ public class Appointment {
 
     private LocalDate date;
     private LocalTime time;
+    private Integer durationMinutes; // null = 30 min default
 
     @Column(length = 1000)
     private String notes;
@@ -34,12 +42,19 @@ public class Appointment {
         joinColumns = @JoinColumn(name = "appointment_id")
     )
     @Column(name = "file_name", length = 1000)
+    @UploadRef
     private List<String> fileUrls = new ArrayList<>();
 
     // ✅ Legacy fields (keep for backward compatibility)
     @Column(length = 1000)
+    @UploadRef
     private String prescriptionUrl;
 
     @Column(length = 1000)
+    @UploadRef
     private String additionalFileUrl;
+
+    // Delta sync (stamped by SyncRevisionListener)
+    private Long revision;
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.config.SecondLevelCacheConfig;
+import com.drpro.backend.config.UploadRef;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CLINIC_SETTINGS)
 @Table(name = "clinic_settings")
 public class ClinicSettings {
     @Id
@@ -16,5 +21,6 @@ public class ClinicSettings {
     
     @Lob
     @Column(columnDefinition = "LONGTEXT")
+    @UploadRef
     private String logoUrl;
 }
\ No newline at end of file
@@ -1,13 +1,17 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.config.UploadRef;
+import com.drpro.backend.event.SyncRevisionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "dental_records")
-public class DentalRecord {
+@EntityListeners(SyncRevisionListener.class)
+@Table(name = "dental_records", indexes = @Index(columnList = "revision"))
+public class DentalRecord implements SyncTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -24,12 +28,18 @@ public class DentalRecord {
     
     // File URLs from Cloudinary
     @Column(length = 1000)
+    @UploadRef
     private String prescriptionUrl;
     
     @Column(length = 1000)
+    @UploadRef
     private String additionalFileUrl; // New field for X-Rays
     
     // Original File Names for display
     private String prescriptionFileName;
     private String additionalFileName;
+
+    // Delta sync (stamped by SyncRevisionListener)
+    private Long revision;
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.config.SecondLevelCacheConfig;
+import com.drpro.backend.config.UploadRef;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.DOCTOR_PROFILE)
 @Table(name = "doctor_profile")
 public class DoctorProfile {
     @Id
@@ -17,5 +22,6 @@ public class DoctorProfile {
     
     @Lob
     @Column(columnDefinition = "LONGTEXT")
+    @UploadRef
     private String avatarUrl;
 }
\ No newline at end of file
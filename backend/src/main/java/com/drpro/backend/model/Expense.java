@@ -1,13 +1,19 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.event.SyncRevisionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "expenses")
-public class Expense {
+@EntityListeners(SyncRevisionListener.class)
+@Table(name = "expenses", indexes = {
+        @Index(columnList = "revision"),
+        @Index(columnList = "date") // Finance time-series
+})
+public class Expense implements SyncTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -19,4 +25,8 @@ public class Expense {
     private String notes;
     
     private LocalDate date;
+
+    // Delta sync (stamped by SyncRevisionListener)
+    private Long revision;
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -1,13 +1,21 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.config.SecondLevelCacheConfig;
+import com.drpro.backend.config.UploadRef;
+import com.drpro.backend.event.SyncRevisionListener;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "patients")
-public class Patient {
+@EntityListeners(SyncRevisionListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.PATIENTS)
+@Table(name = "patients", indexes = @Index(columnList = "revision"))
+public class Patient implements SyncTracked {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,5 +44,10 @@ public class Patient {
 
     // Image URL (We will store the Cloudinary link here later)
     @Column(length = 1000)
+    @UploadRef
     private String avatarUrl; 
+
+    // Delta sync (stamped by SyncRevisionListener)
+    private Long revision;
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.drpro.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running totals per patient, kept by PatientBalanceService in the same transaction as
+ * every cost / payment write. Derived data: POST /api/balances/rebuild recomputes it.
+ */
+@Entity
+@Data
+@Table(name = "patient_balances", indexes = @Index(columnList = "outstanding")) // Top-N outstanding
+public class PatientBalance {
+    @Id
+    private Long patientId;
+
+    private Double charged;      // Treatment rows + appointments + dental records
+    private Double paid;         // Payments
+    private Double outstanding;  // charged - paid
+
+    private LocalDateTime updatedAt;
+}
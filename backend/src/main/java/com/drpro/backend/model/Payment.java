@@ -1,13 +1,20 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.config.UploadRef;
+import com.drpro.backend.event.SyncRevisionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "payments")
-public class Payment {
+@EntityListeners(SyncRevisionListener.class)
+@Table(name = "payments", indexes = {
+        @Index(columnList = "revision"),
+        @Index(columnList = "date") // Finance time-series
+})
+public class Payment implements SyncTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -22,5 +29,10 @@ public class Payment {
     private String status; // <--- I ADDED THIS FIELD (Fixed the error)
     
     @Column(length = 1000)
+    @UploadRef
     private String receiptUrl;  
+
+    // Delta sync (stamped by SyncRevisionListener)
+    private Long revision;
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.PROCEDURE_ITEMS)
 @Table(name = "procedure_items")
 public class ProcedureItem {
     @Id
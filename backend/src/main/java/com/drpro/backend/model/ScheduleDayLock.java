@@ -0,0 +1,18 @@
+package com.drpro.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * One row per day that has been booked: a save locks its day's row until commit, so two
+ * saves for one day (on any app node) are checked one after the other (ScheduleIndexService.lockDay).
+ */
+@Entity
+@Data
+@Table(name = "schedule_day_locks")
+public class ScheduleDayLock {
+    @Id
+    private LocalDate lockDate;
+}
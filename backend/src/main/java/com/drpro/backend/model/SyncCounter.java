@@ -0,0 +1,18 @@
+package com.drpro.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * The last sync revision handed out (one row, id 1), shared by every app node on the schema.
+ * Written by SyncRevisionService with plain JDBC only, never through Hibernate.
+ */
+@Entity
+@Data
+@Table(name = "sync_counter")
+public class SyncCounter {
+    @Id
+    private Integer id;
+
+    private Long revision;
+}
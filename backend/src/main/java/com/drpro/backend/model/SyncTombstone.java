@@ -0,0 +1,20 @@
+package com.drpro.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// One row per deleted synced entity, so offline devices learn about deletes
+@Entity
+@Data
+@Table(name = "sync_tombstones", indexes = @Index(columnList = "revision"))
+public class SyncTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String tableName; // e.g. "patients"
+    private Long entityId;
+    private Long revision;
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,17 @@
+package com.drpro.backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entities that show up in the /api/sync delta feed.
+ * revision + updatedAt are stamped by SyncRevisionListener, never by controllers.
+ */
+public interface SyncTracked {
+    Long getId();
+
+    Long getRevision();
+    void setRevision(Long revision);
+
+    LocalDateTime getUpdatedAt();
+    void setUpdatedAt(LocalDateTime updatedAt);
+}
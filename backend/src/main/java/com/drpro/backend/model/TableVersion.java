@@ -0,0 +1,19 @@
+package com.drpro.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Version of one table for list ETags, bumped after every committed write on any app node.
+ * Written by TableVersionService with plain JDBC only, never through Hibernate.
+ */
+@Entity
+@Data
+@Table(name = "table_versions")
+public class TableVersion {
+    @Id
+    @Column(length = 64)
+    private String tableName;
+
+    private Long version;
+}
@@ -1,17 +1,20 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.event.SyncRevisionListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import com.fasterxml.jackson.annotation.JsonManagedReference; // ✅ Import this
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Getter
 @Setter
-@Table(name = "treatment_tables")
-public class TreatmentTable {
+@EntityListeners(SyncRevisionListener.class)
+@Table(name = "treatment_tables", indexes = @Index(columnList = "revision"))
+public class TreatmentTable implements SyncTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -22,4 +25,8 @@ public class TreatmentTable {
     @OneToMany(mappedBy = "treatmentTable", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference // ✅ This stops the loop from the Parent side
     private List<TreatmentTableRow> rows = new ArrayList<>();
+
+    // Delta sync (stamped by SyncRevisionListener)
+    private Long revision;
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
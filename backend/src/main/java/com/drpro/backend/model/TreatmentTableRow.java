@@ -1,5 +1,6 @@
 package com.drpro.backend.model;
 
+import com.drpro.backend.event.SyncRevisionListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,6 +10,7 @@ import java.time.LocalDate;
 @Entity
 @Getter
 @Setter
+@EntityListeners(SyncRevisionListener.class) // Row edits bump the parent table
 @Table(name = "treatment_table_rows")
 public class TreatmentTableRow {
     @Id
@@ -1,9 +1,16 @@
 package com.drpro.backend.repository;
 
+import com.drpro.backend.dto.AppointmentDayCount;
 import com.drpro.backend.model.Appointment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
+@Transactional(readOnly = true)
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
     
     // 1. Find all appointments for a specific patient
@@ -11,4 +18,17 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
     // 2. Find all appointments sorted by Date and Time (for the main calendar/list)
     List<Appointment> findAllByOrderByDateAscTimeAsc();
-}
\ No newline at end of file
+
+    // 3. Used by the in-memory schedule index (ScheduleIndexService)
+    List<Appointment> findByDate(LocalDate date);
+    List<Appointment> findByDateGreaterThanEqual(LocalDate date);
+
+    // 4. Calendar heatmap: counts per day and status, computed by MySQL (uses the date index)
+    @Query("SELECT a.date AS date, a.status AS status, COUNT(a) AS count FROM Appointment a"
+            + " WHERE a.date BETWEEN :from AND :to GROUP BY a.date, a.status ORDER BY a.date")
+    List<AppointmentDayCount> countByDayAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // ?fields=fileUrls: the files of a whole page of appointments in one query, as [appointmentId, fileName]
+    @Query("SELECT a.id, f FROM Appointment a JOIN a.fileUrls f WHERE a.id IN :ids")
+    List<Object[]> findFileUrls(@Param("ids") Collection<Long> ids);
+}
@@ -1,13 +1,16 @@
 package com.drpro.backend.repository;
 
+import com.drpro.backend.dto.DentalRecordListItem;
 import com.drpro.backend.model.DentalRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
+@Transactional(readOnly = true)
 public interface DentalRecordRepository extends JpaRepository<DentalRecord, Long> {
     // Magic method: Finds by Patient ID and Sorts by Date (Newest/Descending first)
-    List<DentalRecord> findByPatientIdOrderByDateDesc(Long patientId);
+    List<DentalRecordListItem> findByPatientIdOrderByDateDesc(Long patientId);
     
     // Fallback: If we ever need all records sorted
-    List<DentalRecord> findAllByOrderByDateDesc();
+    List<DentalRecordListItem> findAllByOrderByDateDesc();
 }
\ No newline at end of file
@@ -1,9 +1,30 @@
 package com.drpro.backend.repository;
 
+import com.drpro.backend.dto.DaySum;
+import com.drpro.backend.dto.ExpenseListItem;
 import com.drpro.backend.model.Expense;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Repository
+@Transactional(readOnly = true)
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
-}
\ No newline at end of file
+
+    // Finance charts: daily expenses per type, summed by MySQL
+    @Query("SELECT e.date AS date, e.type AS category, SUM(e.amount) AS total FROM Expense e"
+            + " WHERE e.date BETWEEN :from AND :to GROUP BY e.date, e.type")
+    List<DaySum> sumByDayAndType(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // GET /api/expenses: one keyset page at a time (id > last id seen)
+    List<ExpenseListItem> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM Expense e")
+    double sumAmount();
+}
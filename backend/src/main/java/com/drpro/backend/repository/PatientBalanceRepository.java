@@ -0,0 +1,16 @@
+package com.drpro.backend.repository;
+
+import com.drpro.backend.model.PatientBalance;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface PatientBalanceRepository extends JpaRepository<PatientBalance, Long> {
+    // Walks the outstanding index from the top
+    List<PatientBalance> findByOutstandingGreaterThanOrderByOutstandingDesc(Double min, Pageable pageable);
+}
@@ -1,10 +1,22 @@
 package com.drpro.backend.repository;
 
+import com.drpro.backend.dto.PatientListItem;
 import com.drpro.backend.model.Patient;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Repository
+@Transactional(readOnly = true)
 public interface PatientRepository extends JpaRepository<Patient, Long> {
-    // We can add custom queries here later if needed
-}
\ No newline at end of file
+    // Patient list, one keyset page at a time (id > last id seen), list columns only
+    List<PatientListItem> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // [id, name] of every patient, for labelling other lists without loading the medical text
+    @Query("SELECT p.id, p.name FROM Patient p")
+    List<Object[]> findAllNames();
+}
@@ -1,12 +1,31 @@
 package com.drpro.backend.repository;
 
+import com.drpro.backend.dto.DaySum;
+import com.drpro.backend.dto.PaymentListItem;
 import com.drpro.backend.model.Payment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
+@Transactional(readOnly = true)
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Finds all payments for a specific patient
     List<Payment> findByPatientId(Long patientId);
-}
\ No newline at end of file
+
+    // Finance charts: daily revenue per payment method, summed by MySQL
+    @Query("SELECT p.date AS date, p.method AS category, SUM(p.amount) AS total FROM Payment p"
+            + " WHERE p.date BETWEEN :from AND :to GROUP BY p.date, p.method")
+    List<DaySum> sumByDayAndMethod(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // GET /api/revenue: one keyset page at a time (id > last id seen)
+    List<PaymentListItem> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p")
+    double sumAmount();
+}
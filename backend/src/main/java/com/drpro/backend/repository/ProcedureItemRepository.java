@@ -1,7 +1,19 @@
 package com.drpro.backend.repository;
 
 import com.drpro.backend.model.ProcedureItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+@Transactional(readOnly = true)
 public interface ProcedureItemRepository extends JpaRepository<ProcedureItem, Long> {
+
+    // Whole catalog from the query cache; any procedure write invalidates it
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ProcedureItem> findAll();
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.drpro.backend.repository;
+
+import com.drpro.backend.model.SyncTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+@Transactional(readOnly = true)
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+    List<SyncTombstone> findByRevisionGreaterThanAndRevisionLessThanEqualOrderByRevisionAsc(
+            Long since, Long upTo, Pageable pageable);
+}
@@ -1,9 +1,12 @@
 package com.drpro.backend.repository;
 
+import com.drpro.backend.dto.TreatmentTableItem;
 import com.drpro.backend.model.TreatmentTable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
+@Transactional(readOnly = true)
 public interface TreatmentTableRepository extends JpaRepository<TreatmentTable, Long> {
-    List<TreatmentTable> findByPatientId(Long patientId);
-}
\ No newline at end of file
+    List<TreatmentTableItem> findByPatientIdOrderByIdAsc(Long patientId);
+}
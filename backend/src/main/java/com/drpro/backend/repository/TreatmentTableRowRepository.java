@@ -1,7 +1,19 @@
 package com.drpro.backend.repository;
 
+import com.drpro.backend.dto.TreatmentRowItem;
 import com.drpro.backend.model.TreatmentTableRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+@Transactional(readOnly = true)
 public interface TreatmentTableRowRepository extends JpaRepository<TreatmentTableRow, Long> {
+    // Rows of all of a patient's tables in one query (instead of one lazy load per table)
+    @Query("SELECT r.treatmentTable.id AS tableId, r.id AS id, r.notes AS notes, r.cost AS cost,"
+            + " r.status AS status, r.date AS date FROM TreatmentTableRow r"
+            + " WHERE r.treatmentTable.patientId = :patientId ORDER BY r.id")
+    List<TreatmentRowItem> findItemsByPatientId(@Param("patientId") Long patientId);
 }
@@ -0,0 +1,388 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.AnalyticsGroupDTO;
+import com.drpro.backend.dto.AnalyticsResultDTO;
+import com.drpro.backend.dto.FinanceBucketDTO;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.event.TenantReadyEvent;
+import com.drpro.backend.model.Expense;
+import com.drpro.backend.model.Payment;
+import com.drpro.backend.model.TreatmentTable;
+import com.drpro.backend.model.TreatmentTableRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Ad-hoc money breakdowns (revenue per method, per patient, per weekday, net profit by quarter ...)
+ * answered from in-memory column tables instead of JPA entity lists.
+ *
+ * The tables are loaded once at startup with plain JDBC and then kept current from the
+ * EntityChangeEvents of every committed write, so queries never touch the database.
+ */
+@Service
+@TenantScoped
+public class AnalyticsService {
+
+    public static final int MAX_GROUPS = 10000;
+
+    // Every source selects: id, day, amount, patient id, category
+    private static final Map<String, String> LOAD_SQL = new LinkedHashMap<>();
+    static {
+        LOAD_SQL.put("payments", "SELECT id, date, amount, patient_id, method FROM payments");
+        LOAD_SQL.put("expenses", "SELECT id, date, amount, NULL, type FROM expenses");
+        LOAD_SQL.put("treatment_table_rows", "SELECT r.id, r.treatment_date, r.cost, t.patient_id, r.notes"
+                + " FROM treatment_table_rows r LEFT JOIN treatment_tables t ON t.id = r.treatment_table_id");
+    }
+
+    private static final Map<String, String> ID_COLUMN = Map.of(
+            "payments", "id", "expenses", "id", "treatment_table_rows", "r.id");
+
+    public enum Dimension { NONE, CATEGORY, PATIENT, WEEKDAY, MONTH, QUARTER, YEAR }
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final Map<String, ColumnTable> tables = new ConcurrentHashMap<>();
+
+    // Treatment rows only know their table; this resolves the table to its patient
+    private final Map<Long, Long> tablePatients = new ConcurrentHashMap<>();
+
+    // source -> changes that arrived while it was being reloaded, replayed onto the new table
+    // before the swap (its SELECT may have run before they committed). Guarded by 'this'.
+    private final Map<String, List<Consumer<ColumnTable>>> pendingReloads = new HashMap<>();
+
+    // ================= LOADING =================
+
+    @EventListener(TenantReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        loadTablePatients();
+        for (String source : LOAD_SQL.keySet()) {
+            reload(source);
+        }
+        System.out.println("📊 Analytics column store ready: " + stats() + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void loadTablePatients() {
+        Map<Long, Long> fresh = new HashMap<>();
+        jdbc.query("SELECT id, patient_id FROM treatment_tables", rs -> {
+            long patientId = rs.getLong(2);
+            if (!rs.wasNull()) fresh.put(rs.getLong(1), patientId);
+        });
+        tablePatients.keySet().retainAll(fresh.keySet());
+        tablePatients.putAll(fresh);
+    }
+
+    private void reload(String source) {
+        synchronized (this) {
+            pendingReloads.put(source, new ArrayList<>());
+        }
+        ColumnTable fresh = new ColumnTable(source);
+        try {
+            jdbc.query(LOAD_SQL.get(source), rs -> { readRow(rs).accept(fresh); });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingReloads.remove(source);
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (Consumer<ColumnTable> change : pendingReloads.remove(source)) change.accept(fresh);
+            tables.put(source, fresh); // Swap, so queries never see a half-loaded table
+        }
+    }
+
+    // Applies a change to the live table, and to the one being reloaded (upserts and deletes
+    // are idempotent, so a change the reload's SELECT already saw does no harm)
+    private synchronized void apply(String source, Consumer<ColumnTable> change) {
+        ColumnTable table = tables.get(source);
+        if (table != null) change.accept(table);
+        List<Consumer<ColumnTable>> pending = pendingReloads.get(source);
+        if (pending != null) pending.add(change);
+    }
+
+    private static Consumer<ColumnTable> readRow(java.sql.ResultSet rs) throws java.sql.SQLException {
+        long id = rs.getLong(1);
+        Date date = rs.getDate(2);
+        double amount = rs.getDouble(3);
+        boolean noAmount = rs.wasNull();
+        long patientId = rs.getLong(4);
+        boolean noPatient = rs.wasNull();
+        String category = rs.getString(5);
+        Integer day = date != null ? (int) date.toLocalDate().toEpochDay() : null;
+        return table -> table.upsert(id, day, noAmount ? null : amount, noPatient ? null : patientId, category);
+    }
+
+    // ================= INCREMENTAL REFRESH =================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        boolean deleted = event.getType() == EntityChangeEvent.Type.DELETE;
+        Object entity = event.getEntity();
+
+        if (entity instanceof TreatmentTable t) {
+            if (deleted || t.getPatientId() == null) tablePatients.remove(t.getId());
+            else tablePatients.put(t.getId(), t.getPatientId());
+            return;
+        }
+        if (!LOAD_SQL.containsKey(event.getTable()) || !(event.getEntityId() instanceof Number number)) return;
+        long id = number.longValue();
+        if (deleted) {
+            apply(event.getTable(), table -> table.delete(id));
+            return;
+        }
+        // Values read now: a replay during a reload must not see later changes to the entity
+        Integer day;
+        Double amount;
+        Long patientId;
+        String category;
+        if (entity instanceof Payment p) {
+            day = epochDay(p.getDate());
+            amount = p.getAmount();
+            patientId = p.getPatientId();
+            category = p.getMethod();
+        } else if (entity instanceof Expense e) {
+            day = epochDay(e.getDate());
+            amount = e.getAmount();
+            patientId = null;
+            category = e.getType();
+        } else if (entity instanceof TreatmentTableRow r) {
+            day = epochDay(r.getDate());
+            amount = r.getCost();
+            // getId() on the lazy parent proxy does not hit the database
+            patientId = r.getTreatmentTable() != null ? tablePatients.get(r.getTreatmentTable().getId()) : null;
+            category = r.getNotes();
+        } else {
+            return;
+        }
+        apply(event.getTable(), table -> table.upsert(id, day, amount, patientId, category));
+    }
+
+    /**
+     * JDBC bulk writes only ever insert, so pick up the rows past the highest id we hold;
+     * if the counts still disagree (e.g. imported legacy ids) fall back to a full reload.
+     * Another node's writes may be anything, so those always reload.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkWrite(BulkWriteEvent event) {
+        String source = event.getTable();
+        if (event.isRemote() && "treatment_tables".equals(source)) {
+            loadTablePatients();
+            reload("treatment_table_rows");
+            return;
+        }
+        ColumnTable table = tables.get(source);
+        if (table == null) return;
+        if (event.isRemote()) {
+            reload(source);
+            return;
+        }
+
+        List<Consumer<ColumnTable>> rows = jdbc.query(LOAD_SQL.get(source) + " WHERE " + ID_COLUMN.get(source) + " > ?",
+                (rs, i) -> readRow(rs), table.maxId());
+        rows.forEach(row -> apply(source, row));
+
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM " + source, Integer.class);
+        if (count != null && count != table.rowCount()) {
+            System.out.println("📊 Analytics: " + source + " out of step after bulk write, reloading");
+            reload(source);
+        }
+    }
+
+    private static Integer epochDay(LocalDate date) {
+        return date != null ? (int) date.toEpochDay() : null;
+    }
+
+    // ================= QUERIES =================
+
+    public static String source(String name) {
+        String source = switch (name.toLowerCase()) {
+            case "payments", "revenue" -> "payments";
+            case "expenses" -> "expenses";
+            case "treatments", "treatment_table_rows" -> "treatment_table_rows";
+            default -> null;
+        };
+        if (source == null) {
+            throw new IllegalArgumentException("Unknown source: " + name + " (use payments, expenses or treatments)");
+        }
+        return source;
+    }
+
+    public static Dimension dimension(String name) {
+        return switch (name.toLowerCase()) {
+            case "none", "total" -> Dimension.NONE;
+            case "category", "method", "type", "procedure" -> Dimension.CATEGORY;
+            case "patient" -> Dimension.PATIENT;
+            case "weekday" -> Dimension.WEEKDAY;
+            case "month" -> Dimension.MONTH;
+            case "quarter" -> Dimension.QUARTER;
+            case "year" -> Dimension.YEAR;
+            default -> throw new IllegalArgumentException("Unknown groupBy: " + name
+                    + " (use none, method, type, procedure, patient, weekday, month, quarter or year)");
+        };
+    }
+
+    /**
+     * Sum and count of 'source' grouped by 'groupBy'. Date groups come back in date order with
+     * empty groups kept (chart friendly); category / patient groups biggest first, capped at 'limit'.
+     */
+    public AnalyticsResultDTO query(String source, Dimension groupBy, LocalDate from, LocalDate to,
+                                    Long patientId, String category, int limit) {
+        long start = System.nanoTime();
+        ColumnTable table = tables.get(source);
+        if (table == null) throw new IllegalStateException("Analytics store is still loading");
+
+        AnalyticsResultDTO dto = new AnalyticsResultDTO();
+        dto.setSource(source);
+        dto.setGroupBy(groupBy.name().toLowerCase());
+        dto.setFrom(from);
+        dto.setTo(to);
+
+        int[] range = dayRange(groupBy, from, to, table);
+        if (range != null) {
+            Grouping grouping = grouping(groupBy, range[0], range[1], table);
+            long[][] result = table.aggregate(range[0], range[1], patientId, category, grouping.cardinality, grouping.keyFn);
+
+            List<AnalyticsGroupDTO> groups = new ArrayList<>();
+            for (int key = 0; key < grouping.cardinality; key++) {
+                long count = result[0][key];
+                dto.setCount(dto.getCount() + count);
+                dto.setTotal(dto.getTotal() + result[1][key] / 100.0);
+                if (count == 0 && !grouping.keepEmpty) continue;
+                groups.add(new AnalyticsGroupDTO(grouping.labels.apply(key), count, result[1][key] / 100.0));
+            }
+            if (!grouping.keepEmpty) {
+                groups.sort(Comparator.comparingDouble(AnalyticsGroupDTO::getTotal).reversed());
+            }
+            int cap = Math.max(1, Math.min(limit, MAX_GROUPS));
+            dto.setGroups(groups.size() > cap ? new ArrayList<>(groups.subList(0, cap)) : groups);
+        }
+        dto.setTookMicros((System.nanoTime() - start) / 1000);
+        return dto;
+    }
+
+    /** Revenue (payments) minus expenses per date group, e.g. net profit by quarter. */
+    public List<FinanceBucketDTO> net(Dimension groupBy, LocalDate from, LocalDate to) {
+        if (groupBy == Dimension.CATEGORY || groupBy == Dimension.PATIENT) {
+            throw new IllegalArgumentException("Net profit can only be grouped by none, weekday, month, quarter or year");
+        }
+        AnalyticsResultDTO revenue = query("payments", groupBy, from, to, null, null, MAX_GROUPS);
+        AnalyticsResultDTO expenses = query("expenses", groupBy, from, to, null, null, MAX_GROUPS);
+
+        // The two tables can cover different date spans, so merge on the label
+        Map<String, FinanceBucketDTO> byLabel = new TreeMap<>();
+        for (AnalyticsGroupDTO g : revenue.getGroups()) {
+            bucket(byLabel, g.getKey()).setRevenue(g.getTotal());
+        }
+        for (AnalyticsGroupDTO g : expenses.getGroups()) {
+            bucket(byLabel, g.getKey()).setExpenses(g.getTotal());
+        }
+        List<FinanceBucketDTO> result = new ArrayList<>(byLabel.values());
+        for (FinanceBucketDTO b : result) b.setNet(b.getRevenue() - b.getExpenses());
+        if (groupBy == Dimension.WEEKDAY) {
+            result.sort(Comparator.comparing(b -> DayOfWeek.valueOf(b.getLabel())));
+        }
+        return result;
+    }
+
+    private static FinanceBucketDTO bucket(Map<String, FinanceBucketDTO> byLabel, String label) {
+        return byLabel.computeIfAbsent(label, l -> {
+            FinanceBucketDTO b = new FinanceBucketDTO();
+            b.setLabel(l);
+            return b;
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String source : LOAD_SQL.keySet()) {
+            ColumnTable table = tables.get(source);
+            if (table == null) continue;
+            Map<String, Object> t = new LinkedHashMap<>();
+            t.put("rows", table.rowCount());
+            t.put("categories", table.categoryCardinality());
+            t.put("patients", table.patientCardinality());
+            t.put("columnKb", table.columnBytes() / 1024);
+            stats.put(source, t);
+        }
+        return stats;
+    }
+
+    // ================= GROUPING =================
+
+    private record Grouping(int cardinality, ColumnTable.KeyFn keyFn,
+                            java.util.function.IntFunction<String> labels, boolean keepEmpty) {}
+
+    /** Inclusive epoch-day bounds to scan, or null when there is nothing to scan. */
+    private static int[] dayRange(Dimension groupBy, LocalDate from, LocalDate to, ColumnTable table) {
+        boolean byDate = groupBy == Dimension.MONTH || groupBy == Dimension.QUARTER || groupBy == Dimension.YEAR;
+        int lo = from != null ? (int) from.toEpochDay() : ColumnTable.NO_DAY;
+        int hi = to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE;
+        if (byDate && (from == null || to == null)) {
+            // Date groups need real bounds: clamp open ends to the data
+            int[] data = table.dayRange();
+            if (data == null) return null;
+            if (from == null) lo = data[0];
+            if (to == null) hi = data[1];
+        }
+        return lo <= hi ? new int[]{lo, hi} : null;
+    }
+
+    private static Grouping grouping(Dimension groupBy, int fromDay, int toDay, ColumnTable table) {
+        switch (groupBy) {
+            case CATEGORY:
+                return new Grouping(table.categoryCardinality(), (day, patient, cat) -> cat, table::categoryAt, false);
+            case PATIENT:
+                return new Grouping(table.patientCardinality(), (day, patient, cat) -> patient,
+                        code -> String.valueOf(table.patientAt(code)), false);
+            case WEEKDAY:
+                // Epoch day 0 (1970-01-01) was a Thursday
+                return new Grouping(7, (day, patient, cat) -> day == ColumnTable.NO_DAY ? -1 : Math.floorMod(day + 3, 7),
+                        code -> DayOfWeek.of(code + 1).name(), true);
+            case NONE:
+                return new Grouping(1, (day, patient, cat) -> 0, code -> "all", true);
+            default:
+                return dateGrouping(groupBy, fromDay, toDay);
+        }
+    }
+
+    /** Month / quarter / year: a day -> group lookup array over the scanned range. */
+    private static Grouping dateGrouping(Dimension groupBy, int fromDay, int toDay) {
+        if ((long) toDay - fromDay > 366L * 200) {
+            throw new IllegalArgumentException("Date range too large");
+        }
+        int[] dayKeys = new int[toDay - fromDay + 1];
+        List<String> labels = new ArrayList<>();
+        String last = null;
+        for (int i = 0; i < dayKeys.length; i++) {
+            LocalDate d = LocalDate.ofEpochDay(fromDay + i);
+            String label = switch (groupBy) {
+                case MONTH -> YearMonth.from(d).toString();
+                case QUARTER -> d.getYear() + "-Q" + ((d.getMonthValue() - 1) / 3 + 1);
+                default -> String.valueOf(d.getYear());
+            };
+            if (!label.equals(last)) {
+                labels.add(label);
+                last = label;
+            }
+            dayKeys[i] = labels.size() - 1;
+        }
+        if (labels.size() > MAX_GROUPS) {
+            throw new IllegalArgumentException("Range too large: more than " + MAX_GROUPS + " groups");
+        }
+        return new Grouping(labels.size(), (day, patient, cat) -> dayKeys[day - fromDay], labels::get, true);
+    }
+}
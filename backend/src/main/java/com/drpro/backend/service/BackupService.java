@@ -1,6 +1,10 @@
 package com.drpro.backend.service;
 
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.config.TenantScoped;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -9,11 +13,11 @@ import jakarta.annotation.PostConstruct;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 @Service
+@TenantScoped
 @EnableScheduling
 public class BackupService {
 
@@ -31,14 +35,21 @@ public class BackupService {
     @Value("${backup.mysqldump-path:unknown}")
     private String dumpPath;
 
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TenantService tenantService;
+
+    // One BackupService per clinic branch; its nightly run dumps that branch's schema
+    private final String tenant = TenantContext.current();
     private Path backupFolder;
 
     @PostConstruct
     public void init() {
-        // 1. Create Backup Folder in your Home Directory
+        // 1. Create Backup Folder in your Home Directory (or the branch's own folder)
         // On Mac: /Users/Saurabh/DrPro_Data/backups
-        String homeDir = System.getProperty("user.home");
-        this.backupFolder = Paths.get(homeDir, "DrPro_Data", "backups");
+        this.backupFolder = tenantService.require(tenant).dataDir().resolve("backups");
         try {
             Files.createDirectories(this.backupFolder);
             System.out.println("✅ Backup System Initialized at: " + this.backupFolder);
@@ -50,14 +61,33 @@ public class BackupService {
     // This runs automatically at 11 PM every night
     @Scheduled(cron = "${backup.schedule}")
     public void performBackup() {
-        System.out.println("⏳ Starting Database Backup...");
+        TenantContext.run(tenant, this::backup);
+    }
+
+    private void backup() {
+        System.out.println("⏳ Starting Database Backup" + (tenantService.isDefault(tenant) ? "" : " of tenant '" + tenant + "'") + "...");
         
         try {
-            // 1. Extract DB Name from URL
+            // Embedded mode: H2 copies its own file while the app keeps running
+            if (dbUrl.startsWith("jdbc:h2:")) {
+                // One file holds every branch's schema: the default tenant's backup covers them all
+                if (!tenantService.isDefault(tenant)) {
+                    System.out.println("ℹ️ Embedded database: tenant '" + tenant + "' is included in the main backup.");
+                    return;
+                }
+                backupEmbedded();
+                return;
+            }
+
+            // 1. Extract DB Name from URL (other branches: their own schema)
             String dbName = dbUrl.substring(dbUrl.lastIndexOf("/") + 1);
             if (dbName.contains("?")) {
                 dbName = dbName.substring(0, dbName.indexOf("?"));
             }
+            String tenantSchema = tenantService.require(tenant).schema();
+            if (tenantSchema != null) {
+                dbName = tenantSchema;
+            }
 
             // 2. Generate Filename (e.g. backup_2024-05-20_23-00-00.sql)
             String timeStamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
@@ -89,6 +119,18 @@ public class BackupService {
         }
     }
     
+    // Online snapshot of the embedded database file (e.g. backup_2024-05-20_23-00-00.zip).
+    // BACKUP TO takes a consistent copy without stopping writes; unzip it over ~/DrPro_Data/db to restore.
+    private void backupEmbedded() {
+        String timeStamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+        File backupFile = this.backupFolder.resolve("backup_" + timeStamp + ".zip").toFile();
+
+        long start = System.currentTimeMillis();
+        jdbc.execute("BACKUP TO '" + backupFile.getAbsolutePath().replace("'", "''") + "'");
+        System.out.println("✅ Backup SUCCESS! Saved to: " + backupFile.getName()
+                + " (" + backupFile.length() / 1024 + " KB in " + (System.currentTimeMillis() - start) + " ms)");
+    }
+
     // --- TEST METHOD: Runs immediately when server starts (Delete later) ---
     @PostConstruct
     public void runTest() {
@@ -0,0 +1,47 @@
+package com.drpro.backend.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Where upload bytes live, addressed by key (the file name FileStorageService generated).
+ * One instance per tenant (see StorageConfig):
+ *   - local:  a folder on this node's disk (DrPro_Data/uploads), the single-clinic default
+ *   - shared: a folder on a mount every node sees (NFS / SMB)
+ *   - s3:     a bucket on S3 or any S3-compatible server (MinIO, Ceph, ...)
+ *
+ * New blobs are written to a local file first (stagingPath) and then handed over with put(),
+ * so the upload code never depends on which backend is behind it.
+ */
+public interface BlobStore {
+
+    record BlobInfo(String key, long size, Instant lastModified) {
+    }
+
+    /** A file to write a new blob to before put(); on a filesystem store it sits next to the blobs. */
+    Path stagingPath(String key) throws IOException;
+
+    /** Makes the staged file the blob 'key'. The staged file is gone afterwards. */
+    void put(String key, Path staged) throws IOException;
+
+    /** The blob, or null if there is none. */
+    Resource get(String key) throws IOException;
+
+    /** Returns false if there was nothing to delete (as far as the backend can tell). */
+    boolean delete(String key) throws IOException;
+
+    /** Every blob, in no particular order (for UploadGcService). */
+    void list(Consumer<BlobInfo> visitor) throws IOException;
+
+    /**
+     * The folder holding the blobs if it belongs to this node alone, else null. Only then may
+     * ColdStorageService pack them: other nodes could not read this node's packs.
+     */
+    Path localDirectory();
+
+    String describe();
+}
@@ -0,0 +1,81 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.dto.ImportReportDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Command-line import for clinic migrations (run while the normal server is stopped):
+ *
+ *   java -jar backend.jar --spring.main.web-application-type=none \
+ *        --import.type=patients --import.file=/path/patients.csv
+ *
+ * Several files can be imported in order, e.g. --import.type=patients,appointments
+ * --import.file=patients.csv,appointments.csv. The process exits when done.
+ * For another clinic branch than the default one, add e.g. --import.tenant=north.
+ */
+@Component
+public class BulkImportCli implements ApplicationRunner {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private TenantService tenantService;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> types = args.getOptionValues("import.type");
+        List<String> files = args.getOptionValues("import.file");
+        if (types == null || files == null) {
+            return; // Normal server start
+        }
+
+        String[] typeList = String.join(",", types).split(",");
+        String[] fileList = String.join(",", files).split(",");
+        if (typeList.length != fileList.length) {
+            System.err.println("❌ --import.type and --import.file need the same number of entries");
+            System.exit(SpringApplication.exit(context, () -> 2));
+        }
+
+        List<String> tenants = args.getOptionValues("import.tenant");
+        String tenant = tenants != null ? tenants.get(0).trim() : TenantContext.getDefaultTenant();
+        if (tenantService.find(tenant) == null) {
+            System.err.println("❌ Unknown tenant '" + tenant + "' (see tenancy.tenants)");
+            System.exit(SpringApplication.exit(context, () -> 2));
+        }
+        int code = TenantContext.call(tenant, () -> importAll(typeList, fileList));
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    private int importAll(String[] typeList, String[] fileList) throws Exception {
+        int exitCode = 0;
+        for (int i = 0; i < typeList.length; i++) {
+            Path file = Paths.get(fileList[i].trim());
+            String format = file.toString().toLowerCase().matches(".*\\.(json|ndjson|jsonl)$") ? "json" : "csv";
+            System.out.println("📥 Importing " + typeList[i].trim() + " from " + file + " ...");
+
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 256 * 1024)) {
+                ImportReportDTO report = bulkImportService.importStream(typeList[i].trim(), format, in, null);
+                report.getErrors().forEach(e -> System.out.println("   ⚠️ " + e));
+                if (!"DONE".equals(report.getStatus())) exitCode = 1;
+            }
+        }
+        return exitCode;
+    }
+}
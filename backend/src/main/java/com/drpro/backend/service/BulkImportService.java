@@ -0,0 +1,374 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.ImportReportDTO;
+import com.drpro.backend.event.BulkWriteEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Streams legacy patients / appointments / payments (CSV or JSON) straight into MySQL.
+ *
+ * Rows are validated one by one, then written with plain JDBC batches (one multi-row
+ * INSERT per batch thanks to rewriteBatchedStatements) and committed every CHUNK_SIZE rows.
+ * Hibernate is bypassed on purpose: IDENTITY ids make it insert row by row.
+ * An optional "id" column keeps legacy ids, so appointments can still point at their patients.
+ */
+@Service
+@TenantScoped
+public class BulkImportService {
+
+    private static final int CHUNK_SIZE = 5000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_ERRORS = 200;
+    private static final int MAX_JOBS_KEPT = 20;
+    private static final long PROGRESS_EVERY = 100_000;
+
+    public enum Target {
+        PATIENTS("patients", "name", "dob", "phone", "alternate_phone", "email", "gender",
+                "address", "medical_history", "allergies", "current_medications"),
+        APPOINTMENTS("appointments", "patient_id", "date", "time", "notes", "cost", "status"),
+        PAYMENTS("payments", "patient_id", "amount", "description", "method", "date", "status");
+
+        final String table;
+        final String[] columns;
+
+        Target(String table, String... columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        String insertSql(boolean withId) {
+            StringBuilder cols = new StringBuilder(withId ? "id, " : "");
+            StringBuilder marks = new StringBuilder(withId ? "?, " : "");
+            for (String c : columns) {
+                cols.append(c).append(", ");
+                marks.append("?, ");
+            }
+            return "INSERT INTO " + table + " (" + cols + "revision, updated_at) VALUES (" + marks + "?, ?)";
+        }
+
+        public static Target of(String type) {
+            for (Target t : values()) {
+                if (t.table.equalsIgnoreCase(type)) return t;
+            }
+            throw new IllegalArgumentException("Unknown import type: " + type + " (use patients, appointments or payments)");
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SyncRevisionService syncRevisionService;
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private PatientBalanceService patientBalanceService;
+
+    private final Map<String, ImportReportDTO> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportReportDTO> eldest) {
+            return size() > MAX_JOBS_KEPT;
+        }
+    });
+
+    public List<ImportReportDTO> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    public ImportReportDTO getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Imports everything readable from 'in'. Blocks until done; progress can be
+     * polled meanwhile through getJob(jobId).
+     */
+    public ImportReportDTO importStream(String type, String format, InputStream in, String jobId) {
+        Target target = Target.of(type);
+
+        ImportReportDTO report = new ImportReportDTO();
+        report.setJobId(jobId != null ? jobId : UUID.randomUUID().toString());
+        report.setType(target.table);
+        report.setStatus("RUNNING");
+        report.setStartedAt(LocalDateTime.now());
+        jobs.put(report.getJobId(), report);
+        long start = System.currentTimeMillis();
+
+        // Appointments / payments must point at a patient that exists
+        Set<Long> patientIds = target == Target.PATIENTS ? null
+                : new HashSet<>(jdbc.queryForList("SELECT id FROM patients", Long.class));
+
+        List<Object[]> withId = new ArrayList<>();
+        List<Object[]> withoutId = new ArrayList<>();
+
+        try (ImportRowReader reader = "json".equalsIgnoreCase(format)
+                ? ImportRowReader.json(in) : ImportRowReader.csv(in)) {
+
+            while (reader.hasNext()) {
+                Map<String, String> row = reader.next();
+                long rowNumber = report.getRowsRead() + 1;
+                report.setRowsRead(rowNumber);
+                try {
+                    Long id = parseLong(row, "id", false);
+                    Object[] values = bind(target, row, patientIds);
+                    if (id != null) {
+                        Object[] args = new Object[values.length + 1];
+                        args[0] = id;
+                        System.arraycopy(values, 0, args, 1, values.length);
+                        withId.add(args);
+                    } else {
+                        withoutId.add(values);
+                    }
+                } catch (IllegalArgumentException e) {
+                    reject(report, 1, "row " + rowNumber + ": " + e.getMessage());
+                }
+
+                if (withId.size() + withoutId.size() >= CHUNK_SIZE) {
+                    flushChunk(target, withId, withoutId, report, start);
+                }
+            }
+            flushChunk(target, withId, withoutId, report, start);
+            report.setStatus("DONE");
+
+        } catch (IOException | RuntimeException e) {
+            report.setStatus("FAILED");
+            addError(report, "row " + report.getRowsRead() + ": " + e.getMessage());
+        } finally {
+            // JDBC writes skip the entity events that in-memory caches listen to; chunks committed
+            // before a failure stay in the database, so they are announced either way
+            if (report.getRowsImported() > 0) publisher.publishEvent(new BulkWriteEvent(target.table));
+        }
+
+        updateTiming(report, start);
+        System.out.println("📥 Import " + report.getType() + " " + report.getStatus() + ": "
+                + report.getRowsImported() + " imported, " + report.getRowsRejected() + " rejected, "
+                + report.getRowsPerSecond() + " rows/s");
+        return report;
+    }
+
+    // ================= WRITING =================
+
+    private void flushChunk(Target target, List<Object[]> withId, List<Object[]> withoutId,
+                            ImportReportDTO report, long start) {
+        int size = withId.size() + withoutId.size();
+        if (size == 0) return;
+        long firstRow = report.getRowsRead() - size + 1;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                long revision = syncRevisionService.nextBlock(size);
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                revision = stamp(withId, revision, now);
+                stamp(withoutId, revision, now);
+
+                if (!withId.isEmpty()) jdbc.batchUpdate(target.insertSql(true), withId, BATCH_SIZE, this::setArgs);
+                if (!withoutId.isEmpty()) jdbc.batchUpdate(target.insertSql(false), withoutId, BATCH_SIZE, this::setArgs);
+
+                // Same transaction as the rows, like the entity-event path
+                if (target != Target.PATIENTS) patientBalanceService.addAll(ledgerDeltas(target, withId, withoutId));
+            });
+            long before = report.getRowsImported();
+            report.setRowsImported(before + size);
+            tableVersionService.bump(target.table);
+            if (before / PROGRESS_EVERY != report.getRowsImported() / PROGRESS_EVERY) {
+                System.out.println("   ... " + report.getRowsImported() + " " + target.table + " imported");
+            }
+        } catch (RuntimeException e) {
+            // Whole chunk rolled back (e.g. duplicate legacy id): report it and keep going
+            reject(report, size, "rows ~" + firstRow + "-" + report.getRowsRead() + " rejected: " + rootMessage(e));
+        }
+
+        withId.clear();
+        withoutId.clear();
+        updateTiming(report, start);
+    }
+
+    // patientId -> {charged, paid} for a chunk of appointments (cost) or payments (amount)
+    private Map<Long, double[]> ledgerDeltas(Target target, List<Object[]> withId, List<Object[]> withoutId) {
+        Map<Long, double[]> deltas = new HashMap<>();
+        for (List<Object[]> rows : List.of(withId, withoutId)) {
+            int offset = rows == withId ? 1 : 0; // Legacy id comes first
+            for (Object[] args : rows) {
+                Object patientId = args[offset];
+                Object amount = target == Target.APPOINTMENTS ? args[offset + 4] : args[offset + 1];
+                if (patientId == null || amount == null) continue;
+                double[] d = deltas.computeIfAbsent((Long) patientId, k -> new double[2]);
+                d[target == Target.APPOINTMENTS ? 0 : 1] += ((Number) amount).doubleValue();
+            }
+        }
+        return deltas;
+    }
+
+    // Fills the trailing (revision, updated_at) slots; returns the next free revision
+    private long stamp(List<Object[]> rows, long revision, Timestamp now) {
+        for (Object[] args : rows) {
+            args[args.length - 2] = revision++;
+            args[args.length - 1] = now;
+        }
+        return revision;
+    }
+
+    private void setArgs(java.sql.PreparedStatement ps, Object[] args) throws java.sql.SQLException {
+        for (int i = 0; i < args.length; i++) {
+            ps.setObject(i + 1, args[i]);
+        }
+    }
+
+    // ================= VALIDATION =================
+
+    // Returns column values in Target.columns order, plus two empty slots for revision / updated_at
+    private Object[] bind(Target target, Map<String, String> row, Set<Long> patientIds) {
+        switch (target) {
+            case PATIENTS:
+                return new Object[]{
+                        text(row, "name", true, 255),
+                        parseDate(row, "dob", false),
+                        text(row, "phone", false, 255),
+                        text(row, "alternatePhone", false, 255),
+                        text(row, "email", false, 255),
+                        text(row, "gender", false, 255),
+                        text(row, "address", false, 1000),
+                        text(row, "medicalHistory", false, 2000),
+                        text(row, "allergies", false, 2000),
+                        text(row, "currentMedications", false, 2000),
+                        null, null
+                };
+            case APPOINTMENTS: {
+                Long patientId = patient(row, true, patientIds);
+                String status = text(row, "status", false, 255);
+                return new Object[]{
+                        patientId,
+                        parseDate(row, "date", true),
+                        parseTime(row, "time"),
+                        text(row, "notes", false, 1000),
+                        parseAmount(row, "cost", false),
+                        status != null ? status : "Scheduled",
+                        null, null
+                };
+            }
+            default: {
+                Long patientId = patient(row, false, patientIds);
+                String method = text(row, "method", false, 255);
+                String status = text(row, "status", false, 255);
+                return new Object[]{
+                        patientId,
+                        parseAmount(row, "amount", true),
+                        text(row, "description", false, 255),
+                        method != null ? method : "Cash",
+                        parseDate(row, "date", true),
+                        status != null ? status : "Paid",
+                        null, null
+                };
+            }
+        }
+    }
+
+    private Long patient(Map<String, String> row, boolean required, Set<Long> patientIds) {
+        Long id = parseLong(row, "patientId", required);
+        if (id != null && !patientIds.contains(id)) {
+            throw new IllegalArgumentException("patientId " + id + " does not exist");
+        }
+        return id;
+    }
+
+    private String text(Map<String, String> row, String field, boolean required, int maxLength) {
+        String value = row.get(field);
+        if (value != null) value = value.trim();
+        if (value == null || value.isEmpty()) {
+            if (required) throw new IllegalArgumentException(field + " is required");
+            return null;
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(field + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private LocalDate parseDate(Map<String, String> row, String field, boolean required) {
+        String value = text(row, field, required, 64);
+        try {
+            return value != null ? LocalDate.parse(value) : null;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(field + " '" + value + "' is not a yyyy-MM-dd date");
+        }
+    }
+
+    private LocalTime parseTime(Map<String, String> row, String field) {
+        String value = text(row, field, false, 64);
+        try {
+            return value != null ? LocalTime.parse(value) : null;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(field + " '" + value + "' is not a HH:mm time");
+        }
+    }
+
+    private Double parseAmount(Map<String, String> row, String field, boolean required) {
+        String value = text(row, field, required, 64);
+        if (value == null) return null;
+        try {
+            double amount = Double.parseDouble(value);
+            if (amount < 0 || Double.isNaN(amount) || Double.isInfinite(amount)) {
+                throw new NumberFormatException();
+            }
+            return amount;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " '" + value + "' is not a valid amount");
+        }
+    }
+
+    private Long parseLong(Map<String, String> row, String field, boolean required) {
+        String value = text(row, field, required, 64);
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " '" + value + "' is not a number");
+        }
+    }
+
+    // ================= REPORTING =================
+
+    private void reject(ImportReportDTO report, long rows, String message) {
+        report.setRowsRejected(report.getRowsRejected() + rows);
+        addError(report, message);
+    }
+
+    private void addError(ImportReportDTO report, String message) {
+        if (report.getErrors().size() < MAX_ERRORS) {
+            report.getErrors().add(message);
+        }
+    }
+
+    private void updateTiming(ImportReportDTO report, long start) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        report.setElapsedMs(elapsed);
+        report.setRowsPerSecond(report.getRowsImported() * 1000 / elapsed);
+    }
+
+    private String rootMessage(Throwable e) {
+        while (e.getCause() != null) e = e.getCause();
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,83 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.ReplicaContext;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.AppointmentDayCount;
+import com.drpro.backend.dto.CalendarDayDTO;
+import com.drpro.backend.dto.CalendarMonthDTO;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.model.Appointment;
+import com.drpro.backend.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-day appointment counts for the month view.
+ * Closed (past) months are cached for good; a rare edit of an old appointment just evicts its month.
+ */
+@Service
+@TenantScoped
+public class CalendarService {
+
+    @Autowired
+    private AppointmentRepository appointmentRepo;
+
+    private final Map<YearMonth, CalendarMonthDTO> pastMonths = new ConcurrentHashMap<>();
+
+    public CalendarMonthDTO getMonth(YearMonth month) {
+        if (month.isBefore(YearMonth.now())) {
+            CalendarMonthDTO cached = pastMonths.get(month);
+            if (cached != null) return cached;
+            ReplicaContext.usePrimary(); // Kept for good: never from a replica that is behind
+            return pastMonths.computeIfAbsent(month, this::compute);
+        }
+        return compute(month);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!"appointments".equals(event.getTable()) || pastMonths.isEmpty()) return;
+        if (event.getEntity() instanceof Appointment app && app.getDate() != null) {
+            pastMonths.remove(YearMonth.from(app.getDate()));
+        }
+        // Moved to another day: the month it came from changed too
+        if (event.getPrevious() != null && event.getPrevious().get("date") instanceof LocalDate oldDate) {
+            pastMonths.remove(YearMonth.from(oldDate));
+        }
+    }
+
+    // Bulk imports write with JDBC and skip the events above
+    @EventListener
+    public void onBulkWrite(BulkWriteEvent event) {
+        if ("appointments".equals(event.getTable())) pastMonths.clear();
+    }
+
+    private CalendarMonthDTO compute(YearMonth month) {
+        CalendarMonthDTO dto = new CalendarMonthDTO();
+        dto.setMonth(month.toString());
+
+        Map<LocalDate, CalendarDayDTO> days = new LinkedHashMap<>();
+        for (AppointmentDayCount row : appointmentRepo.countByDayAndStatus(month.atDay(1), month.atEndOfMonth())) {
+            CalendarDayDTO day = days.computeIfAbsent(row.getDate(), d -> {
+                CalendarDayDTO created = new CalendarDayDTO();
+                created.setDate(d);
+                return created;
+            });
+            String status = row.getStatus() != null ? row.getStatus() : "Scheduled";
+            day.getByStatus().merge(status, row.getCount(), Long::sum);
+            day.setTotal(day.getTotal() + row.getCount());
+            dto.setTotal(dto.getTotal() + row.getCount());
+        }
+        dto.getDays().addAll(days.values());
+        return dto;
+    }
+}
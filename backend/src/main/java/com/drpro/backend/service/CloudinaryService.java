@@ -1,5 +1,6 @@
 package com.drpro.backend.service;
 
+import com.drpro.backend.config.RequestTiming;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Value;
@@ -50,8 +51,10 @@ public class CloudinaryService {
             }
             
             // Upload to Cloudinary
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.emptyMap());
-            return (String) uploadResult.get("url");
+            try (RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.REMOTE)) {
+                Map uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.emptyMap());
+                return (String) uploadResult.get("url");
+            }
 
         } catch (IOException e) {
             System.err.println("File Upload IO Error: " + e.getMessage());
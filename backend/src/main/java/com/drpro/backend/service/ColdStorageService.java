@@ -0,0 +1,425 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.ColdStorageReportDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Cold tier for uploads/: attachments nobody has downloaded or changed for N months are moved
+ * into append-only pack files (see PackFile), so years of X-Rays become a handful of large
+ * files instead of hundreds of thousands of small ones. Sealed packs never change again,
+ * which is what backups and virus scanners like.
+ *
+ * URLs do not change: FileController serves a loose file if there is one and otherwise asks
+ * find(), which hands out a memory-mapped slice of the pack. Files removed by UploadGcService
+ * are tombstoned; a sealed pack that is mostly dead is rewritten into the current one.
+ */
+@Service
+@TenantScoped
+public class ColdStorageService {
+
+    private static final int COPY_BUFFER = 64 * 1024;
+    private static final long TOUCH_INTERVAL_MS = 24L * 60 * 60 * 1000;
+
+    @Value("${tiering.cold-after-months:6}")
+    private int coldAfterMonths;
+
+    @Value("${tiering.pack-max-size:512MB}")
+    private DataSize packMaxSize;
+
+    // Big scans stay loose: they are few, and packing them saves nothing
+    @Value("${tiering.max-file-size:16MB}")
+    private DataSize maxFileSize;
+
+    @Value("${tiering.batch-size:200}")
+    private int batchSize;
+
+    @Value("${tiering.pause-ms:50}")
+    private long pauseMs;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TenantService tenantService;
+
+    private Path packDir;
+
+    // File name -> where it lives; swapped per entry, read without locks
+    private final Map<String, PackFile.Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, PackFile> packs = new ConcurrentHashMap<>();
+    private PackFile current;
+
+    // Packs are replayed in order, so a file compacted into a later pack ends up pointing there
+    private final PackFile.IndexVisitor indexVisitor = new PackFile.IndexVisitor() {
+        @Override
+        public void put(String name, PackFile.Entry entry) {
+            entries.put(name, entry);
+        }
+
+        @Override
+        public void remove(String name, int pack) {
+            entries.computeIfPresent(name, (n, e) -> e.pack() == pack ? null : e);
+        }
+    };
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ColdStorageReportDTO lastReport;
+
+    // Packs live in each branch's own folder; runs off the request thread work for this branch
+    private final String tenant = TenantContext.current();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cold-storage");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    @PostConstruct
+    public void init() {
+        try {
+            // Next to uploads/ (kept when uploads move to a shared store: old packs stay readable)
+            packDir = tenantService.require(tenant).dataDir().resolve("packs");
+            Files.createDirectories(packDir);
+            if (packMaxSize.toBytes() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("tiering.pack-max-size must be below 2GB (one memory map per pack)");
+            }
+
+            List<Integer> numbers = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(packDir, "pack-*.{dat,dead}")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    int number = Integer.parseInt(name.substring(5, 11));
+                    if (name.endsWith(".dead")) {
+                        // Compacted last time but still mapped then: finish deleting it now
+                        Files.deleteIfExists(packDir.resolve(PackFile.dataName(number)));
+                        Files.deleteIfExists(packDir.resolve(PackFile.indexName(number)));
+                        Files.delete(file);
+                    } else {
+                        numbers.add(number);
+                    }
+                }
+            }
+            Collections.sort(numbers);
+            for (int number : numbers) {
+                if (Files.exists(packDir.resolve(PackFile.dataName(number)))) {
+                    packs.put(number, PackFile.open(packDir, number, indexVisitor));
+                }
+            }
+            current = numbers.isEmpty() ? newPack() : packs.get(numbers.get(numbers.size() - 1));
+            if (!entries.isEmpty()) {
+                System.out.println("🧊 Cold storage: " + entries.size() + " files in " + packs.size() + " packs");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open cold storage packs.", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+        for (PackFile pack : packs.values()) {
+            try {
+                pack.close();
+            } catch (IOException ignored) {
+                // Shutting down anyway
+            }
+        }
+    }
+
+    private PackFile newPack() throws IOException {
+        int number = packs.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+        PackFile pack = PackFile.open(packDir, number, indexVisitor);
+        packs.put(number, pack);
+        return pack;
+    }
+
+    // ================= READ =================
+
+    /** The packed file as a Resource backed by the memory map, or null if it is not packed. */
+    public Resource find(String fileName) {
+        PackFile.Entry entry = entries.get(fileName);
+        if (entry == null) return null;
+        PackFile pack = packs.get(entry.pack());
+        if (pack == null) return null;
+        return new AbstractResource() {
+            @Override
+            public String getDescription() {
+                return "packed upload [" + fileName + "] in " + PackFile.dataName(entry.pack());
+            }
+
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+
+            @Override
+            public boolean exists() {
+                return true;
+            }
+
+            @Override
+            public long contentLength() {
+                return entry.length();
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new PackFile.SliceInputStream(pack.slice(entry));
+            }
+        };
+    }
+
+    /**
+     * Marks a loose file as used (FileController calls this on every download). The OS access
+     * time is no good for this: backups and virus scans read every file, and Windows often does
+     * not keep it at all. So the modification time is moved forward instead, at most once a day.
+     */
+    public void touch(Path file) {
+        try {
+            FileTime now = FileTime.from(Instant.now());
+            if (Files.getLastModifiedTime(file).toMillis() < now.toMillis() - TOUCH_INTERVAL_MS) {
+                Files.setLastModifiedTime(file, now);
+            }
+        } catch (IOException ignored) {
+            // Only delays tiering; never fail a download over it
+        }
+    }
+
+    public boolean isPacked(String fileName) {
+        return entries.containsKey(fileName);
+    }
+
+    /** Snapshot of every packed file name (for UploadGcService). */
+    public Set<String> packedNames() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    public long packedLength(String fileName) {
+        PackFile.Entry entry = entries.get(fileName);
+        return entry != null ? entry.length() : 0;
+    }
+
+    /** Drops a packed file (tombstone). Returns false if it was not packed. */
+    public boolean remove(String fileName) throws IOException {
+        PackFile.Entry entry = entries.remove(fileName);
+        if (entry == null) return false;
+        PackFile pack = packs.get(entry.pack());
+        if (pack != null) pack.remove(fileName);
+        return true;
+    }
+
+    // ================= TIERING RUNS =================
+
+    // Nightly, after the orphan collection so orphans are deleted rather than packed
+    @Scheduled(cron = "${tiering.schedule:0 0 4 * * *}")
+    public void scheduledRun() {
+        ColdStorageReportDTO report = newReport();
+        TenantContext.run(tenant, () -> run(report));
+    }
+
+    /** Starts a tiering run in the background; returns its live report (or the running one's). */
+    public ColdStorageReportDTO start() {
+        if (running.get()) return getReport();
+        ColdStorageReportDTO report = newReport();
+        worker.submit(() -> TenantContext.run(tenant, () -> run(report)));
+        return report;
+    }
+
+    /** Last (or running) run, with the current pack totals filled in. */
+    public ColdStorageReportDTO getReport() {
+        ColdStorageReportDTO report = lastReport != null ? lastReport : newReport();
+        if (lastReport == null) report.setStatus("IDLE");
+        fillTotals(report);
+        return report;
+    }
+
+    private ColdStorageReportDTO newReport() {
+        ColdStorageReportDTO report = new ColdStorageReportDTO();
+        report.setStatus("RUNNING");
+        report.setStartedAt(LocalDateTime.now());
+        return report;
+    }
+
+    private void run(ColdStorageReportDTO report) {
+        if (!running.compareAndSet(false, true)) {
+            report.setStatus("SKIPPED");
+            report.setError("Another tiering run is already in progress");
+            return;
+        }
+        lastReport = report;
+        long start = System.currentTimeMillis();
+        try {
+            pack(report);
+            compact(report);
+            report.setStatus("DONE");
+            System.out.println("🧊 Cold storage: packed " + report.getPackedFiles() + " files ("
+                    + (report.getPackedBytes() / 1024) + " KB), compacted " + report.getCompactedPacks() + " packs");
+        } catch (Exception e) {
+            report.setStatus("FAILED");
+            report.setError(e.getMessage());
+            System.err.println("❌ Cold storage run failed: " + e.getMessage());
+        } finally {
+            report.setElapsedMs(System.currentTimeMillis() - start);
+            fillTotals(report);
+            running.set(false);
+        }
+    }
+
+    private void pack(ColdStorageReportDTO report) throws IOException, InterruptedException {
+        // Shared mount or bucket: other nodes could not read this node's packs (S3 has its own cold tiers)
+        Path uploads = fileStorageService.getStorageLocation();
+        if (uploads == null) return;
+        LocalDateTime cutoff = LocalDateTime.now().minusMonths(coldAfterMonths);
+        int inBatch = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploads)) {
+            for (Path file : files) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (IOException vanished) {
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                if (!attrs.isRegularFile() || name.startsWith(".")) continue;
+                report.setScannedFiles(report.getScannedFiles() + 1);
+
+                // Uploaded or served recently (see touch()): stays hot
+                LocalDateTime lastTouched = LocalDateTime.ofInstant(attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault());
+                if (lastTouched.isAfter(cutoff) || attrs.size() > maxFileSize.toBytes()) continue;
+
+                if (moveToPack(file, name, attrs.size())) {
+                    report.setPackedFiles(report.getPackedFiles() + 1);
+                    report.setPackedBytes(report.getPackedBytes() + attrs.size());
+                }
+
+                // Throttle: stay out of the way of the clinic's own disk I/O
+                if (++inBatch >= batchSize) {
+                    inBatch = 0;
+                    Thread.sleep(pauseMs);
+                }
+            }
+        }
+    }
+
+    private boolean moveToPack(Path file, String name, long size) throws IOException {
+        PackFile.Entry existing = entries.get(name);
+        if (existing != null) {
+            // Packed before but the loose copy survived (crash, or it was open on Windows)
+            if (existing.length() == size && existing.crc() == crcOf(file)) {
+                deleteLoose(file);
+            }
+            return false;
+        }
+        if (current.size() + PackFile.footprint(name, size) > packMaxSize.toBytes() && current.size() > 0) {
+            current = newPack();
+        }
+        PackFile.Entry entry;
+        try (InputStream in = Files.newInputStream(file)) {
+            entry = current.append(name, in, size);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not pack " + name + ": " + e.getMessage());
+            return false;
+        }
+        // Indexed before the loose copy goes, so FileController always finds one of the two
+        entries.put(name, entry);
+        deleteLoose(file);
+        return true;
+    }
+
+    private static void deleteLoose(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Open somewhere (Windows): served from the pack anyway, next run retries
+            System.err.println("⚠️ Could not remove packed upload " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private static int crcOf(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[COPY_BUFFER];
+            int n;
+            while ((n = in.read(buffer)) > 0) crc.update(buffer, 0, n);
+        }
+        return (int) crc.getValue();
+    }
+
+    // Sealed packs that are more dead than alive: copy the live files forward, drop the pack
+    private void compact(ColdStorageReportDTO report) throws IOException {
+        Map<Integer, List<Map.Entry<String, PackFile.Entry>>> live = liveByPack();
+        for (PackFile pack : new ArrayList<>(packs.values())) {
+            if (pack == current) continue;
+            List<Map.Entry<String, PackFile.Entry>> items = live.getOrDefault(pack.getNumber(), List.of());
+            long liveBytes = items.stream().mapToLong(e -> PackFile.footprint(e.getKey(), e.getValue().length())).sum();
+            if (liveBytes * 2 >= pack.size()) continue;
+
+            for (Map.Entry<String, PackFile.Entry> item : items) {
+                String name = item.getKey();
+                PackFile.Entry old = item.getValue();
+                if (!old.equals(entries.get(name))) continue; // Removed meanwhile
+                if (current.size() + PackFile.footprint(name, old.length()) > packMaxSize.toBytes() && current.size() > 0) {
+                    current = newPack();
+                }
+                PackFile.Entry moved = current.append(name, new PackFile.SliceInputStream(pack.slice(old)), old.length());
+                if (!entries.replace(name, old, moved)) {
+                    current.remove(name); // GC removed it while we copied
+                }
+            }
+            packs.remove(pack.getNumber());
+            pack.delete();
+            report.setCompactedPacks(report.getCompactedPacks() + 1);
+        }
+    }
+
+    private Map<Integer, List<Map.Entry<String, PackFile.Entry>>> liveByPack() {
+        Map<Integer, List<Map.Entry<String, PackFile.Entry>>> byPack = new HashMap<>();
+        for (Map.Entry<String, PackFile.Entry> e : entries.entrySet()) {
+            byPack.computeIfAbsent(e.getValue().pack(), k -> new ArrayList<>()).add(Map.entry(e.getKey(), e.getValue()));
+        }
+        return byPack;
+    }
+
+    private void fillTotals(ColdStorageReportDTO report) {
+        long packBytes = 0;
+        for (PackFile pack : packs.values()) packBytes += pack.size();
+        long liveBytes = 0;
+        long liveFootprint = 0;
+        for (Map.Entry<String, PackFile.Entry> e : entries.entrySet()) {
+            liveBytes += e.getValue().length();
+            liveFootprint += PackFile.footprint(e.getKey(), e.getValue().length());
+        }
+        report.setPacks(packs.size());
+        report.setFilesInPacks(entries.size());
+        report.setBytesInPacks(liveBytes);
+        report.setDeadBytes(Math.max(0, packBytes - liveFootprint));
+    }
+}
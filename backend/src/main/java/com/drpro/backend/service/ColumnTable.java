@@ -0,0 +1,245 @@
+package com.drpro.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column store for one money table (payments, expenses or treatment rows).
+ *
+ * Every row is five primitives: epoch day, amount in paise/cents, patient and category
+ * (both dictionary-encoded ints) plus the source id, so ten years of entries fit in a few MB
+ * and a group-by is a tight loop over int/long arrays. Deleted rows are only flagged and
+ * squeezed out once a quarter of the table is dead.
+ */
+public class ColumnTable {
+
+    public static final int NONE = -1;                 // No patient / unknown dictionary value
+    public static final int NO_DAY = Integer.MIN_VALUE; // Entry without a date
+
+    private final String name;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+    private long[] ids = new long[1024];
+    private int[] days = new int[1024];
+    private long[] cents = new long[1024];
+    private int[] patients = new int[1024];
+    private int[] categories = new int[1024];
+    private BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    private final Map<Long, Integer> rowOf = new HashMap<>();
+    private long maxId;
+
+    private final Dictionary<Long> patientDict = new Dictionary<>();
+    private final Dictionary<String> categoryDict = new Dictionary<>();
+
+    public ColumnTable(String name) {
+        this.name = name;
+    }
+
+    // ================= WRITES =================
+
+    public void upsert(long id, Integer epochDay, Double amount, Long patientId, String category) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowOf.get(id);
+            if (row == null) {
+                row = size++;
+                grow(size);
+                ids[row] = id;
+                rowOf.put(id, row);
+                maxId = Math.max(maxId, id);
+            }
+            days[row] = epochDay != null ? epochDay : NO_DAY;
+            cents[row] = amount != null ? Math.round(amount * 100) : 0;
+            patients[row] = patientId != null ? patientDict.encode(patientId) : NONE;
+            categories[row] = categoryDict.encode(normalize(category));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowOf.remove(id);
+            if (row == null) return;
+            deleted.set(row);
+            deletedCount++;
+            if (deletedCount > 1024 && deletedCount > size / 4) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void grow(int needed) {
+        if (needed <= ids.length) return;
+        int capacity = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        days = Arrays.copyOf(days, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        patients = Arrays.copyOf(patients, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+    }
+
+    private void compact() {
+        int out = 0;
+        for (int row = 0; row < size; row++) {
+            if (deleted.get(row)) continue;
+            ids[out] = ids[row];
+            days[out] = days[row];
+            cents[out] = cents[row];
+            patients[out] = patients[row];
+            categories[out] = categories[row];
+            rowOf.put(ids[out], out);
+            out++;
+        }
+        size = out;
+        deleted = new BitSet();
+        deletedCount = 0;
+    }
+
+    private static String normalize(String category) {
+        if (category == null || category.isBlank()) return "Other";
+        return category.trim();
+    }
+
+    // ================= READS =================
+
+    /** Dimension a query groups by; maps a row to a dense key in [0, cardinality). */
+    public interface KeyFn {
+        int key(int epochDay, int patient, int category);
+    }
+
+    /**
+     * One pass over the columns: rows within [fromDay, toDay] (and the patient / category, when
+     * given) are summed into the key's slot. Returns {counts, cents} indexed by key.
+     */
+    public long[][] aggregate(int fromDay, int toDay, Long patientId, String category, int cardinality, KeyFn keyFn) {
+        long[] counts = new long[cardinality];
+        long[] sums = new long[cardinality];
+        lock.readLock().lock();
+        try {
+            int patientFilter = patientId != null ? patientDict.lookup(patientId) : NONE;
+            int categoryFilter = category != null ? categoryDict.lookup(normalize(category)) : NONE;
+            if ((patientId != null && patientFilter == NONE) || (category != null && categoryFilter == NONE)) {
+                return new long[][]{counts, sums}; // Filter value never seen: nothing matches
+            }
+            for (int row = 0; row < size; row++) {
+                int day = days[row];
+                if (day < fromDay || day > toDay) continue;
+                if (patientFilter != NONE && patients[row] != patientFilter) continue;
+                if (categoryFilter != NONE && categories[row] != categoryFilter) continue;
+                if (deletedCount > 0 && deleted.get(row)) continue;
+                int key = keyFn.key(day, patients[row], categories[row]);
+                if (key < 0 || key >= cardinality) continue;
+                counts[key]++;
+                sums[key] += cents[row];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new long[][]{counts, sums};
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int rowCount() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long maxId() {
+        lock.readLock().lock();
+        try {
+            return maxId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Heap held by the columns (not counting the id -> row map). */
+    public long columnBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) ids.length * (8 + 4 + 8 + 4 + 4);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Smallest and largest epoch day in the table, or null when empty. */
+    public int[] dayRange() {
+        lock.readLock().lock();
+        try {
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+            for (int row = 0; row < size; row++) {
+                if (days[row] == NO_DAY || (deletedCount > 0 && deleted.get(row))) continue;
+                min = Math.min(min, days[row]);
+                max = Math.max(max, days[row]);
+            }
+            return min <= max ? new int[]{min, max} : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int patientCardinality() {
+        return patientDict.size();
+    }
+
+    public Long patientAt(int code) {
+        return patientDict.decode(code);
+    }
+
+    public int categoryCardinality() {
+        return categoryDict.size();
+    }
+
+    public String categoryAt(int code) {
+        return categoryDict.decode(code);
+    }
+
+    // ================= DICTIONARY =================
+
+    /** Append-only value <-> int code mapping. Codes stay valid for the lifetime of the table. */
+    static class Dictionary<T> {
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        synchronized int encode(T value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        synchronized int lookup(T value) {
+            Integer code = codes.get(value);
+            return code != null ? code : NONE;
+        }
+
+        synchronized T decode(int code) {
+            return code >= 0 && code < values.size() ? values.get(code) : null;
+        }
+
+        synchronized int size() {
+            return values.size();
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.drpro.backend.service;
 
+import com.drpro.backend.config.RequestTiming;
+import com.drpro.backend.config.StorageConfig;
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.config.UploadUrls;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
@@ -10,33 +16,47 @@ import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Enumeration;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+/**
+ * The uploads of the current tenant, in whichever BlobStore storage.type picks. Files are
+ * stored under a generated key ("3f2a....png"), and that key is what rows keep: fields marked
+ * @UploadRef turn it into a URL when a response is written (see UploadUrls).
+ */
 @Service
+@TenantScoped
 public class FileStorageService {
 
-    private Path fileStorageLocation;
-    private String cachedIpAddress;
+    @Autowired
+    private TenantService tenantService;
+
+    @Autowired
+    private StorageConfig storageConfig;
+
+    private final String tenant = TenantContext.current();
+    private BlobStore store;
+    private Path workDirectory;
 
     @PostConstruct
     public void init() {
         try {
-            // 1. Setup Storage Folder
-            String homeDir = System.getProperty("user.home");
-            this.fileStorageLocation = Paths.get(homeDir, "DrPro_Data", "uploads")
-                    .toAbsolutePath().normalize();
-
-            Files.createDirectories(this.fileStorageLocation);
-            
-            // 2. Find the Real LAN IP Address (Once on startup)
-            this.cachedIpAddress = getLanIp();
-            
+            // 1. Setup Storage (DrPro_Data/uploads, the branch's own folder, a shared mount or a bucket)
+            TenantService.Tenant current = tenantService.require(tenant);
+            boolean isDefault = tenantService.isDefault(tenant);
+            this.store = storageConfig.storeFor(current, isDefault);
+            this.workDirectory = storageConfig.workDirectoryFor(current, isDefault);
+            Files.createDirectories(this.workDirectory);
+
+            if (!isDefault) {
+                System.out.println("✅ STORAGE READY for tenant '" + tenant + "': " + store.describe());
+                return;
+            }
+            // 2. The address to type on the tablets (links no longer depend on it)
             System.out.println("============================================");
-            System.out.println("✅ STORAGE READY: " + this.fileStorageLocation);
-            System.out.println("🌍 SERVER IP DETECTED: " + this.cachedIpAddress);
+            System.out.println("✅ STORAGE READY: " + store.describe());
+            System.out.println("🌍 SERVER IP DETECTED: " + getLanIp());
             System.out.println("============================================");
 
         } catch (Exception ex) {
@@ -44,6 +64,7 @@ public class FileStorageService {
         }
     }
 
+    /** Stores an uploaded file and returns its key. */
     public String storeFile(MultipartFile file) {
         try {
             // 1. Unique Name
@@ -52,22 +73,71 @@ public class FileStorageService {
             if (originalFileName != null && originalFileName.contains(".")) {
                 fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
             }
-            String fileName = UUID.randomUUID().toString() + fileExtension;
+            String key = newKey(fileExtension);
 
-            // 2. Save File
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-
-            // 3. Generate URL using the Real IP (Not localhost)
-            String fileUrl = "http://" + this.cachedIpAddress + ":8080/uploads/" + fileName;
-            
-            return fileUrl;
+            // 2. Save File (moves Tomcat's spooled temp file instead of copying it)
+            try (RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.STORAGE)) {
+                Path staged = store.stagingPath(key);
+                try {
+                    file.transferTo(staged);
+                    put(key, staged);
+                } finally {
+                    Files.deleteIfExists(staged); // Only still there if it failed
+                }
+            }
+            return key;
 
         } catch (IOException ex) {
             throw new RuntimeException("Could not store file.", ex);
         }
     }
 
+    /** A fresh key for a file with this extension (".png", or "" for none). */
+    public String newKey(String extension) {
+        String key = UUID.randomUUID() + extension;
+        return UploadUrls.isKey(key) ? key : UUID.randomUUID().toString(); // Odd extensions are dropped
+    }
+
+    // ================= BLOBS =================
+
+    /** Where to write the bytes of a new upload before put() (any other local file will do too). */
+    public Path stagingPath(String key) throws IOException {
+        return store.stagingPath(checkKey(key));
+    }
+
+    /** Moves a local file into the store as 'key'. If that fails the file is left where it was. */
+    public void put(String key, Path file) throws IOException {
+        store.put(checkKey(key), file);
+    }
+
+    /** The upload, or null if the store has no such key (it may be in a cold-storage pack). */
+    public Resource load(String key) throws IOException {
+        return UploadUrls.isKey(key) ? store.get(key) : null;
+    }
+
+    public boolean delete(String key) throws IOException {
+        return store.delete(checkKey(key));
+    }
+
+    public void list(Consumer<BlobStore.BlobInfo> visitor) throws IOException {
+        store.list(visitor);
+    }
+
+    /** The local uploads folder, or null when uploads live on a shared mount or in a bucket. */
+    public Path getStorageLocation() {
+        return store.localDirectory();
+    }
+
+    /** The tenant's folder for work files other nodes may need too (resumable upload sessions). */
+    public Path getWorkDirectory() {
+        return workDirectory;
+    }
+
+    private static String checkKey(String key) {
+        if (!UploadUrls.isKey(key)) throw new IllegalArgumentException("Invalid upload key '" + key + "'");
+        return key;
+    }
+
     // --- HELPER: FINDS THE REAL WI-FI / ETHERNET IP ---
     private String getLanIp() {
         try {
@@ -92,4 +162,4 @@ public class FileStorageService {
             return "localhost"; // Last resort
         }
     }
-}
\ No newline at end of file
+}
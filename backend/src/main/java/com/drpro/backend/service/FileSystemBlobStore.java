@@ -0,0 +1,88 @@
+package com.drpro.backend.service;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Consumer;
+
+/**
+ * Blobs as files in one folder: this node's own (local) or a mount shared by every node.
+ * Staged files are dot-files in the same folder, so put() is a rename on the same disk and a
+ * half-written upload is never visible under its key.
+ */
+public class FileSystemBlobStore implements BlobStore {
+
+    private final Path root;
+    private final boolean shared;
+
+    public FileSystemBlobStore(Path root, boolean shared) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.shared = shared;
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public Path stagingPath(String key) {
+        return root.resolve("." + key + ".part");
+    }
+
+    @Override
+    public void put(String key, Path staged) throws IOException {
+        Path target = pathOf(key);
+        try {
+            Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged, target);
+        }
+    }
+
+    @Override
+    public Resource get(String key) {
+        Path file = pathOf(key);
+        return Files.isRegularFile(file) ? new FileSystemResource(file) : null;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(pathOf(key));
+    }
+
+    @Override
+    public void list(Consumer<BlobInfo> visitor) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(".")) continue; // Staged, or the OS's own
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (IOException vanished) {
+                    continue;
+                }
+                if (!attrs.isRegularFile()) continue;
+                visitor.accept(new BlobInfo(name, attrs.size(), attrs.lastModifiedTime().toInstant()));
+            }
+        }
+    }
+
+    @Override
+    public Path localDirectory() {
+        return shared ? null : root;
+    }
+
+    @Override
+    public String describe() {
+        return (shared ? "shared folder " : "") + root;
+    }
+
+    private Path pathOf(String key) {
+        return root.resolve(key);
+    }
+}
@@ -0,0 +1,182 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.ReplicaContext;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.DaySum;
+import com.drpro.backend.dto.FinanceBucketDTO;
+import com.drpro.backend.dto.FinanceSeriesDTO;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.model.Expense;
+import com.drpro.backend.model.Payment;
+import com.drpro.backend.repository.ExpenseRepository;
+import com.drpro.backend.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revenue / expense series for the finance calendar and chart.
+ * MySQL sums per day; the day rows are then folded into day, week or month buckets here.
+ * Like the appointment calendar, closed months are cached and evicted by the rare edit of an old entry.
+ */
+@Service
+@TenantScoped
+public class FinanceSeriesService {
+
+    public static final int MAX_BUCKETS = 1000;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Autowired
+    private ExpenseRepository expenseRepo;
+
+    private record DayRow(LocalDate date, String category, double total, boolean revenue) {}
+
+    private final Map<YearMonth, List<DayRow>> pastMonths = new ConcurrentHashMap<>();
+
+    public FinanceSeriesDTO getSeries(LocalDate from, LocalDate to, String bucket, boolean breakdown) {
+        if (to.isBefore(from)) throw new IllegalArgumentException("'to' is before 'from'");
+
+        // Line the range up with whole buckets so the first/last bar is not half a week
+        LocalDate start = bucketStart(from, bucket);
+        LocalDate end = bucketEnd(to, bucket);
+
+        TreeMap<LocalDate, FinanceBucketDTO> buckets = new TreeMap<>();
+        for (LocalDate d = start; !d.isAfter(end); d = bucketEnd(d, bucket).plusDays(1)) {
+            if (buckets.size() == MAX_BUCKETS) {
+                throw new IllegalArgumentException("Range too large: more than " + MAX_BUCKETS + " " + bucket + " buckets");
+            }
+            FinanceBucketDTO b = new FinanceBucketDTO();
+            b.setLabel(label(d, bucket));
+            b.setStart(d);
+            b.setEnd(bucketEnd(d, bucket));
+            if (breakdown) {
+                b.setRevenueByMethod(new TreeMap<>());
+                b.setExpensesByType(new TreeMap<>());
+            }
+            buckets.put(d, b);
+        }
+
+        FinanceSeriesDTO dto = new FinanceSeriesDTO();
+        dto.setFrom(start);
+        dto.setTo(end);
+        dto.setBucket(bucket);
+
+        for (DayRow row : dayRows(start, end)) {
+            FinanceBucketDTO b = buckets.floorEntry(row.date()).getValue();
+            if (row.revenue()) {
+                b.setRevenue(b.getRevenue() + row.total());
+                dto.setTotalRevenue(dto.getTotalRevenue() + row.total());
+                if (breakdown) b.getRevenueByMethod().merge(row.category(), row.total(), Double::sum);
+            } else {
+                b.setExpenses(b.getExpenses() + row.total());
+                dto.setTotalExpenses(dto.getTotalExpenses() + row.total());
+                if (breakdown) b.getExpensesByType().merge(row.category(), row.total(), Double::sum);
+            }
+        }
+        for (FinanceBucketDTO b : buckets.values()) b.setNet(b.getRevenue() - b.getExpenses());
+        dto.setNetProfit(dto.getTotalRevenue() - dto.getTotalExpenses());
+        dto.getBuckets().addAll(buckets.values());
+        return dto;
+    }
+
+    // ================= DAY SUMS =================
+
+    private List<DayRow> dayRows(LocalDate from, LocalDate to) {
+        List<DayRow> rows = new ArrayList<>();
+        YearMonth current = YearMonth.now();
+        for (YearMonth m = YearMonth.from(from); !m.isAfter(YearMonth.from(to)); m = m.plusMonths(1)) {
+            LocalDate mFrom = m.atDay(1).isBefore(from) ? from : m.atDay(1);
+            LocalDate mTo = m.atEndOfMonth().isAfter(to) ? to : m.atEndOfMonth();
+            if (m.isBefore(current)) {
+                // Kept for good: never from a replica that is behind
+                if (!pastMonths.containsKey(m)) ReplicaContext.usePrimary();
+                for (DayRow row : pastMonths.computeIfAbsent(m, x -> query(x.atDay(1), x.atEndOfMonth()))) {
+                    if (!row.date().isBefore(mFrom) && !row.date().isAfter(mTo)) rows.add(row);
+                }
+            } else {
+                rows.addAll(query(mFrom, mTo));
+            }
+        }
+        return rows;
+    }
+
+    private List<DayRow> query(LocalDate from, LocalDate to) {
+        List<DayRow> rows = new ArrayList<>();
+        for (DaySum s : paymentRepo.sumByDayAndMethod(from, to)) {
+            rows.add(new DayRow(s.getDate(), s.getCategory() != null ? s.getCategory() : "Other", total(s), true));
+        }
+        for (DaySum s : expenseRepo.sumByDayAndType(from, to)) {
+            rows.add(new DayRow(s.getDate(), s.getCategory() != null ? s.getCategory() : "Other", total(s), false));
+        }
+        return rows;
+    }
+
+    private static double total(DaySum s) {
+        return s.getTotal() != null ? s.getTotal() : 0;
+    }
+
+    // ================= BUCKETS =================
+
+    private static LocalDate bucketStart(LocalDate d, String bucket) {
+        return switch (bucket) {
+            case "week" -> d.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "month" -> d.withDayOfMonth(1);
+            default -> d;
+        };
+    }
+
+    private static LocalDate bucketEnd(LocalDate d, String bucket) {
+        return switch (bucket) {
+            case "week" -> d.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+            case "month" -> d.with(TemporalAdjusters.lastDayOfMonth());
+            default -> d;
+        };
+    }
+
+    private static String label(LocalDate start, String bucket) {
+        return switch (bucket) {
+            case "week" -> String.format("%d-W%02d", start.get(IsoFields.WEEK_BASED_YEAR), start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case "month" -> YearMonth.from(start).toString();
+            default -> start.toString();
+        };
+    }
+
+    // ================= CACHE EVICTION =================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (pastMonths.isEmpty()) return;
+        if (event.getEntity() instanceof Payment p && p.getDate() != null) {
+            pastMonths.remove(YearMonth.from(p.getDate()));
+        } else if (event.getEntity() instanceof Expense e && e.getDate() != null) {
+            pastMonths.remove(YearMonth.from(e.getDate()));
+        } else {
+            return;
+        }
+        // Re-dated entry: the month it came from changed too
+        if (event.getPrevious() != null && event.getPrevious().get("date") instanceof LocalDate oldDate) {
+            pastMonths.remove(YearMonth.from(oldDate));
+        }
+    }
+
+    // Bulk imports write with JDBC and skip the events above
+    @EventListener
+    public void onBulkWrite(BulkWriteEvent event) {
+        if ("payments".equals(event.getTable()) || "expenses".equals(event.getTable())) pastMonths.clear();
+    }
+}
@@ -1,5 +1,6 @@
 package com.drpro.backend.service;
 
+import com.drpro.backend.config.RequestTiming;
 import com.drpro.backend.model.Appointment;
 import com.drpro.backend.model.Patient;
 import com.drpro.backend.repository.PatientRepository;
@@ -70,7 +71,9 @@ public class GoogleCalendarService {
             // 5. Handle Date & Time
             // Combine Date and Time into a LocalDateTime
             LocalDateTime startLdt = LocalDateTime.of(appointment.getDate(), appointment.getTime());
-            LocalDateTime endLdt = startLdt.plusMinutes(30); // Default 30 min appointment
+            int duration = appointment.getDurationMinutes() != null
+                    ? appointment.getDurationMinutes() : ScheduleIndexService.DEFAULT_DURATION_MINUTES;
+            LocalDateTime endLdt = startLdt.plusMinutes(duration);
 
             // Convert to Google DateTime (with Timezone)
             DateTime startDateTime = new DateTime(Date.from(startLdt.atZone(ZoneId.systemDefault()).toInstant()));
@@ -80,8 +83,10 @@ public class GoogleCalendarService {
             event.setEnd(new EventDateTime().setDateTime(endDateTime));
 
             // 6. Execute Insert
-            Event createdEvent = service.events().insert(CALENDAR_ID, event).execute();
-            return createdEvent.getHtmlLink();
+            try (RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.REMOTE)) {
+                Event createdEvent = service.events().insert(CALENDAR_ID, event).execute();
+                return createdEvent.getHtmlLink();
+            }
 
         } catch (IOException | GeneralSecurityException e) {
             e.printStackTrace();
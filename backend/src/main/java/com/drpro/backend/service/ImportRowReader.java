@@ -0,0 +1,178 @@
+package com.drpro.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads import rows one at a time as column -> text, without loading the file.
+ * CSV: first line is the header (RFC 4180 quoting). JSON: an array of objects or NDJSON.
+ */
+public abstract class ImportRowReader implements Iterator<Map<String, String>>, Closeable {
+
+    private Map<String, String> nextRow;
+    private boolean done;
+
+    public static ImportRowReader csv(InputStream in) {
+        return new Csv(in);
+    }
+
+    public static ImportRowReader json(InputStream in) throws IOException {
+        return new Json(in);
+    }
+
+    // Returns null at end of input
+    protected abstract Map<String, String> readRow() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow == null && !done) {
+            try {
+                nextRow = readRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            done = nextRow == null;
+        }
+        return nextRow != null;
+    }
+
+    @Override
+    public Map<String, String> next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Map<String, String> row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    // ================= CSV =================
+
+    private static class Csv extends ImportRowReader {
+        private final Reader reader;
+        private List<String> header;
+        private boolean eof;
+
+        Csv(InputStream in) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        protected Map<String, String> readRow() throws IOException {
+            if (header == null) {
+                header = readRecord();
+                if (header == null) return null;
+                // Strip a UTF-8 BOM left by Excel
+                if (!header.isEmpty() && header.get(0).startsWith("\uFEFF")) {
+                    header.set(0, header.get(0).substring(1));
+                }
+                header.replaceAll(String::trim);
+            }
+            List<String> values;
+            do {
+                values = readRecord();
+                if (values == null) return null;
+            } while (values.size() == 1 && values.get(0).isEmpty()); // blank line
+
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String value = i < values.size() ? values.get(i) : null;
+                row.put(header.get(i), value == null || value.isEmpty() ? null : value);
+            }
+            return row;
+        }
+
+        private List<String> readRecord() throws IOException {
+            if (eof) return null;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"'); // escaped quote
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (c == -1) {
+                eof = true;
+                if (!any) return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    // ================= JSON =================
+
+    private static class Json extends ImportRowReader {
+        private final JsonParser parser;
+
+        Json(InputStream in) throws IOException {
+            this.parser = new JsonFactory().createParser(in);
+            JsonToken first = parser.nextToken();
+            // [ {...}, {...} ]  or  {...}\n{...}  (NDJSON)
+            if (first != JsonToken.START_ARRAY && first != JsonToken.START_OBJECT && first != null) {
+                throw new IOException("Expected a JSON array or objects, got " + first);
+            }
+        }
+
+        @Override
+        protected Map<String, String> readRow() throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_ARRAY || token == JsonToken.END_OBJECT) {
+                token = parser.nextToken();
+            }
+            if (token == null || token == JsonToken.END_ARRAY) return null;
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Expected an object at " + parser.currentLocation());
+            }
+
+            Map<String, String> row = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    row.put(name, null);
+                } else {
+                    row.put(name, value == JsonToken.VALUE_NULL ? null : parser.getText());
+                }
+            }
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.drpro.backend.service;
 
+import com.drpro.backend.config.RequestTiming;
 import com.drpro.backend.model.ClinicSettings;
 import com.drpro.backend.model.Patient;
 import com.drpro.backend.model.Payment;
@@ -25,6 +26,12 @@ public class InvoiceService {
     private ClinicSettingsRepository clinicRepo;
 
     public ByteArrayInputStream generateInvoice(Payment payment) {
+        try (RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.PDF)) {
+            return renderInvoice(payment);
+        }
+    }
+
+    private ByteArrayInputStream renderInvoice(Payment payment) {
         Document document = new Document();
         ByteArrayOutputStream out = new ByteArrayOutputStream();
 
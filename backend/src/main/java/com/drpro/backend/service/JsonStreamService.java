@@ -0,0 +1,75 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.RequestTiming;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Writes a JSON array straight to the response, one keyset page of rows at a time
+ * ("id > last id seen", PAGE_SIZE rows). Each page is its own short query, so a DB connection
+ * is only held while a page is fetched, never while a slow tablet reads the response, and only
+ * one page is ever in memory. For the lists that grow with the clinic (patients, payments, expenses)
+ * and for ?fields= lists (SparseFieldService).
+ */
+@Service
+public class JsonStreamService {
+
+    public static final int PAGE_SIZE = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ObjectWriter rowWriter;
+
+    @PostConstruct
+    public void init() {
+        // Boot's mapper flushes after every writeValue: that would send one chunk per row
+        rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * @param page  fetches up to 'limit' rows with id greater than the given one, ordered by id
+     * @param idOf  the id of a row, to ask for the next page
+     */
+    public <T> void writeArray(HttpServletResponse response, BiFunction<Long, Limit, List<T>> page,
+                               Function<T, Long> idOf) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartArray();
+            long after = 0;
+            while (true) {
+                List<T> rows = page.apply(after, Limit.of(PAGE_SIZE));
+                try (RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.JSON)) {
+                    for (T row : rows) {
+                        rowWriter.writeValue(json, row);
+                    }
+                }
+                if (rows.size() < PAGE_SIZE) break;
+                after = idOf.apply(rows.get(rows.size() - 1));
+            }
+            json.writeEndArray();
+        }
+    }
+
+    /** A list that is already in memory (small, per-patient lists), written the same way. */
+    public void writeList(HttpServletResponse response, List<?> rows) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream());
+             RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.JSON)) {
+            rowWriter.writeValue(json, rows);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.LiveEventDTO;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.model.Appointment;
+import com.drpro.backend.model.Patient;
+import com.drpro.backend.model.Payment;
+import com.drpro.backend.model.SyncTracked;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans committed appointment / payment / patient writes out to every connected device (SSE).
+ *
+ * Each subscriber has a small bounded queue. Publishing never blocks: if a device
+ * is too slow to keep up, its queue fills, it gets disconnected, and its EventSource
+ * reconnects and re-syncs via /api/sync.
+ *
+ * Writes made on other app nodes are found by polling the rows whose sync revision moved
+ * past the last one seen (every node.poll-ms); those go out as UPSERT / DELETE.
+ */
+@Service
+@TenantScoped
+public class LiveEventService {
+
+    public static final Set<String> PUBLISHED_TABLES = Set.of("appointments", "payments", "patients");
+
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L; // EventSource reconnects by itself
+    private static final int RECENT_CAPACITY = 1024;
+    private static final long DELETED = -1L; // recentRevisions marker: deleted on this node
+
+    // table -> the column holding the patient an event belongs to
+    private static final Map<String, String> PATIENT_COLUMN = Map.of(
+            "appointments", "patient_id", "payments", "patient_id", "patients", "id");
+
+    private final String tenant = TenantContext.current();
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private SyncRevisionService syncRevisionService;
+
+    // Highest revision already looked at by poll(); -1 until the first poll
+    private long lastSeen = -1;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // "table:id" -> last revision published; the duplicates arrive right after the original,
+    // so remembering the most recently changed entities is enough
+    private final Map<String, Long> recentRevisions = new LinkedHashMap<>(RECENT_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > RECENT_CAPACITY;
+        }
+    };
+
+    // Few threads are enough: they only run while a subscriber has queued events
+    private final ExecutorService senders = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "sse-sender");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SseEmitter subscribe(Set<String> tables, Long patientId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscriber sub = new Subscriber(emitter, tables, patientId);
+        subscribers.add(sub);
+
+        emitter.onCompletion(() -> subscribers.remove(sub));
+        emitter.onTimeout(() -> subscribers.remove(sub));
+        emitter.onError(e -> subscribers.remove(sub));
+
+        sub.offer(SseEmitter.event().name("ready").data("ok"));
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!PUBLISHED_TABLES.contains(event.getTable()) || subscribers.isEmpty()) {
+            return;
+        }
+        Long revision = event.getType() != EntityChangeEvent.Type.DELETE
+                && event.getEntity() instanceof SyncTracked tracked ? tracked.getRevision() : null;
+        LiveEventDTO dto = new LiveEventDTO(event.getTable(), event.getType().name(),
+                event.getEntityId(), patientIdOf(event.getEntity()), revision);
+
+        // A save that also touches a collection (e.g. fileUrls) reports twice with the same revision,
+        // possibly with other entities' events (and other transactions') in between.
+        // Remembered for poll() too, which finds this node's own writes again.
+        String key = dto.getTable() + ":" + dto.getId();
+        synchronized (recentRevisions) {
+            if (revision == null) {
+                recentRevisions.put(key, DELETED);
+            } else if (revision.equals(recentRevisions.put(key, revision))) {
+                return;
+            }
+        }
+
+        // One builder per subscriber: send() builds it in place, so it cannot be shared between senders
+        for (Subscriber sub : subscribers) {
+            if (sub.wants(dto)) {
+                sub.offer(SseEmitter.event().name(dto.getTable()).data(dto));
+            }
+        }
+    }
+
+    // Writes committed by other nodes. Revisions up to the stable one are all committed,
+    // so nothing is passed over; this node's own writes were sent already and are skipped.
+    @Scheduled(fixedDelayString = "${node.poll-ms:1000}", initialDelayString = "${node.poll-ms:1000}")
+    public synchronized void poll() {
+        TenantContext.run(tenant, () -> {
+            long upTo = syncRevisionService.stableRevision();
+            long from = lastSeen;
+            lastSeen = upTo;
+            if (from < 0 || upTo <= from || subscribers.isEmpty()) return; // Also after a restore moved the counter back
+
+            for (String table : PUBLISHED_TABLES) {
+                jdbc.query("SELECT id, " + PATIENT_COLUMN.get(table) + ", revision FROM " + table
+                        + " WHERE revision > ? AND revision <= ?", rs -> {
+                    long patientId = rs.getLong(2);
+                    Long patient = rs.wasNull() ? null : patientId;
+                    sendRemote(new LiveEventDTO(table, "UPSERT", rs.getLong(1), patient, rs.getLong(3)));
+                }, from, upTo);
+            }
+            jdbc.query("SELECT table_name, entity_id FROM sync_tombstones WHERE revision > ? AND revision <= ?", rs -> {
+                if (PUBLISHED_TABLES.contains(rs.getString(1))) {
+                    sendRemote(new LiveEventDTO(rs.getString(1), EntityChangeEvent.Type.DELETE.name(), rs.getLong(2), null, null));
+                }
+            }, from, upTo);
+        });
+    }
+
+    // Keeps idle connections open through proxies / Wi-Fi power saving, and finds dead ones
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        for (Subscriber sub : subscribers) {
+            sub.offer(SseEmitter.event().comment("ping"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(sub -> sub.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private void sendRemote(LiveEventDTO dto) {
+        String key = dto.getTable() + ":" + dto.getId();
+        synchronized (recentRevisions) {
+            Long sent = recentRevisions.get(key);
+            if (sent != null && (sent == DELETED || sent.equals(dto.getRevision()))) return;
+        }
+        for (Subscriber sub : subscribers) {
+            if (sub.wants(dto)) {
+                sub.offer(SseEmitter.event().name(dto.getTable()).data(dto));
+            }
+        }
+    }
+
+    private Long patientIdOf(Object entity) {
+        if (entity instanceof Appointment a) return a.getPatientId();
+        if (entity instanceof Payment p) return p.getPatientId();
+        if (entity instanceof Patient p) return p.getId();
+        return null;
+    }
+
+    // ================= SUBSCRIBER =================
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> tables;
+        private final Long patientId;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Set<String> tables, Long patientId) {
+            this.emitter = emitter;
+            this.tables = tables;
+            this.patientId = patientId;
+        }
+
+        // Another node's deletes don't say whose row it was: every subscriber of the table gets them
+        boolean wants(LiveEventDTO dto) {
+            return tables.contains(dto.getTable())
+                    && (patientId == null || dto.getPatientId() == null || patientId.equals(dto.getPatientId()));
+        }
+
+        void offer(SseEmitter.SseEventBuilder frame) {
+            if (!queue.offer(frame)) {
+                // Slow consumer: drop it rather than buffer without bound
+                subscribers.remove(this);
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder frame;
+                while ((frame = queue.poll()) != null) {
+                    emitter.send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event may have arrived between the last poll and releasing the flag
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+}
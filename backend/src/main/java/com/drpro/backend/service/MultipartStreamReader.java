@@ -0,0 +1,216 @@
+package com.drpro.backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a multipart/form-data body one part at a time, straight off the request stream.
+ *
+ * Only a fixed 64 KB window of the body is ever in memory: each part's bytes are handed
+ * out through Part.getBody() until the next boundary shows up, so a 40 MB X-Ray never
+ * exists as a byte[] or a container temp file.
+ */
+public class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter; // CRLF + "--" + boundary
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean finished;
+    private PartBody current;
+
+    public MultipartStreamReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // The body starts with "--boundary" (no CRLF): pretend it had one so every boundary looks the same
+        buf[0] = '\r';
+        buf[1] = '\n';
+        limit = 2;
+    }
+
+    /** Boundary from a "multipart/form-data; boundary=..." content type, or null. */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) return null;
+        for (String param : contentType.split(";")) {
+            String p = param.trim();
+            if (p.toLowerCase(Locale.ROOT).startsWith("boundary=")) {
+                String boundary = p.substring("boundary=".length());
+                if (boundary.startsWith("\"") && boundary.endsWith("\"") && boundary.length() > 1) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.isEmpty() || boundary.length() > 70 ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    public static class Part {
+        private final String name;
+        private final String fileName;
+        private final String contentType;
+        private final InputStream body;
+
+        Part(String name, String fileName, String contentType, InputStream body) {
+            this.name = name;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public String getName() { return name; }
+        public String getFileName() { return fileName; }     // null for plain form fields
+        public String getContentType() { return contentType; }
+        public InputStream getBody() { return body; }         // Ends at the next boundary
+        public boolean isFile() { return fileName != null; }
+    }
+
+    /** Next part, or null after the closing boundary. Skips whatever is left of the previous part. */
+    public Part next() throws IOException {
+        if (finished) return null;
+        if (current == null) {
+            // Preamble (normally empty) up to the first boundary
+            new PartBody().transferTo(OutputStream.nullOutputStream());
+        } else {
+            current.transferTo(OutputStream.nullOutputStream());
+        }
+
+        // After a boundary: "--" closes the body, CRLF starts the next part's headers
+        fill(2);
+        if (limit - pos < 2) throw new IOException("Truncated multipart body");
+        if (buf[pos] == '-' && buf[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        if (buf[pos] != '\r' || buf[pos + 1] != '\n') throw new IOException("Malformed multipart boundary");
+        pos += 2;
+
+        Map<String, String> headers = readHeaders();
+        String disposition = headers.getOrDefault("content-disposition", "");
+        current = new PartBody();
+        return new Part(param(disposition, "name"), param(disposition, "filename"),
+                headers.get("content-type"), current);
+    }
+
+    // ================= HEADERS =================
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int total = 0;
+        while (true) {
+            fill(1);
+            if (pos >= limit) throw new IOException("Truncated multipart headers");
+            byte b = buf[pos++];
+            if (++total > MAX_HEADER_BYTES) throw new IOException("Multipart headers too large");
+            if (b != '\n') {
+                if (b != '\r') line.write(b);
+                continue;
+            }
+            String text = line.toString(StandardCharsets.UTF_8);
+            line.reset();
+            if (text.isEmpty()) return headers; // Blank line: body follows
+            int colon = text.indexOf(':');
+            if (colon > 0) {
+                headers.put(text.substring(0, colon).trim().toLowerCase(Locale.ROOT), text.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    // e.g. form-data; name="files"; filename="x-ray 1.jpg"
+    private static String param(String header, String key) {
+        for (String piece : header.split(";")) {
+            String p = piece.trim();
+            int eq = p.indexOf('=');
+            if (eq > 0 && p.substring(0, eq).trim().equalsIgnoreCase(key)) {
+                String value = p.substring(eq + 1).trim();
+                if (value.startsWith("\"") && value.endsWith("\"") && value.length() > 1) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+
+    // ================= BUFFER =================
+
+    // Makes at least 'wanted' unread bytes available unless the stream ends first
+    private void fill(int wanted) throws IOException {
+        if (limit - pos >= wanted || eof) return;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        while (limit < wanted && !eof) {
+            int n = in.read(buf, limit, buf.length - limit);
+            if (n < 0) eof = true;
+            else limit += n;
+        }
+    }
+
+    private int indexOfDelimiter() {
+        byte first = delimiter[0];
+        outer:
+        for (int i = pos; i <= limit - delimiter.length; i++) {
+            if (buf[i] != first) continue;
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buf[i + j] != delimiter[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /** One part's bytes: everything up to the next delimiter. */
+    private class PartBody extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) return -1;
+            if (len == 0) return 0;
+            fill(delimiter.length);
+
+            int end = indexOfDelimiter();
+            int available;
+            if (end >= 0) {
+                available = end - pos;
+                if (available == 0) {
+                    pos += delimiter.length; // Consume the boundary itself
+                    done = true;
+                    return -1;
+                }
+            } else {
+                if (eof) throw new IOException("Multipart body ended without a closing boundary");
+                // The last delimiter-1 bytes could be the start of a boundary: hold them back
+                available = limit - pos - (delimiter.length - 1);
+                if (available <= 0) {
+                    fill(limit - pos + 1);
+                    return read(b, off, len);
+                }
+            }
+            int n = Math.min(len, available);
+            System.arraycopy(buf, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+}
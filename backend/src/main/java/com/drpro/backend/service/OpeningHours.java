@@ -0,0 +1,133 @@
+package com.drpro.backend.service;
+
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the free-text ClinicSettings.openingHours into minute ranges per weekday.
+ *
+ * Understands one rule per line (or separated by ';'), for example:
+ *   Mon-Fri: 9am - 1pm, 2pm - 6:30pm
+ *   Sat 10:00-14:00
+ *   Sun: Closed
+ * A line without day names applies to every day. Blank / unreadable text falls back to
+ * Mon-Fri 9am - 5pm, the same example the settings page shows.
+ */
+public class OpeningHours {
+
+    private static final String DAY = "(mon|tue|wed|thu|fri|sat|sun)[a-z]*\\.?";
+    private static final Pattern DAY_RANGE = Pattern.compile(DAY + "\\s*(?:-|–|to)\\s*" + DAY);
+    private static final Pattern SINGLE_DAY = Pattern.compile(DAY);
+    private static final Pattern TIME_RANGE = Pattern.compile(
+            "(\\d{1,2})(?:[:.](\\d{2}))?\\s*(am|pm)?\\s*(?:-|–|to)\\s*(\\d{1,2})(?:[:.](\\d{2}))?\\s*(am|pm)?");
+    private static final List<String> DAY_KEYS = List.of("mon", "tue", "wed", "thu", "fri", "sat", "sun");
+
+    public static final String DEFAULT = "Mon-Fri: 9am - 5pm";
+
+    // Sorted, non-overlapping [startMinute, endMinute) pairs per day
+    private final Map<DayOfWeek, List<int[]>> hours = new EnumMap<>(DayOfWeek.class);
+
+    private OpeningHours() {
+        for (DayOfWeek d : DayOfWeek.values()) hours.put(d, new ArrayList<>());
+    }
+
+    public static OpeningHours parse(String text) {
+        OpeningHours parsed = parseRules(text);
+        return parsed != null ? parsed : parseRules(DEFAULT);
+    }
+
+    public List<int[]> forDay(DayOfWeek day) {
+        return hours.get(day);
+    }
+
+    private static OpeningHours parseRules(String text) {
+        if (text == null || text.isBlank()) return null;
+        OpeningHours result = new OpeningHours();
+        boolean any = false;
+
+        for (String line : text.toLowerCase().split("[\\n;|]+")) {
+            Set<DayOfWeek> days = parseDays(line);
+            boolean closed = line.contains("closed") || line.contains("holiday");
+
+            List<int[]> ranges = new ArrayList<>();
+            Matcher m = TIME_RANGE.matcher(line);
+            while (m.find()) {
+                int[] range = toRange(m);
+                if (range != null) ranges.add(range);
+            }
+            if (ranges.isEmpty() && !closed) continue;
+
+            if (days.isEmpty()) days = EnumSet.allOf(DayOfWeek.class);
+            for (DayOfWeek day : days) {
+                // A later line for the same day replaces the earlier one ("Daily 9-5" then "Sun closed")
+                result.hours.put(day, closed ? new ArrayList<>() : merge(ranges));
+            }
+            any = true;
+        }
+        return any ? result : null;
+    }
+
+    private static Set<DayOfWeek> parseDays(String line) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        if (line.contains("daily") || line.contains("everyday") || line.contains("every day") || line.contains("all days")) {
+            return EnumSet.allOf(DayOfWeek.class);
+        }
+        Matcher range = DAY_RANGE.matcher(line);
+        while (range.find()) {
+            int from = DAY_KEYS.indexOf(range.group(1));
+            int to = DAY_KEYS.indexOf(range.group(2));
+            for (int i = from; ; i = (i + 1) % 7) {
+                days.add(DayOfWeek.of(i + 1));
+                if (i == to) break;
+            }
+        }
+        String rest = DAY_RANGE.matcher(line).replaceAll(" ");
+        Matcher single = SINGLE_DAY.matcher(rest);
+        while (single.find()) {
+            days.add(DayOfWeek.of(DAY_KEYS.indexOf(single.group(1)) + 1));
+        }
+        return days;
+    }
+
+    private static int[] toRange(Matcher m) {
+        int startHour = Integer.parseInt(m.group(1));
+        int startMin = m.group(2) != null ? Integer.parseInt(m.group(2)) : 0;
+        String startAmPm = m.group(3);
+        int endHour = Integer.parseInt(m.group(4));
+        int endMin = m.group(5) != null ? Integer.parseInt(m.group(5)) : 0;
+        String endAmPm = m.group(6);
+
+        // "9 - 5pm" means 9am; "1 - 5pm" means 1pm
+        if (startAmPm == null && endAmPm != null) {
+            startAmPm = startHour % 12 > endHour % 12 ? "am" : endAmPm;
+        }
+        int start = to24h(startHour, startAmPm) * 60 + startMin;
+        int end = to24h(endHour, endAmPm) * 60 + endMin;
+        // "9-5" without am/pm: assume the afternoon
+        if (endAmPm == null && end <= start && endHour < 12) end += 12 * 60;
+        if (end == 0) end = 24 * 60; // "... - 12am" / "... - 00:00"
+        return start < end && end <= 24 * 60 ? new int[]{start, end} : null;
+    }
+
+    private static int to24h(int hour, String amPm) {
+        if (amPm == null) return hour;
+        hour = hour % 12;
+        return "pm".equals(amPm) ? hour + 12 : hour;
+    }
+
+    private static List<int[]> merge(List<int[]> ranges) {
+        ranges.sort(Comparator.comparingInt(r -> r[0]));
+        List<int[]> merged = new ArrayList<>();
+        for (int[] r : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && r[0] <= last[1]) {
+                last[1] = Math.max(last[1], r[1]);
+            } else {
+                merged.add(new int[]{r[0], r[1]});
+            }
+        }
+        return merged;
+    }
+}
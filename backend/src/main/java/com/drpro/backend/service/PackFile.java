@@ -0,0 +1,310 @@
+package com.drpro.backend.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * One append-only pack of cold uploads: pack-000042.dat holds the files back to back,
+ * pack-000042.idx is a text log of where each one starts ("+ name offset length crc") and
+ * which ones were removed ("- name").
+ *
+ * Every entry in the .dat also carries its own header (magic, name, length, CRC32), so a lost
+ * or half-written .idx is rebuilt by walking the data, and a half-written entry at the end
+ * (crash while packing) is cut off on open. Reads go through one read-only memory map.
+ */
+public class PackFile implements Closeable {
+
+    private static final int MAGIC = 0x4452504B; // "DRPK"
+    private static final int MAX_NAME_BYTES = 255;
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    /** Where one packed file's bytes are. */
+    public record Entry(int pack, long offset, long length, int crc) {
+    }
+
+    /** Receives the index as it is read back. */
+    public interface IndexVisitor {
+        void put(String name, Entry entry);
+
+        void remove(String name, int pack);
+    }
+
+    private final int number;
+    private final Path dataPath;
+    private final Path indexPath;
+    private final FileChannel data;
+    private final FileChannel index;
+    private long end; // End of the last complete entry
+    private MappedByteBuffer mapped;
+
+    private PackFile(int number, Path dataPath, Path indexPath) throws IOException {
+        this.number = number;
+        this.dataPath = dataPath;
+        this.indexPath = indexPath;
+        this.data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public static String dataName(int number) {
+        return String.format("pack-%06d.dat", number);
+    }
+
+    public static String indexName(int number) {
+        return String.format("pack-%06d.idx", number);
+    }
+
+    /** Opens (or creates) a pack and replays its index into the visitor, repairing the tail if needed. */
+    public static PackFile open(Path dir, int number, IndexVisitor visitor) throws IOException {
+        PackFile pack = new PackFile(number, dir.resolve(dataName(number)), dir.resolve(indexName(number)));
+        try {
+            pack.load(visitor);
+        } catch (IOException | RuntimeException e) {
+            pack.close();
+            throw e;
+        }
+        return pack;
+    }
+
+    // ================= LOAD / RECOVER =================
+
+    private void load(IndexVisitor visitor) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] f = line.split("\t");
+                if (f.length == 5 && f[0].equals("+")) {
+                    try {
+                        Entry entry = new Entry(number, Long.parseLong(f[2]), Long.parseLong(f[3]), Integer.parseInt(f[4]));
+                        if (entry.offset() + entry.length() <= data.size()) {
+                            visitor.put(f[1], entry);
+                            end = Math.max(end, entry.offset() + entry.length());
+                        }
+                    } catch (NumberFormatException torn) {
+                        // Last line cut short by a crash: the data walk below recovers it
+                    }
+                } else if (f.length == 2 && f[0].equals("-")) {
+                    visitor.remove(f[1], number);
+                }
+            }
+        }
+        // A torn last line must not swallow the next one we write
+        if (index.size() > 0) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            index.read(last, index.size() - 1);
+            if (last.get(0) != '\n') writeIndex("\n");
+        }
+        if (data.size() > end) recover(visitor);
+    }
+
+    // Entries written to the .dat but missing from the .idx: re-index the good ones, cut off the rest
+    private void recover(IndexVisitor visitor) throws IOException {
+        long pos = end;
+        int recovered = 0;
+        while (true) {
+            ByteBuffer fixed = ByteBuffer.allocate(6);
+            if (data.read(fixed, pos) < 6 || fixed.getInt(0) != MAGIC) break;
+            int nameLength = fixed.getShort(4) & 0xFFFF;
+            if (nameLength == 0 || nameLength > MAX_NAME_BYTES) break;
+            ByteBuffer rest = ByteBuffer.allocate(nameLength + 12);
+            if (data.read(rest, pos + 6) < rest.capacity()) break;
+            String name = new String(rest.array(), 0, nameLength, StandardCharsets.UTF_8);
+            long length = rest.getLong(nameLength);
+            int crc = rest.getInt(nameLength + 8);
+            long offset = pos + 6 + nameLength + 12;
+            if (length < 0 || offset + length > data.size() || crcOf(offset, length) != crc) break;
+
+            Entry entry = new Entry(number, offset, length, crc);
+            writeIndex(indexLine(name, entry));
+            visitor.put(name, entry);
+            pos = offset + length;
+            recovered++;
+        }
+        if (pos < data.size()) {
+            System.err.println("⚠️ " + dataName(number) + ": dropping " + (data.size() - pos) + " bytes of an unfinished entry");
+            data.truncate(pos);
+        }
+        if (recovered > 0) System.out.println("🩹 " + dataName(number) + ": re-indexed " + recovered + " entries");
+        index.force(false);
+        end = pos;
+    }
+
+    private int crcOf(long offset, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER);
+        long pos = offset;
+        long remaining = length;
+        while (remaining > 0) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+            int n = data.read(buffer, pos);
+            if (n <= 0) return ~0; // Cannot match: data is short
+            buffer.flip();
+            crc.update(buffer);
+            pos += n;
+            remaining -= n;
+        }
+        return (int) crc.getValue();
+    }
+
+    // ================= WRITE =================
+
+    /** Bytes an entry for this name and length takes in the pack. */
+    public static long footprint(String name, long length) {
+        return 6 + name.getBytes(StandardCharsets.UTF_8).length + 12 + length;
+    }
+
+    /**
+     * Appends 'length' bytes from 'in' under 'name'. The entry is on disk (data and index forced)
+     * before this returns, so the caller may delete the loose original afterwards.
+     */
+    public synchronized Entry append(String name, InputStream in, long length) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length == 0 || nameBytes.length > MAX_NAME_BYTES || name.contains("\t") || name.contains("\n")) {
+            throw new IllegalArgumentException("Cannot pack a file named '" + name + "'");
+        }
+        long start = end;
+        long offset = start + 6 + nameBytes.length + 12;
+
+        // Data first, header last: a crash in between leaves no valid header, so recovery cuts it off
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[COPY_BUFFER];
+        long pos = offset;
+        long remaining = length;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0) {
+                data.truncate(start);
+                throw new IOException("'" + name + "' ended after " + (length - remaining) + " of " + length + " bytes");
+            }
+            crc.update(buffer, 0, n);
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+            while (chunk.hasRemaining()) pos += data.write(chunk, pos);
+            remaining -= n;
+        }
+        ByteBuffer header = ByteBuffer.allocate(6 + nameBytes.length + 12);
+        header.putInt(MAGIC).putShort((short) nameBytes.length).put(nameBytes).putLong(length).putInt((int) crc.getValue()).flip();
+        while (header.hasRemaining()) data.write(header, start + header.position());
+        data.force(false);
+
+        Entry entry = new Entry(number, offset, length, (int) crc.getValue());
+        writeIndex(indexLine(name, entry));
+        index.force(false);
+        end = offset + length;
+        return entry;
+    }
+
+    /** Records that 'name' is no longer in this pack. Space comes back when the pack is compacted. */
+    public synchronized void remove(String name) throws IOException {
+        writeIndex("-\t" + name + "\n");
+        index.force(false);
+    }
+
+    private static String indexLine(String name, Entry entry) {
+        return "+\t" + name + "\t" + entry.offset() + "\t" + entry.length() + "\t" + entry.crc() + "\n";
+    }
+
+    private void writeIndex(String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        long pos = index.size();
+        while (bytes.hasRemaining()) pos += index.write(bytes, pos);
+    }
+
+    // ================= READ =================
+
+    /** Read-only view of an entry's bytes, straight from the memory map (no copy, no heap). */
+    public ByteBuffer slice(Entry entry) throws IOException {
+        MappedByteBuffer map = mapped;
+        if (map == null || entry.offset() + entry.length() > map.capacity()) {
+            synchronized (this) {
+                // The pack grew since it was mapped: map the new end too
+                if (mapped == null || entry.offset() + entry.length() > mapped.capacity()) {
+                    mapped = data.map(FileChannel.MapMode.READ_ONLY, 0, end);
+                }
+                map = mapped;
+            }
+        }
+        return map.slice((int) entry.offset(), (int) entry.length());
+    }
+
+    /** Streams a slice without copying it to the heap first. */
+    public static class SliceInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        public SliceInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    // ================= HOUSEKEEPING =================
+
+    public int getNumber() {
+        return number;
+    }
+
+    public synchronized long size() {
+        return end;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * Closes and deletes the pack. A mapped file cannot be deleted on Windows until the map is
+     * garbage collected, so then a .dead marker is left and the next start finishes the job.
+     */
+    public void delete() throws IOException {
+        close();
+        try {
+            Files.deleteIfExists(dataPath);
+            Files.deleteIfExists(indexPath);
+        } catch (IOException stillMapped) {
+            Files.writeString(deadMarker(dataPath.getParent(), number), "");
+        }
+    }
+
+    public static Path deadMarker(Path dir, int number) {
+        return dir.resolve(String.format("pack-%06d.dead", number));
+    }
+}
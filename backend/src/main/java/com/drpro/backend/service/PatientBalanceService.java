@@ -0,0 +1,186 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.PatientBalanceDTO;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.event.TenantReadyEvent;
+import com.drpro.backend.model.*;
+import com.drpro.backend.repository.PatientBalanceRepository;
+import com.drpro.backend.repository.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Per-patient ledger: what was charged, what was paid and what is still outstanding.
+ *
+ * EntityChangeEvents are published synchronously from Hibernate's flush, so the
+ * delta upserts below run on the same connection and commit or roll back together
+ * with the write that caused them. JDBC bulk writers call add() themselves.
+ */
+@Service
+@TenantScoped
+public class PatientBalanceService {
+
+    public static final int MAX_TOP = 500;
+
+    // One statement, no read-modify-write race: the row lock is held until commit. Books nothing for a
+    // patient that no longer exists (their appointments / payments outlive them), like REBUILD_SQL's join
+    private static final String UPSERT_SQL =
+            "INSERT INTO patient_balances (patient_id, charged, paid, outstanding, updated_at)"
+                    + " SELECT p.id, ?, ?, ?, ? FROM patients p WHERE p.id = ?"
+                    + " ON DUPLICATE KEY UPDATE charged = charged + VALUES(charged), paid = paid + VALUES(paid),"
+                    + " outstanding = outstanding + VALUES(outstanding), updated_at = VALUES(updated_at)";
+
+    private static final String REBUILD_SQL =
+            "INSERT INTO patient_balances (patient_id, charged, paid, outstanding, updated_at)"
+                    + " SELECT x.patient_id, SUM(x.charged), SUM(x.paid), SUM(x.charged) - SUM(x.paid), ? FROM ("
+                    + "   SELECT t.patient_id, r.cost AS charged, 0.0 AS paid FROM treatment_table_rows r"
+                    + "     JOIN treatment_tables t ON t.id = r.treatment_table_id WHERE r.cost IS NOT NULL"
+                    + "   UNION ALL SELECT patient_id, cost, 0.0 FROM appointments WHERE cost IS NOT NULL"
+                    + "   UNION ALL SELECT patient_id, cost, 0.0 FROM dental_records WHERE cost IS NOT NULL"
+                    + "   UNION ALL SELECT patient_id, 0.0, amount FROM payments WHERE amount IS NOT NULL"
+                    + " ) x JOIN patients p ON p.id = x.patient_id GROUP BY x.patient_id";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PatientBalanceRepository balanceRepo;
+
+    @Autowired
+    private PatientRepository patientRepo;
+
+    // ================= LEDGER WRITES =================
+
+    public void add(Long patientId, double charged, double paid) {
+        if (patientId == null || (charged == 0 && paid == 0)) return;
+        jdbc.update(UPSERT_SQL, charged, paid, charged - paid, Timestamp.valueOf(LocalDateTime.now()), patientId);
+    }
+
+    /** patientId -> {charged, paid}, written as one JDBC batch. */
+    public void addAll(Map<Long, double[]> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        deltas.forEach((patientId, d) -> {
+            if (patientId != null && (d[0] != 0 || d[1] != 0)) {
+                args.add(new Object[]{d[0], d[1], d[0] - d[1], now, patientId});
+            }
+        });
+        if (!args.isEmpty()) jdbc.batchUpdate(UPSERT_SQL, args);
+    }
+
+    // Not @TransactionalEventListener: this must run inside the writing transaction
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof Payment p) {
+            apply(event, p.getPatientId(), p.getAmount(), "amount", true);
+        } else if (entity instanceof Appointment a) {
+            apply(event, a.getPatientId(), a.getCost(), "cost", false);
+        } else if (entity instanceof DentalRecord d) {
+            apply(event, d.getPatientId(), d.getCost(), "cost", false);
+        } else if (entity instanceof TreatmentTableRow r && r.getTreatmentTable() != null) {
+            // Rows never move between tables; getId() on the lazy parent does not load it
+            apply(event, patientOfTable(r.getTreatmentTable().getId()), r.getCost(), "cost", false);
+        } else if (entity instanceof Patient && event.getType() == EntityChangeEvent.Type.DELETE) {
+            jdbc.update("DELETE FROM patient_balances WHERE patient_id = ?", event.getEntityId());
+        }
+    }
+
+    private void apply(EntityChangeEvent event, Long patientId, Double amount, String amountField, boolean payment) {
+        double value = amount != null ? amount : 0;
+        switch (event.getType()) {
+            case INSERT -> book(patientId, value, payment);
+            case DELETE -> book(patientId, -value, payment);
+            case UPDATE -> {
+                Map<String, Object> previous = event.getPrevious();
+                if (previous == null || (!previous.containsKey("patientId") && !previous.containsKey(amountField))) return;
+                Long oldPatientId = previous.containsKey("patientId") ? (Long) previous.get("patientId") : patientId;
+                Object oldAmount = previous.containsKey(amountField) ? previous.get(amountField) : amount;
+                book(oldPatientId, oldAmount instanceof Number n ? -n.doubleValue() : 0, payment);
+                book(patientId, value, payment);
+            }
+        }
+    }
+
+    private void book(Long patientId, double value, boolean payment) {
+        if (payment) add(patientId, 0, value);
+        else add(patientId, value, 0);
+    }
+
+    public Long patientOfTable(Long tableId) {
+        List<Long> ids = jdbc.queryForList("SELECT patient_id FROM treatment_tables WHERE id = ?", Long.class, tableId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    // ================= REBUILD =================
+
+    /** Recomputes every balance from the source tables. Returns the number of patients with a balance. */
+    @Transactional
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        jdbc.update("DELETE FROM patient_balances");
+        int rows = jdbc.update(REBUILD_SQL, Timestamp.valueOf(LocalDateTime.now()));
+        System.out.println("💰 Patient balances rebuilt: " + rows + " patients in " + (System.currentTimeMillis() - start) + " ms");
+        return rows;
+    }
+
+    // First start on an existing database: build the ledger once
+    @EventListener(TenantReadyEvent.class)
+    public void init() {
+        if (balanceRepo.count() == 0 && patientRepo.count() > 0) {
+            rebuild();
+        }
+    }
+
+    // ================= READS =================
+
+    public PatientBalanceDTO getBalance(Long patientId) {
+        Patient patient = patientRepo.findById(patientId)
+                .orElseThrow(() -> new RuntimeException("Patient not found with id " + patientId));
+        PatientBalanceDTO dto = toDTO(balanceRepo.findById(patientId).orElse(null), patientId);
+        dto.setPatientName(patient.getName());
+        return dto;
+    }
+
+    public List<PatientBalanceDTO> topOutstanding(int limit) {
+        List<PatientBalance> top = balanceRepo.findByOutstandingGreaterThanOrderByOutstandingDesc(
+                0.0, PageRequest.of(0, Math.max(1, Math.min(limit, MAX_TOP))));
+
+        Map<Long, String> names = new HashMap<>();
+        patientRepo.findAllById(top.stream().map(PatientBalance::getPatientId).toList())
+                .forEach(p -> names.put(p.getId(), p.getName()));
+
+        List<PatientBalanceDTO> result = new ArrayList<>();
+        for (PatientBalance b : top) {
+            PatientBalanceDTO dto = toDTO(b, b.getPatientId());
+            dto.setPatientName(names.get(b.getPatientId()));
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private static PatientBalanceDTO toDTO(PatientBalance b, Long patientId) {
+        PatientBalanceDTO dto = new PatientBalanceDTO();
+        dto.setPatientId(patientId);
+        if (b != null) {
+            dto.setCharged(round(b.getCharged()));
+            dto.setPaid(round(b.getPaid()));
+            dto.setOutstanding(round(b.getOutstanding()));
+        }
+        return dto;
+    }
+
+    // Deltas are doubles; don't show 1499.9999999
+    private static double round(Double value) {
+        return value != null ? Math.round(value * 100) / 100.0 : 0;
+    }
+}
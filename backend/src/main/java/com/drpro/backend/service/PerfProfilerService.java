@@ -0,0 +1,259 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.RequestTiming;
+import com.drpro.backend.dto.EndpointStatDTO;
+import com.drpro.backend.dto.NPlusOneDTO;
+import com.drpro.backend.dto.PerfReportDTO;
+import com.drpro.backend.dto.QueryStatDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded profiler, always on: every SQL statement (fed by the timed DataSource in
+ * RequestTimingConfig) and every request (fed by RequestTimingFilter), grouped by statement
+ * shape and by endpoint, plus statements repeated within one request (N+1 loops).
+ *
+ * Bounded memory: a fixed number of shapes and endpoints, and the p99 comes from a ring of the
+ * most recent samples of each. Recording is a few atomic adds; sorting only happens on report.
+ */
+@Service
+public class PerfProfilerService {
+
+    private static final int SAMPLES = 1024; // Ring size per statement / endpoint (power of two)
+    private static final int MAX_SQL_LENGTH = 1000;
+    private static final int MAX_CACHED_FINGERPRINTS = 4096;
+    private static final String UNMAPPED = "(unmapped)";
+
+    // Literals and parameter lists, so "where id=7" and "where id=8" are the same statement
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\.\\.\\.\\)(?:\\s*,\\s*\\(\\?\\.\\.\\.\\))+");
+
+    @Value("${perf.profiler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${perf.profiler.max-statements:500}")
+    private int maxStatements;
+
+    @Value("${perf.profiler.max-endpoints:300}")
+    private int maxEndpoints;
+
+    // Same statement this many times in one request = N+1 suspect
+    @Value("${perf.profiler.repeat-threshold:10}")
+    private int repeatThreshold;
+
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private volatile Profile profile = new Profile();
+
+    private static class Profile {
+        final LocalDateTime since = LocalDateTime.now();
+        final Map<String, Stat> statements = new ConcurrentHashMap<>();
+        final Map<String, EndpointStat> endpoints = new ConcurrentHashMap<>();
+        final Map<String, Repeat> repeats = new ConcurrentHashMap<>(); // endpoint + \n + sql
+        final LongAdder statementCount = new LongAdder();
+        final LongAdder requestCount = new LongAdder();
+        final LongAdder untracked = new LongAdder();
+    }
+
+    private static class Stat {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLong next = new AtomicLong();
+        final long[] ring = new long[SAMPLES];
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            ring[(int) (next.getAndIncrement() & (SAMPLES - 1))] = nanos;
+        }
+
+        long p99() {
+            int n = (int) Math.min(next.get(), SAMPLES);
+            if (n == 0) return 0;
+            long[] sorted = Arrays.copyOf(ring, n);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(n * 0.99) - 1];
+        }
+    }
+
+    private static class EndpointStat extends Stat {
+        final LongAdder errors = new LongAdder();
+        final LongAdder statements = new LongAdder();
+    }
+
+    private static class Repeat {
+        final LongAdder requests = new LongAdder();
+        final AtomicLong maxRepeats = new AtomicLong();
+    }
+
+    // ================= RECORDING =================
+
+    /** One executed statement. Called from the JDBC proxy, on the thread that ran it. */
+    public void recordStatement(String sql, long nanos) {
+        if (!enabled || sql == null) return;
+        String fingerprint = fingerprint(sql);
+        Profile p = profile;
+        p.statementCount.increment();
+        Stat stat = p.statements.get(fingerprint);
+        if (stat == null) {
+            if (p.statements.size() >= maxStatements) {
+                p.untracked.increment();
+                return;
+            }
+            stat = p.statements.computeIfAbsent(fingerprint, k -> new Stat());
+        }
+        stat.record(nanos);
+
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) timing.countStatement(fingerprint);
+    }
+
+    /** One finished request. 'pattern' is the mapped path (e.g. /api/patients/{id}), or null. */
+    public void recordRequest(String method, String pattern, int status, long nanos, Map<String, Integer> statements) {
+        if (!enabled) return;
+        String endpoint = method + " " + (pattern != null ? pattern : UNMAPPED);
+        Profile p = profile;
+        p.requestCount.increment();
+        EndpointStat stat = p.endpoints.get(endpoint);
+        if (stat == null) {
+            if (p.endpoints.size() >= maxEndpoints) endpoint = method + " " + UNMAPPED;
+            stat = p.endpoints.computeIfAbsent(endpoint, k -> new EndpointStat());
+        }
+        stat.record(nanos);
+        if (status >= 500) stat.errors.increment();
+
+        long total = 0;
+        for (Map.Entry<String, Integer> e : statements.entrySet()) {
+            total += e.getValue();
+            if (e.getValue() >= repeatThreshold) {
+                Repeat repeat = p.repeats.computeIfAbsent(endpoint + "\n" + e.getKey(), k -> new Repeat());
+                repeat.requests.increment();
+                repeat.maxRepeats.accumulateAndGet(e.getValue(), Math::max);
+            }
+        }
+        stat.statements.add(total);
+    }
+
+    String fingerprint(String sql) {
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = normalize(sql);
+            if (fingerprints.size() >= MAX_CACHED_FINGERPRINTS) fingerprints.clear(); // Ad-hoc SQL with inlined values
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    static String normalize(String sql) {
+        String s = STRING_LITERAL.matcher(sql).replaceAll("?");
+        s = NUMBER_LITERAL.matcher(s).replaceAll("?");
+        s = WHITESPACE.matcher(s).replaceAll(" ").trim();
+        s = PARAMETER_LIST.matcher(s).replaceAll("(?...)");
+        s = ROW_LIST.matcher(s).replaceAll("(?...), ...");
+        return s.length() > MAX_SQL_LENGTH ? s.substring(0, MAX_SQL_LENGTH) + "..." : s;
+    }
+
+    // ================= REPORT =================
+
+    public PerfReportDTO getReport(int top, String sort) {
+        Comparator<Snapshot> order = switch (sort) {
+            case "total" -> Comparator.comparingLong(Snapshot::totalNanos);
+            case "avg" -> Comparator.comparingLong(Snapshot::avgNanos);
+            case "p99" -> Comparator.comparingLong(Snapshot::p99Nanos);
+            case "max" -> Comparator.comparingLong(Snapshot::maxNanos);
+            case "count" -> Comparator.comparingLong(Snapshot::count);
+            default -> throw new IllegalArgumentException("sort must be one of total, avg, p99, max, count");
+        };
+        Profile p = profile;
+        PerfReportDTO report = new PerfReportDTO();
+        report.setSince(p.since);
+        report.setStatements(p.statementCount.sum());
+        report.setRequests(p.requestCount.sum());
+        report.setUntrackedStatements(p.untracked.sum());
+
+        report.setQueries(p.statements.entrySet().stream()
+                .map(e -> Snapshot.of(e.getKey(), e.getValue()))
+                .sorted(order.reversed())
+                .limit(top)
+                .map(s -> {
+                    QueryStatDTO dto = new QueryStatDTO();
+                    dto.setSql(s.key());
+                    dto.setCount(s.count());
+                    dto.setTotalMs(millis(s.totalNanos()));
+                    dto.setAvgMs(millis(s.avgNanos()));
+                    dto.setP99Ms(millis(s.p99Nanos()));
+                    dto.setMaxMs(millis(s.maxNanos()));
+                    return dto;
+                })
+                .toList());
+
+        report.setEndpoints(p.endpoints.entrySet().stream()
+                .map(e -> Snapshot.of(e.getKey(), e.getValue()))
+                .sorted(order.reversed())
+                .limit(top)
+                .map(s -> {
+                    EndpointStat stat = p.endpoints.get(s.key());
+                    EndpointStatDTO dto = new EndpointStatDTO();
+                    dto.setEndpoint(s.key());
+                    dto.setCount(s.count());
+                    dto.setErrors(stat.errors.sum());
+                    dto.setTotalMs(millis(s.totalNanos()));
+                    dto.setAvgMs(millis(s.avgNanos()));
+                    dto.setP99Ms(millis(s.p99Nanos()));
+                    dto.setMaxMs(millis(s.maxNanos()));
+                    dto.setAvgStatements(round((double) stat.statements.sum() / Math.max(1, s.count())));
+                    return dto;
+                })
+                .toList());
+
+        report.setRepeatedQueries(p.repeats.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Repeat> e) -> e.getValue().requests.sum()).reversed())
+                .limit(top)
+                .map(e -> {
+                    String[] key = e.getKey().split("\n", 2);
+                    NPlusOneDTO dto = new NPlusOneDTO();
+                    dto.setEndpoint(key[0]);
+                    dto.setSql(key[1]);
+                    dto.setRequests(e.getValue().requests.sum());
+                    dto.setMaxRepeats(e.getValue().maxRepeats.get());
+                    return dto;
+                })
+                .toList());
+        return report;
+    }
+
+    // Read once per report, so sorting by p99 does not re-sort the sample ring on every compare
+    private record Snapshot(String key, long count, long totalNanos, long avgNanos, long p99Nanos, long maxNanos) {
+        static Snapshot of(String key, Stat stat) {
+            long count = stat.count.sum();
+            long total = stat.totalNanos.sum();
+            return new Snapshot(key, count, total, count == 0 ? 0 : total / count, stat.p99(), stat.maxNanos.get());
+        }
+    }
+
+    public void reset() {
+        profile = new Profile();
+        System.out.println("🔄 Performance profile reset");
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,149 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.ProcedureSuggestionDTO;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.event.TenantReadyEvent;
+import com.drpro.backend.model.ProcedureItem;
+import com.drpro.backend.repository.ProcedureItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Procedure autocomplete from an immutable snapshot of the catalog.
+ *
+ * Every word start of every description ("root canal" -> "root canal", "canal") is a key in
+ * one sorted array, so a prefix lookup is a binary search plus a short scan. Writes never
+ * touch a live snapshot: a new one is built after commit and swapped in with a single
+ * volatile write, so readers need no locks.
+ */
+@Service
+@TenantScoped
+public class ProcedureCatalogService {
+
+    public static final int MAX_LIMIT = 50;
+
+    @Autowired
+    private ProcedureItemRepository procedureRepo;
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+
+    private static final class Snapshot {
+        final String[] keys;                 // Sorted, lower case
+        final int[] itemOf;                  // keys[i] belongs to items[itemOf[i]]
+        final boolean[] wholeName;           // keys[i] starts at the beginning of the description
+        final ProcedureSuggestionDTO[] items;
+
+        private Snapshot(String[] keys, int[] itemOf, boolean[] wholeName, ProcedureSuggestionDTO[] items) {
+            this.keys = keys;
+            this.itemOf = itemOf;
+            this.wholeName = wholeName;
+            this.items = items;
+        }
+
+        static Snapshot build(List<ProcedureItem> catalog) {
+            ProcedureSuggestionDTO[] items = new ProcedureSuggestionDTO[catalog.size()];
+            List<Object[]> entries = new ArrayList<>(); // {key, item, wholeName}
+            for (int i = 0; i < items.length; i++) {
+                ProcedureItem p = catalog.get(i);
+                items[i] = new ProcedureSuggestionDTO(p.getId(), p.getDescription(), p.getPrice());
+                String name = normalize(p.getDescription());
+                for (int pos = 0; pos < name.length(); pos++) {
+                    if (pos == 0 || isWordStart(name, pos)) {
+                        entries.add(new Object[]{name.substring(pos), i, pos == 0});
+                    }
+                }
+            }
+            entries.sort(Comparator.comparing(e -> (String) e[0]));
+
+            String[] keys = new String[entries.size()];
+            int[] itemOf = new int[entries.size()];
+            boolean[] wholeName = new boolean[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = (String) entries.get(i)[0];
+                itemOf[i] = (Integer) entries.get(i)[1];
+                wholeName[i] = (Boolean) entries.get(i)[2];
+            }
+            return new Snapshot(keys, itemOf, wholeName, items);
+        }
+    }
+
+    // ================= LOOKUP =================
+
+    /**
+     * Up to 'limit' procedures with a word starting with 'query'. Names starting with it come
+     * first, then shorter names (closer matches), then alphabetical.
+     */
+    public List<ProcedureSuggestionDTO> suggest(String query, int limit) {
+        Snapshot s = snapshot; // One read: the whole lookup sees the same catalog
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return Arrays.asList(Arrays.copyOf(s.items, Math.min(limit, s.items.length)));
+        }
+
+        int from = lowerBound(s.keys, prefix);
+        Map<Integer, Boolean> matches = new HashMap<>(); // item -> matched from the start of its name
+        for (int i = from; i < s.keys.length && s.keys[i].startsWith(prefix); i++) {
+            matches.merge(s.itemOf[i], s.wholeName[i], Boolean::logicalOr);
+        }
+
+        List<Integer> ranked = new ArrayList<>(matches.keySet());
+        ranked.sort(Comparator.<Integer, Boolean>comparing(item -> !matches.get(item))
+                .thenComparingInt(item -> s.items[item].getDescription().length())
+                .thenComparing(item -> s.items[item].getDescription(), String.CASE_INSENSITIVE_ORDER));
+
+        List<ProcedureSuggestionDTO> result = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            result.add(s.items[ranked.get(i)]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshot.items.length;
+    }
+
+    private static int lowerBound(String[] keys, String prefix) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) return "";
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isWordStart(String name, int pos) {
+        char before = name.charAt(pos - 1);
+        return Character.isLetterOrDigit(name.charAt(pos)) && !Character.isLetterOrDigit(before);
+    }
+
+    // ================= REBUILD =================
+
+    @EventListener(TenantReadyEvent.class)
+    public synchronized void rebuild() {
+        snapshot = Snapshot.build(procedureRepo.findAll());
+    }
+
+    // After commit, so the new snapshot never contains a rolled-back write
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if ("procedure_items".equals(event.getTable())) rebuild();
+    }
+
+    @EventListener
+    public void onBulkWrite(BulkWriteEvent event) {
+        if ("procedure_items".equals(event.getTable())) rebuild();
+    }
+}
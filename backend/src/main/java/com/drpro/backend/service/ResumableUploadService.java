@@ -0,0 +1,430 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.RequestTiming;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.UploadSessionDTO;
+import com.drpro.backend.dto.UploadSessionRequestDTO;
+import com.drpro.backend.event.SyncRevisionListener;
+import com.drpro.backend.model.Appointment;
+import com.drpro.backend.model.DentalRecord;
+import com.drpro.backend.repository.AppointmentRepository;
+import com.drpro.backend.repository.DentalRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable uploads for scans too big to survive one request over clinic Wi-Fi.
+ *
+ * A session is two files under upload-sessions/: the bytes received so far (<id>.part) and a
+ * small JSON sidecar (<id>.json). The current offset is simply the .part file's length, so it
+ * is exact even after a dropped connection or a server restart, and a retry only re-sends
+ * what is missing. On complete the .part file is renamed into uploads/ (same disk, no copy)
+ * and attached to its appointment or dental record. Idle sessions expire.
+ */
+@Service
+@TenantScoped
+public class ResumableUploadService {
+
+    private static final int COPY_BUFFER = 64 * 1024;
+    private static final String OPEN = "OPEN";
+    private static final String COMPLETE = "COMPLETE";
+
+    @Value("${upload.resumable.max-size:2GB}")
+    private DataSize maxSize;
+
+    @Value("${upload.resumable.expiry-hours:24}")
+    private long expiryHours;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepo;
+
+    @Autowired
+    private DentalRecordRepository dentalRecordRepo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Path sessionDir;
+
+    // One writer per session: a second PUT while the first is still streaming gets a 409
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public static class SessionNotFoundException extends RuntimeException {
+        public SessionNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public static class OffsetMismatchException extends RuntimeException {
+        private final long offset;
+
+        public OffsetMismatchException(String message, long offset) {
+            super(message);
+            this.offset = offset;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+    }
+
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public static class ChecksumMismatchException extends RuntimeException {
+        public ChecksumMismatchException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            // Next to uploads/ so the final rename never crosses disks (on a shared mount: any node can resume)
+            sessionDir = fileStorageService.getWorkDirectory().resolve("upload-sessions");
+            Files.createDirectories(sessionDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create upload session directory.", e);
+        }
+    }
+
+    // ================= SESSION LIFECYCLE =================
+
+    public UploadSessionDTO create(UploadSessionRequestDTO request) {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new IllegalArgumentException("fileName is required");
+        }
+        if (request.getSize() == null || request.getSize() <= 0) {
+            throw new IllegalArgumentException("size must be a positive number of bytes");
+        }
+        if (request.getSize() > maxSize.toBytes()) {
+            throw new StreamingUploadService.TooLargeException(
+                    "'" + request.getFileName() + "' is larger than " + maxSize.toMegabytes() + " MB");
+        }
+        if ((request.getAppointmentId() == null) == (request.getDentalRecordId() == null)) {
+            throw new IllegalArgumentException("Give exactly one of appointmentId or dentalRecordId");
+        }
+        checkTargetExists(request.getAppointmentId(), request.getDentalRecordId());
+
+        UploadSessionDTO session = new UploadSessionDTO();
+        session.setId(UUID.randomUUID().toString());
+        session.setFileName(Paths.get(request.getFileName()).getFileName().toString());
+        session.setContentType(StreamingUploadService.allowedType(session.getFileName()));
+        session.setSize(request.getSize());
+        session.setSha256(request.getSha256() != null ? request.getSha256().toLowerCase() : null);
+        session.setAppointmentId(request.getAppointmentId());
+        session.setDentalRecordId(request.getDentalRecordId());
+        session.setStatus(OPEN);
+        session.setCreatedAt(LocalDateTime.now());
+        try {
+            Files.createFile(partFile(session.getId()));
+            writeSidecar(session);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create upload session.", e);
+        }
+        return withProgress(session);
+    }
+
+    public UploadSessionDTO get(String id) {
+        return withProgress(readSidecar(id));
+    }
+
+    /**
+     * Appends one chunk. 'offset' must equal the bytes already received; whatever arrives is
+     * kept even if the connection drops halfway, so the client just asks for the offset again.
+     */
+    public UploadSessionDTO append(String id, long offset, InputStream body) {
+        try (RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.STORAGE)) {
+            return appendChunk(id, offset, body);
+        }
+    }
+
+    private UploadSessionDTO appendChunk(String id, long offset, InputStream body) {
+        readSidecar(id); // Unknown or expired ids never get a lock
+        ReentrantLock lock = lockOf(id);
+        if (!lock.tryLock()) {
+            throw new OffsetMismatchException("Another chunk for this upload is still being received", currentOffset(id));
+        }
+        try {
+            UploadSessionDTO session = readSidecar(id);
+            if (COMPLETE.equals(session.getStatus())) {
+                throw new OffsetMismatchException("Upload is already complete", session.getSize());
+            }
+            long current;
+            long position;
+            try (FileChannel channel = FileChannel.open(partFile(id), StandardOpenOption.WRITE)) {
+                current = channel.size();
+                if (offset != current) {
+                    throw new OffsetMismatchException("Expected offset " + current + ", got " + offset, current);
+                }
+                position = current;
+                byte[] buffer = new byte[COPY_BUFFER];
+                while (true) {
+                    int n;
+                    try {
+                        n = body.read(buffer);
+                    } catch (IOException dropped) {
+                        // Client went away mid-chunk: keep what arrived, the next PUT resumes from there
+                        System.out.println("📶 Upload " + id + " interrupted at " + position + " / " + session.getSize() + " bytes");
+                        break;
+                    }
+                    if (n < 0) break;
+                    if (position + n > session.getSize()) {
+                        channel.truncate(current); // The whole chunk is suspect
+                        throw new StreamingUploadService.TooLargeException(
+                                "Chunk runs past the declared size of " + session.getSize() + " bytes");
+                    }
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, n);
+                    while (bytes.hasRemaining()) position += channel.write(bytes, position);
+                }
+            }
+            // Reject a fake scan as soon as its first bytes are in, not after the whole upload
+            if (current < StreamingUploadService.SNIFF_BYTES
+                    && position >= Math.min(StreamingUploadService.SNIFF_BYTES, session.getSize())) {
+                checkMagic(session);
+            }
+            return withProgress(session);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store chunk.", e);
+        } finally {
+            unlock(id, lock);
+        }
+    }
+
+    /**
+     * Moves the finished file into the upload store and attaches it. Safe to repeat: a client that
+     * lost the first response gets the same result back until the session expires.
+     */
+    @Transactional
+    public UploadSessionDTO complete(String id) {
+        readSidecar(id);
+        ReentrantLock lock = lockOf(id);
+        if (!lock.tryLock()) {
+            throw new OffsetMismatchException("A chunk for this upload is still being received", currentOffset(id));
+        }
+        try {
+            UploadSessionDTO session = readSidecar(id);
+            if (COMPLETE.equals(session.getStatus())) return withProgress(session);
+
+            Path part = partFile(id);
+            long received = Files.size(part);
+            if (received != session.getSize()) {
+                throw new OffsetMismatchException("Only " + received + " of " + session.getSize() + " bytes received", received);
+            }
+            checkMagic(session);
+            String sha256 = hashOf(part);
+            if (session.getSha256() != null && !session.getSha256().equals(sha256)) {
+                discard(id);
+                throw new ChecksumMismatchException("Checksum mismatch for '" + session.getFileName() + "': upload it again");
+            }
+            checkTargetExists(session.getAppointmentId(), session.getDentalRecordId());
+
+            String key = fileStorageService.newKey(StreamingUploadService.extensionOf(session.getFileName()));
+            // Attached first, stored last: if the store fails the transaction rolls back and the
+            // .part file is still there, so complete can be retried
+            attach(session, key);
+            fileStorageService.put(key, part);
+
+            session.setStatus(COMPLETE);
+            session.setSha256(sha256);
+            session.setUrl(key);
+            writeSidecar(session);
+            System.out.println("📦 Resumable upload complete: " + session.getFileName() + " (" + session.getSize() + " bytes)");
+            return withProgress(session);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not complete upload.", e);
+        } finally {
+            unlock(id, lock);
+        }
+    }
+
+    public void cancel(String id) {
+        readSidecar(id);
+        discard(id);
+    }
+
+    // ================= ATTACH =================
+
+    private void checkTargetExists(Long appointmentId, Long dentalRecordId) {
+        if (appointmentId != null && !appointmentRepo.existsById(appointmentId)) {
+            throw new RuntimeException("Appointment not found with id " + appointmentId);
+        }
+        if (dentalRecordId != null && !dentalRecordRepo.existsById(dentalRecordId)) {
+            throw new RuntimeException("Dental record not found with id " + dentalRecordId);
+        }
+    }
+
+    // Same places the multipart endpoints put files: appointment gallery, or the record's X-Ray slot
+    private void attach(UploadSessionDTO session, String key) {
+        if (session.getAppointmentId() != null) {
+            Appointment app = appointmentRepo.findById(session.getAppointmentId())
+                    .orElseThrow(() -> new RuntimeException("Appointment not found with id " + session.getAppointmentId()));
+            app.getFileUrls().add(key);
+            // Collection-only change: make sure the sync revision moves too
+            SyncRevisionListener.markChanged(app);
+            appointmentRepo.save(app);
+        } else {
+            DentalRecord record = dentalRecordRepo.findById(session.getDentalRecordId())
+                    .orElseThrow(() -> new RuntimeException("Dental record not found with id " + session.getDentalRecordId()));
+            record.setAdditionalFileUrl(key);
+            record.setAdditionalFileName(session.getFileName());
+            dentalRecordRepo.save(record);
+        }
+    }
+
+    // ================= EXPIRY =================
+
+    // Hourly: drop sessions nobody has touched for expiry-hours (completed ones included)
+    @Scheduled(fixedRate = 3600000, initialDelay = 60000)
+    public void cleanupExpired() {
+        int removed = 0;
+        try (DirectoryStream<Path> sidecars = Files.newDirectoryStream(sessionDir, "*.json")) {
+            for (Path sidecar : sidecars) {
+                String id = sidecar.getFileName().toString().replace(".json", "");
+                try {
+                    UploadSessionDTO session = withProgress(readSidecar(id));
+                    if (session.getExpiresAt().isBefore(LocalDateTime.now()) && lockOf(id).tryLock()) {
+                        discard(id);
+                        removed++;
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("⚠️ Skipping upload session " + id + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Upload session cleanup failed: " + e.getMessage());
+        }
+        if (removed > 0) System.out.println("🧹 Removed " + removed + " expired upload sessions");
+    }
+
+    private void discard(String id) {
+        try {
+            Files.deleteIfExists(partFile(id));
+            Files.deleteIfExists(sidecarFile(id));
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not delete upload session " + id + ": " + e.getMessage());
+        } finally {
+            locks.remove(id);
+        }
+    }
+
+    // ================= FILES =================
+
+    private UploadSessionDTO withProgress(UploadSessionDTO session) {
+        Path part = partFile(session.getId());
+        LocalDateTime lastActivity = session.getCreatedAt();
+        try {
+            if (COMPLETE.equals(session.getStatus())) {
+                session.setOffset(session.getSize());
+                lastActivity = LocalDateTime.ofInstant(
+                        Files.getLastModifiedTime(sidecarFile(session.getId())).toInstant(), ZoneId.systemDefault());
+            } else {
+                session.setOffset(Files.size(part));
+                FileTime modified = Files.getLastModifiedTime(part);
+                LocalDateTime written = LocalDateTime.ofInstant(modified.toInstant(), ZoneId.systemDefault());
+                if (written.isAfter(lastActivity)) lastActivity = written;
+            }
+        } catch (IOException e) {
+            throw new SessionNotFoundException("Upload session " + session.getId() + " not found");
+        }
+        session.setExpiresAt(lastActivity.plus(Duration.ofHours(expiryHours)));
+        return session;
+    }
+
+    private long currentOffset(String id) {
+        return withProgress(readSidecar(id)).getOffset();
+    }
+
+    // Called with the .part file closed: Windows cannot delete a file that is still open
+    private void checkMagic(UploadSessionDTO session) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(partFile(session.getId()))) {
+            head = in.readNBytes(StreamingUploadService.SNIFF_BYTES);
+        }
+        if (!StreamingUploadService.matchesMagic(session.getContentType(), head)) {
+            discard(session.getId());
+            throw new StreamingUploadService.UnsupportedTypeException(
+                    "'" + session.getFileName() + "' is not a real " + session.getContentType() + " file");
+        }
+    }
+
+    private static String hashOf(Path file) throws IOException {
+        MessageDigest sha256 = StreamingUploadService.sha256();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[COPY_BUFFER];
+            int n;
+            while ((n = in.read(buffer)) > 0) sha256.update(buffer, 0, n);
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private UploadSessionDTO readSidecar(String id) {
+        try {
+            return objectMapper.readValue(sidecarFile(id).toFile(), UploadSessionDTO.class);
+        } catch (IOException e) {
+            throw new SessionNotFoundException("Upload session " + id + " not found (it may have expired)");
+        }
+    }
+
+    private void writeSidecar(UploadSessionDTO session) throws IOException {
+        Path sidecar = sidecarFile(session.getId());
+        Path tmp = sidecar.resolveSibling(session.getId() + ".json.tmp");
+        objectMapper.writeValue(tmp.toFile(), session);
+        Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private ReentrantLock lockOf(String id) {
+        return locks.computeIfAbsent(id, k -> new ReentrantLock());
+    }
+
+    // The session may have been discarded (or expired) between the check and the lock
+    private void unlock(String id, ReentrantLock lock) {
+        lock.unlock();
+        if (!Files.exists(sidecarFile(id))) locks.remove(id, lock);
+    }
+
+    private Path partFile(String id) {
+        return sessionDir.resolve(checkId(id) + ".part");
+    }
+
+    private Path sidecarFile(String id) {
+        return sessionDir.resolve(checkId(id) + ".json");
+    }
+
+    // Ids end up in file names: only accept what create() hands out
+    private static String checkId(String id) {
+        try {
+            if (UUID.fromString(id).toString().equals(id)) return id;
+        } catch (IllegalArgumentException ignored) {
+            // Fall through
+        }
+        throw new SessionNotFoundException("Upload session " + id + " not found");
+    }
+}
@@ -0,0 +1,306 @@
+package com.drpro.backend.service;
+
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Blobs as objects in an S3 bucket (AWS, or an S3-compatible server such as MinIO), under
+ * "<prefix><key>". Plain HTTP with Signature Version 4, so no SDK is needed for the four calls
+ * used here: PUT, GET, DELETE and ListObjectsV2.
+ *
+ * Uploads are staged on local disk first (the streaming and resumable uploads hash and check the
+ * bytes before they are accepted), then sent in one PUT. Files above 5 GB would need a multipart
+ * upload; the upload limits here are far below that.
+ */
+public class S3BlobStore implements BlobStore {
+
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final Duration CALL_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final URI endpoint;       // e.g. http://minio.local:9000 or https://s3.eu-central-1.amazonaws.com
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final boolean pathStyle;  // endpoint/bucket/key (MinIO) instead of bucket.endpoint/key
+    private final String prefix;      // e.g. "drpro/uploads/"
+    private final Path stagingDir;
+
+    public S3BlobStore(HttpClient http, String endpoint, String bucket, String region, String accessKey,
+                       String secretKey, boolean pathStyle, String prefix, Path stagingDir) throws IOException {
+        this.http = http;
+        this.endpoint = URI.create(endpoint.replaceAll("/+$", ""));
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.pathStyle = pathStyle;
+        this.prefix = prefix;
+        this.stagingDir = stagingDir;
+        Files.createDirectories(stagingDir);
+    }
+
+    // ================= BLOBS =================
+
+    @Override
+    public Path stagingPath(String key) {
+        return stagingDir.resolve(key + ".part");
+    }
+
+    @Override
+    public void put(String key, Path staged) throws IOException {
+        HttpResponse<InputStream> response = send("PUT", objectPath(key), Map.of(),
+                HttpRequest.BodyPublishers.ofFile(staged), null);
+        expect(response, "PUT " + key, 200);
+        response.body().close();
+        Files.deleteIfExists(staged);
+    }
+
+    @Override
+    public Resource get(String key) throws IOException {
+        HttpResponse<InputStream> response = send("GET", objectPath(key), Map.of(), HttpRequest.BodyPublishers.noBody(), null);
+        if (response.statusCode() == 404) {
+            response.body().close();
+            return null;
+        }
+        expect(response, "GET " + key, 200);
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        // Read once, straight through to the client
+        return new InputStreamResource(response.body(), "object [" + key + "] in bucket " + bucket) {
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public String getFilename() {
+                return key;
+            }
+        };
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        HttpResponse<InputStream> response = send("DELETE", objectPath(key), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), CALL_TIMEOUT);
+        expect(response, "DELETE " + key, 204, 200);
+        response.body().close();
+        return true; // S3 does not say whether the object existed
+    }
+
+    @Override
+    public void list(Consumer<BlobInfo> visitor) throws IOException {
+        String token = null;
+        do {
+            Map<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", prefix);
+            if (token != null) query.put("continuation-token", token);
+            HttpResponse<InputStream> response = send("GET", bucketPath(), query,
+                    HttpRequest.BodyPublishers.noBody(), CALL_TIMEOUT);
+            expect(response, "LIST " + prefix, 200);
+
+            Document page;
+            try (InputStream body = response.body()) {
+                page = parse(body);
+            }
+            NodeList contents = page.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element item = (Element) contents.item(i);
+                String key = text(item, "Key").substring(prefix.length());
+                if (key.isEmpty() || key.contains("/")) continue; // Not one of ours
+                visitor.accept(new BlobInfo(key, Long.parseLong(text(item, "Size")),
+                        Instant.parse(text(item, "LastModified"))));
+            }
+            token = "true".equals(text(page.getDocumentElement(), "IsTruncated"))
+                    ? text(page.getDocumentElement(), "NextContinuationToken") : null;
+        } while (token != null);
+    }
+
+    @Override
+    public Path localDirectory() {
+        return null;
+    }
+
+    @Override
+    public String describe() {
+        return "s3://" + bucket + "/" + prefix + " at " + endpoint;
+    }
+
+    // ================= HTTP =================
+
+    private String bucketPath() {
+        return pathStyle ? "/" + bucket : "/";
+    }
+
+    private String objectPath(String key) {
+        return (pathStyle ? "/" + bucket + "/" : "/") + prefix + key;
+    }
+
+    private HttpResponse<InputStream> send(String method, String path, Map<String, String> query,
+                                           HttpRequest.BodyPublisher body, Duration timeout) throws IOException {
+        String host = pathStyle ? endpoint.getHost() : bucket + "." + endpoint.getHost();
+        if (endpoint.getPort() != -1) host += ":" + endpoint.getPort();
+        String canonicalPath = encodePath(path);
+        String canonicalQuery = canonicalQuery(query);
+
+        String payloadHash = method.equals("PUT") ? UNSIGNED_PAYLOAD : EMPTY_SHA256;
+        String amzDate = AMZ_DATE.format(ZonedDateTime.now(ZoneOffset.UTC));
+        Map<String, String> headers = new TreeMap<>();
+        headers.put("host", host);
+        headers.put("x-amz-content-sha256", payloadHash);
+        headers.put("x-amz-date", amzDate);
+        String authorization = authorization(method, canonicalPath, canonicalQuery, headers, payloadHash,
+                amzDate, region, accessKey, secretKey);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(endpoint.getScheme() + "://" + host
+                        + canonicalPath + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery)))
+                .method(method, body)
+                .header("x-amz-content-sha256", payloadHash)
+                .header("x-amz-date", amzDate)
+                .header("Authorization", authorization);
+        if (timeout != null) request.timeout(timeout);
+        try {
+            return http.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted talking to " + endpoint, e);
+        }
+    }
+
+    private static void expect(HttpResponse<InputStream> response, String what, int... ok) throws IOException {
+        for (int status : ok) {
+            if (response.statusCode() == status) return;
+        }
+        String error;
+        try (InputStream body = response.body()) {
+            error = new String(body.readNBytes(1024), StandardCharsets.UTF_8);
+        }
+        // e.g. <Error><Code>AccessDenied</Code>...
+        int at = error.indexOf("<Code>");
+        String code = at >= 0 ? error.substring(at + 6, Math.max(at + 6, error.indexOf("</Code>"))) : "";
+        throw new IOException("S3 " + what + " failed: HTTP " + response.statusCode() + (code.isEmpty() ? "" : " " + code));
+    }
+
+    // ================= SIGNATURE V4 =================
+
+    /** The Authorization header for one request; 'headers' are the signed ones, lower-case names. */
+    static String authorization(String method, String canonicalPath, String canonicalQuery, Map<String, String> headers,
+                                String payloadHash, String amzDate, String region, String accessKey, String secretKey) {
+        Map<String, String> sorted = new TreeMap<>(headers);
+        String canonicalHeaders = sorted.entrySet().stream()
+                .map(h -> h.getKey() + ":" + h.getValue().trim() + "\n")
+                .collect(Collectors.joining());
+        String signedHeaders = String.join(";", sorted.keySet());
+        String canonicalRequest = method + "\n" + canonicalPath + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(key, stringToSign));
+
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature;
+    }
+
+    static String canonicalQuery(Map<String, String> query) {
+        return new TreeMap<>(query).entrySet().stream()
+                .map(e -> encode(e.getKey()) + "=" + encode(e.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    // Each segment encoded, the slashes kept
+    static String encodePath(String path) {
+        return Arrays.stream(path.split("/", -1)).map(S3BlobStore::encode).collect(Collectors.joining("/"));
+    }
+
+    // RFC 3986 unreserved characters stay, everything else is %XX (what SigV4 expects)
+    private static String encode(String value) {
+        StringBuilder out = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                out.append(c);
+            } else {
+                out.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+            }
+        }
+        return out.toString();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static String sha256Hex(String data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // ================= XML =================
+
+    private static Document parse(InputStream in) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            return factory.newDocumentBuilder().parse(in);
+        } catch (Exception e) {
+            throw new IOException("Unreadable S3 listing: " + e.getMessage(), e);
+        }
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : null;
+    }
+}
@@ -0,0 +1,326 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.dto.FreeSlotDTO;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.event.TenantReadyEvent;
+import com.drpro.backend.model.Appointment;
+import com.drpro.backend.model.ClinicSettings;
+import com.drpro.backend.repository.AppointmentRepository;
+import com.drpro.backend.repository.ClinicSettingsRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * In-memory, per-day interval index of booked appointment times.
+ *
+ * Each day keeps its bookings by id plus a merged, sorted array of busy intervals, so
+ * a conflict check is one binary search and a free-slot search just walks the gaps
+ * inside opening hours. Kept in sync from committed appointment writes (another node's
+ * arrive as a remote BulkWriteEvent); days that were never touched are loaded from MySQL on
+ * first use.
+ *
+ * The index answers searches and the early check before files are stored. The check a save
+ * relies on is lockDay: it runs against the database, so it holds across app nodes.
+ */
+@Service
+@TenantScoped
+public class ScheduleIndexService {
+
+    public static final int DEFAULT_DURATION_MINUTES = 30;
+
+    @Autowired
+    private AppointmentRepository appointmentRepo;
+
+    @Autowired
+    private ClinicSettingsRepository clinicRepo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Day rows are created on their own, never inside the booking's transaction
+    private TransactionTemplate separate;
+
+    private final Map<LocalDate, DaySchedule> days = new HashMap<>();
+    private final Map<Long, LocalDate> dayOfAppointment = new HashMap<>();
+    private volatile OpeningHours openingHours = OpeningHours.parse(null);
+
+    /** Thrown when a booking overlaps an existing one. */
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public static class ConflictException extends RuntimeException {
+        public ConflictException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        separate = new TransactionTemplate(transactionManager);
+        separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Preload from today onwards: that's where nearly all bookings and searches happen
+    @EventListener(TenantReadyEvent.class)
+    public synchronized void load() {
+        days.clear();
+        dayOfAppointment.clear();
+        clinicRepo.findById(1L).ifPresent(s -> openingHours = OpeningHours.parse(s.getOpeningHours()));
+        LocalDate today = LocalDate.now();
+        for (Appointment app : appointmentRepo.findByDateGreaterThanEqual(today)) {
+            index(app);
+        }
+        for (LocalDate d = today; !d.isAfter(lastLoadedDay()); d = d.plusDays(1)) {
+            days.computeIfAbsent(d, x -> new DaySchedule());
+        }
+        System.out.println("📅 Schedule index ready: " + dayOfAppointment.size() + " upcoming appointments");
+    }
+
+    @EventListener
+    public void onBulkWrite(BulkWriteEvent event) {
+        if ("appointments".equals(event.getTable())) load();
+    }
+
+    // ================= QUERIES =================
+
+    /** Throws ConflictException if the slot overlaps another booking; reserves nothing. */
+    public synchronized void checkAvailable(LocalDate date, LocalTime time, Integer duration, String status, Long excludeId) {
+        if (date == null || time == null || !blocksTime(status)) return;
+        int start = time.toSecondOfDay() / 60;
+        Long conflict = day(date).findConflict(start, start + durationOf(duration), excludeId);
+        if (conflict != null) throw new ConflictException("Overlaps appointment #" + conflict + " on " + date);
+    }
+
+    /**
+     * The check a save relies on: locks 'date' in the database until the surrounding transaction
+     * ends, then checks the slot against the committed appointments of that day. A second save
+     * for the same day (on any node) waits for this one to commit and then sees its row.
+     *
+     * Must be the first statement of the transaction: with MySQL's REPEATABLE READ the overlap
+     * query below reads the snapshot taken at the first plain read, which has to come after the lock.
+     * @param excludeId appointment being edited (its own old slot doesn't count as a conflict)
+     */
+    public void lockDay(LocalDate date, LocalTime time, Integer duration, String status, Long excludeId) {
+        if (date == null || time == null || !blocksTime(status)) return;
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("lockDay needs the saving transaction");
+        }
+        createDayRow(date);
+        jdbc.queryForList("SELECT lock_date FROM schedule_day_locks WHERE lock_date = ? FOR UPDATE", date);
+
+        int start = time.toSecondOfDay() / 60;
+        int end = start + durationOf(duration);
+        jdbc.query("SELECT id, time, duration_minutes, status FROM appointments WHERE date = ?", rs -> {
+            long id = rs.getLong(1);
+            Time booked = rs.getTime(2);
+            int minutes = rs.getInt(3);
+            Integer bookedDuration = rs.wasNull() ? null : minutes;
+            if (id == (excludeId != null ? excludeId : -1L) || booked == null || !blocksTime(rs.getString(4))) return;
+            int bookedStart = booked.toLocalTime().toSecondOfDay() / 60;
+            int bookedEnd = bookedStart + durationOf(bookedDuration);
+            if (bookedStart < end && bookedEnd > start) {
+                throw new ConflictException("Overlaps appointment #" + id + " on " + date);
+            }
+        }, date);
+    }
+
+    /** Next 'count' free slots of 'duration' minutes within opening hours, starting at 'from'. */
+    public synchronized List<FreeSlotDTO> findFreeSlots(LocalDateTime from, int duration, int count, int step, int maxDays) {
+        List<FreeSlotDTO> slots = new ArrayList<>();
+        LocalDate date = from.toLocalDate();
+        int earliest = from.toLocalTime().toSecondOfDay() / 60;
+
+        for (int i = 0; i < maxDays && slots.size() < count; i++, date = date.plusDays(1), earliest = 0) {
+            DaySchedule day = day(date);
+            for (int[] open : openingHours.forDay(date.getDayOfWeek())) {
+                // Align candidates to the step grid (e.g. every 15 minutes from opening time)
+                int start = alignUp(Math.max(earliest, open[0]), open[0], step);
+                while (start + duration <= open[1] && slots.size() < count) {
+                    int busyUntil = day.busyUntil(start, start + duration);
+                    if (busyUntil < 0) {
+                        slots.add(new FreeSlotDTO(date, toTime(start), toTime(start + duration)));
+                        start = alignUp(start + duration, open[0], step);
+                    } else {
+                        // Jump past the blocking interval, back onto the grid
+                        start = alignUp(busyUntil, open[0], step);
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+
+    // ================= SYNC FROM WRITES =================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onEntityChange(EntityChangeEvent event) {
+        if ("clinic_settings".equals(event.getTable()) && event.getEntity() instanceof ClinicSettings s) {
+            openingHours = OpeningHours.parse(s.getOpeningHours());
+            return;
+        }
+        if (!"appointments".equals(event.getTable()) || !(event.getEntity() instanceof Appointment app)) {
+            return;
+        }
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            remove(app.getId());
+        } else {
+            index(app);
+        }
+    }
+
+    // ================= HELPERS =================
+
+    // The first booking of a day (here or on another node) creates its lock row
+    private void createDayRow(LocalDate date) {
+        try {
+            separate.executeWithoutResult(status -> {
+                if (jdbc.queryForObject("SELECT COUNT(*) FROM schedule_day_locks WHERE lock_date = ?", Integer.class, date) == 0) {
+                    jdbc.update("INSERT INTO schedule_day_locks (lock_date) VALUES (?)", date);
+                }
+            });
+        } catch (DuplicateKeyException e) {
+            // Created by another save at the same moment
+        }
+    }
+
+    private void index(Appointment app) {
+        remove(app.getId());
+        if (app.getDate() == null || app.getTime() == null || !blocksTime(app.getStatus())) return;
+        // Days not loaded yet will read this row from MySQL when first needed
+        DaySchedule day = days.get(app.getDate());
+        if (day == null && !app.getDate().isBefore(LocalDate.now())) {
+            day = days.computeIfAbsent(app.getDate(), d -> new DaySchedule());
+        }
+        if (day == null) return;
+        int start = app.getTime().toSecondOfDay() / 60;
+        day.put(app.getId(), start, start + durationOf(app.getDurationMinutes()));
+        dayOfAppointment.put(app.getId(), app.getDate());
+    }
+
+    private void remove(Long id) {
+        LocalDate date = dayOfAppointment.remove(id);
+        if (date != null && days.containsKey(date)) {
+            days.get(date).remove(id);
+        }
+    }
+
+    private DaySchedule day(LocalDate date) {
+        DaySchedule day = days.get(date);
+        if (day == null) {
+            day = new DaySchedule();
+            days.put(date, day);
+            for (Appointment app : appointmentRepo.findByDate(date)) {
+                index(app);
+            }
+        }
+        return day;
+    }
+
+    private LocalDate lastLoadedDay() {
+        return days.keySet().stream().max(LocalDate::compareTo).orElse(LocalDate.now());
+    }
+
+    private static int alignUp(int minute, int gridStart, int step) {
+        return gridStart + ((minute - gridStart + step - 1) / step) * step;
+    }
+
+    private static boolean blocksTime(String status) {
+        return status == null || !status.equalsIgnoreCase("Cancelled");
+    }
+
+    private static int durationOf(Integer minutes) {
+        return minutes != null && minutes > 0 ? minutes : DEFAULT_DURATION_MINUTES;
+    }
+
+    private static LocalTime toTime(int minuteOfDay) {
+        return minuteOfDay >= 24 * 60 ? LocalTime.MAX.withSecond(0).withNano(0) : LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    // ================= ONE DAY =================
+
+    private static class DaySchedule {
+        private final Map<Long, int[]> bookings = new HashMap<>();
+        // Union of all bookings, sorted: busyStart[i] < busyEnd[i] <= busyStart[i + 1]
+        private int[] busyStart = new int[0];
+        private int[] busyEnd = new int[0];
+
+        void put(Long id, int start, int end) {
+            bookings.put(id, new int[]{start, end});
+            rebuild();
+        }
+
+        void remove(Long id) {
+            if (bookings.remove(id) != null) rebuild();
+        }
+
+        /** End of the busy block overlapping [start, end), or -1 if the range is free. */
+        int busyUntil(int start, int end) {
+            int i = lastBlockStartingBefore(end);
+            return i >= 0 && busyEnd[i] > start ? busyEnd[i] : -1;
+        }
+
+        // Exact check against individual bookings, ignoring the one being edited
+        Long findConflict(int start, int end, Long excludeId) {
+            if (busyUntil(start, end) < 0) return null;
+            for (Map.Entry<Long, int[]> e : bookings.entrySet()) {
+                if (e.getKey().equals(excludeId)) continue;
+                int[] b = e.getValue();
+                if (b[0] < end && b[1] > start) return e.getKey();
+            }
+            return null;
+        }
+
+        private int lastBlockStartingBefore(int end) {
+            int lo = 0, hi = busyStart.length - 1, found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (busyStart[mid] < end) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        private void rebuild() {
+            List<int[]> sorted = new ArrayList<>(bookings.values());
+            sorted.sort(Comparator.comparingInt(b -> b[0]));
+            int[] starts = new int[sorted.size()];
+            int[] ends = new int[sorted.size()];
+            int n = 0;
+            for (int[] b : sorted) {
+                if (n > 0 && b[0] <= ends[n - 1]) {
+                    ends[n - 1] = Math.max(ends[n - 1], b[1]);
+                } else {
+                    starts[n] = b[0];
+                    ends[n] = b[1];
+                    n++;
+                }
+            }
+            busyStart = Arrays.copyOf(starts, n);
+            busyEnd = Arrays.copyOf(ends, n);
+        }
+    }
+}
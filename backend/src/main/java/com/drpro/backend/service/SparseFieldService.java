@@ -0,0 +1,171 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.UploadRef;
+import com.drpro.backend.config.UploadUrls;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Sparse fieldsets: GET /api/patients?fields=name,phone selects just those columns in SQL
+ * (a JPQL tuple query built from the list, not a filter applied after loading entities) and
+ * writes one JSON object per row with just those keys, streamed page by page.
+ *
+ * "id" is always included (keyset paging and the frontend both need it). Field names are checked
+ * against the endpoint's FieldCatalog before any JPQL is built, so nothing from the URL reaches
+ * the query text.
+ */
+@Service
+public class SparseFieldService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JsonStreamService jsonStreamService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // One short read-only transaction per page (a read replica may serve it, see ReplicaConfig)
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    public void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /** The fields one list endpoint offers: every basic column of its entity, plus any extras. */
+    public static class FieldCatalog {
+        private final String entityName;
+        private final Map<String, String> selects = new LinkedHashMap<>(); // field -> JPQL expression
+        private final Map<String, String> joins = new HashMap<>();         // field -> join it needs
+        private final Map<String, Function<Collection<Long>, Map<Long, List<Object>>>> collections = new LinkedHashMap<>();
+        private final Set<String> uploadRefs = new HashSet<>();                  // stored as keys, written as URLs
+
+        private FieldCatalog(String entityName) {
+            this.entityName = entityName;
+        }
+
+        /** A field from another table, e.g. an appointment's patientName. */
+        public FieldCatalog join(String field, String expression, String join) {
+            selects.put(field, expression);
+            joins.put(field, join);
+            return this;
+        }
+
+        /** A multi-valued field, loaded for a whole page of ids at once (ids -> values per id). */
+        public FieldCatalog collection(String field, Function<Collection<Long>, Map<Long, List<Object>>> loader) {
+            collections.put(field, loader);
+            return this;
+        }
+
+        List<String> parse(String fields) {
+            Set<String> selected = new LinkedHashSet<>();
+            selected.add("id");
+            for (String raw : fields.split(",")) {
+                String field = raw.trim();
+                if (field.isEmpty()) continue;
+                if (!selects.containsKey(field) && !collections.containsKey(field)) {
+                    Set<String> allowed = new TreeSet<>(selects.keySet());
+                    allowed.addAll(collections.keySet());
+                    throw new IllegalArgumentException("Unknown field '" + field + "'. Allowed: " + String.join(", ", allowed));
+                }
+                selected.add(field);
+            }
+            return new ArrayList<>(selected);
+        }
+    }
+
+    public FieldCatalog catalog(Class<?> entity) {
+        EntityType<?> type = entityManager.getMetamodel().entity(entity);
+        FieldCatalog catalog = new FieldCatalog(type.getName());
+        type.getSingularAttributes().stream()
+                .filter(a -> a.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                .map(Attribute::getName)
+                .sorted()
+                .forEach(name -> catalog.selects.put(name, "e." + name));
+        for (Class<?> c = entity; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.isAnnotationPresent(UploadRef.class)) catalog.uploadRefs.add(field.getName());
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Writes the rows matching 'filter' (JPQL on alias "e", may be null) with only the requested
+     * fields. Throws IllegalArgumentException for an unknown field, before anything is written.
+     */
+    public void writeArray(HttpServletResponse response, FieldCatalog catalog, String fields,
+                           String filter, Map<String, Object> params) throws IOException {
+        List<String> selected = catalog.parse(fields);
+        List<String> columns = selected.stream().filter(catalog.selects::containsKey).toList();
+        List<String> collections = selected.stream().filter(catalog.collections::containsKey).toList();
+
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        jpql.append(String.join(", ", columns.stream().map(catalog.selects::get).toList()));
+        jpql.append(" FROM ").append(catalog.entityName).append(" e");
+        columns.stream().map(catalog.joins::get).filter(j -> j != null).distinct().forEach(j -> jpql.append(' ').append(j));
+        jpql.append(" WHERE e.id > :after");
+        if (filter != null) jpql.append(" AND ").append(filter);
+        jpql.append(" ORDER BY e.id");
+        String query = jpql.toString();
+
+        jsonStreamService.writeArray(response, (after, limit) -> readOnly.execute(status -> {
+            TypedQuery<Tuple> page = entityManager.createQuery(query, Tuple.class)
+                    .setParameter("after", after)
+                    .setMaxResults(limit.max());
+            params.forEach(page::setParameter);
+
+            Map<Long, Map<String, Object>> rows = new LinkedHashMap<>();
+            for (Tuple tuple : page.getResultList()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    row.put(columns.get(i), value(catalog, columns.get(i), tuple.get(i)));
+                }
+                rows.put((Long) row.get("id"), row);
+            }
+            for (String field : collections) {
+                if (rows.isEmpty()) break;
+                Map<Long, List<Object>> values = catalog.collections.get(field).apply(rows.keySet());
+                rows.forEach((id, row) -> row.put(field, value(catalog, field, values.getOrDefault(id, List.of()))));
+            }
+            return new ArrayList<>(rows.values());
+        }), row -> (Long) row.get("id"));
+    }
+
+    // The same key -> URL step @UploadRef does for whole entities (these rows are plain maps)
+    private static Object value(FieldCatalog catalog, String field, Object value) {
+        if (!catalog.uploadRefs.contains(field)) return value;
+        if (value instanceof String ref) return UploadUrls.toUrl(ref);
+        if (value instanceof List<?> refs) {
+            return refs.stream().map(ref -> ref instanceof String s ? UploadUrls.toUrl(s) : ref).toList();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,261 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.RequestTiming;
+import com.drpro.backend.dto.UploadResultDTO;
+import com.drpro.backend.dto.UploadedFileDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Upload path that never holds a file in memory or writes it twice.
+ *
+ * The request body is parsed part by part (MultipartStreamReader); each file part is checked
+ * (extension, declared type, magic bytes) before the first byte hits the disk, then streamed
+ * into its final uploads/ file through a SHA-256 digest. Heap per request is two 64 KB buffers.
+ */
+@Service
+public class StreamingUploadService {
+
+    private static final int COPY_BUFFER = 64 * 1024;
+    private static final int MAX_FIELD_BYTES = 64 * 1024;
+    static final int SNIFF_BYTES = 16;
+
+    // Extension -> content type we accept for it
+    private static final Map<String, String> ALLOWED_TYPES = Map.of(
+            ".jpg", "image/jpeg",
+            ".jpeg", "image/jpeg",
+            ".png", "image/png",
+            ".gif", "image/gif",
+            ".webp", "image/webp",
+            ".heic", "image/heic",
+            ".heif", "image/heif",
+            ".pdf", "application/pdf"
+    );
+
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize maxFileSize;
+
+    @Value("${spring.servlet.multipart.max-request-size}")
+    private DataSize maxRequestSize;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public static class TooLargeException extends RuntimeException {
+        public TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+    public static class UnsupportedTypeException extends RuntimeException {
+        public UnsupportedTypeException(String message) {
+            super(message);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public static class MalformedUploadException extends RuntimeException {
+        public MalformedUploadException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Stores every file part of the request. All or nothing: if one part is rejected,
+     * the files already written for this request are deleted again.
+     */
+    public UploadResultDTO ingest(HttpServletRequest request) {
+        try (RequestTiming.Span span = RequestTiming.start(RequestTiming.Category.STORAGE)) {
+            return store(request);
+        }
+    }
+
+    private UploadResultDTO store(HttpServletRequest request) {
+        long start = System.currentTimeMillis();
+        String boundary = MultipartStreamReader.boundaryOf(request.getContentType());
+        if (boundary == null) {
+            throw new MalformedUploadException("Expected multipart/form-data with a boundary");
+        }
+        // Reject before reading a byte when the client tells us the size up front
+        if (request.getContentLengthLong() > maxRequestSize.toBytes()) {
+            throw new TooLargeException("Upload is larger than " + maxRequestSize.toMegabytes() + " MB");
+        }
+
+        UploadResultDTO result = new UploadResultDTO();
+        List<String> written = new ArrayList<>();
+        try {
+            InputStream body = new LimitedInputStream(request.getInputStream(), maxRequestSize.toBytes());
+            MultipartStreamReader reader = new MultipartStreamReader(body, boundary);
+            MultipartStreamReader.Part part;
+            while ((part = reader.next()) != null) {
+                if (part.isFile()) {
+                    if (part.getFileName().isEmpty()) continue; // Empty <input type="file">
+                    result.getFiles().add(store(part, written));
+                } else if (part.getName() != null) {
+                    byte[] value = part.getBody().readNBytes(MAX_FIELD_BYTES + 1);
+                    if (value.length > MAX_FIELD_BYTES) {
+                        throw new TooLargeException("Field '" + part.getName() + "' is too long");
+                    }
+                    result.getFields().put(part.getName(), new String(value, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            for (String key : written) {
+                try {
+                    fileStorageService.delete(key);
+                } catch (IOException ignored) {
+                    // Best effort: orphaned uploads are harmless
+                }
+            }
+            if (e instanceof RuntimeException re) throw re;
+            throw new MalformedUploadException("Upload failed: " + e.getMessage());
+        }
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private UploadedFileDTO store(MultipartStreamReader.Part part, List<String> written) throws IOException {
+        String originalName = part.getFileName();
+        String extension = extensionOf(originalName);
+        String type = allowedType(originalName);
+        String declared = part.getContentType();
+        if (declared != null && !declared.startsWith("application/octet-stream")
+                && !declared.toLowerCase(Locale.ROOT).startsWith(type)) {
+            throw new UnsupportedTypeException("'" + originalName + "' is sent as " + declared + ", expected " + type);
+        }
+
+        InputStream in = part.getBody();
+        byte[] head = in.readNBytes(SNIFF_BYTES);
+        if (!matchesMagic(type, head)) {
+            throw new UnsupportedTypeException("'" + originalName + "' is not a real " + type + " file");
+        }
+
+        String key = fileStorageService.newKey(extension);
+        Path staged = fileStorageService.stagingPath(key);
+        MessageDigest sha256 = sha256();
+        long size = head.length;
+        try {
+            try (OutputStream out = new DigestOutputStream(
+                    Files.newOutputStream(staged, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), sha256)) {
+                out.write(head);
+                byte[] buffer = new byte[COPY_BUFFER];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    size += n;
+                    if (size > maxFileSize.toBytes()) {
+                        throw new TooLargeException("'" + originalName + "' is larger than " + maxFileSize.toMegabytes() + " MB");
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+            // Handed to the store only once it passed every check
+            fileStorageService.put(key, staged);
+        } finally {
+            Files.deleteIfExists(staged); // Only still there if it failed
+        }
+        written.add(key);
+
+        UploadedFileDTO dto = new UploadedFileDTO();
+        dto.setField(part.getName());
+        dto.setOriginalName(originalName);
+        dto.setContentType(type);
+        dto.setUrl(key);
+        dto.setSize(size);
+        dto.setSha256(HexFormat.of().formatHex(sha256.digest()));
+        return dto;
+    }
+
+    static String extensionOf(String fileName) {
+        return fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.')).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /** Content type we store a file with this name as; 415 if the extension is not accepted. */
+    static String allowedType(String fileName) {
+        String type = ALLOWED_TYPES.get(extensionOf(fileName));
+        if (type == null) {
+            throw new UnsupportedTypeException("'" + fileName + "': only images (jpg, png, gif, webp, heic) and PDFs are accepted");
+        }
+        return type;
+    }
+
+    // First bytes of each accepted format
+    static boolean matchesMagic(String type, byte[] head) {
+        return switch (type) {
+            case "image/jpeg" -> startsWith(head, 0, 0xFF, 0xD8, 0xFF);
+            case "image/png" -> startsWith(head, 0, 0x89, 'P', 'N', 'G');
+            case "image/gif" -> startsWith(head, 0, 'G', 'I', 'F', '8');
+            case "image/webp" -> startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P');
+            case "image/heic", "image/heif" -> startsWith(head, 4, 'f', 't', 'y', 'p');
+            case "application/pdf" -> startsWith(head, 0, '%', 'P', 'D', 'F');
+            default -> false;
+        };
+    }
+
+    private static boolean startsWith(byte[] head, int offset, int... expected) {
+        if (head.length < offset + expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if ((head[offset + i] & 0xFF) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Caps the whole body (for chunked requests that don't send a Content-Length). */
+    private class LimitedInputStream extends FilterInputStream {
+        private final long max;
+        private long count;
+
+        LimitedInputStream(InputStream in, long max) {
+            super(in);
+            this.max = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) check(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) check(n);
+            return n;
+        }
+
+        private void check(int n) {
+            count += n;
+            if (count > max) {
+                throw new TooLargeException("Upload is larger than " + maxRequestSize.toMegabytes() + " MB");
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.event.TenantReadyEvent;
+import com.drpro.backend.model.*;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Hands out the global, monotonically increasing revision used by the delta-sync feed.
+ *
+ * The counter is a row in the database (sync_counter), so every app node on the schema
+ * draws from the same sequence. A write locks the row when it takes its revision and keeps
+ * the lock until it commits, so revisions commit in the order they were handed out and the
+ * committed counter is the stable point: a client cursor can never skip over a late commit.
+ * The price is that writing transactions queue on that row from their first revision on.
+ */
+@Service
+@TenantScoped
+public class SyncRevisionService {
+
+    // table name -> entity, in the order the feed lists them
+    public static final Map<String, Class<? extends SyncTracked>> TRACKED = new LinkedHashMap<>();
+    static {
+        TRACKED.put("patients", Patient.class);
+        TRACKED.put("appointments", Appointment.class);
+        TRACKED.put("payments", Payment.class);
+        TRACKED.put("expenses", Expense.class);
+        TRACKED.put("dental_records", DentalRecord.class);
+        TRACKED.put("treatment_tables", TreatmentTable.class);
+    }
+
+    private static final String TOUCHED_TABLES_KEY = SyncRevisionService.class.getName() + ".touchedTables";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // The counter row is created on its own, never inside a caller's transaction
+    private TransactionTemplate separate;
+    private volatile boolean seeded;
+
+    @PostConstruct
+    public void init() {
+        separate = new TransactionTemplate(transactionManager);
+        separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Stamp rows created before sync existed, so a first sync (since=0) sees them.
+    // Each row gets its own revision (base + id) so feed pages never split a revision.
+    @EventListener(TenantReadyEvent.class)
+    public void backfill() {
+        LocalDateTime now = LocalDateTime.now();
+        for (String table : TRACKED.keySet()) {
+            Integer stamped = transactionTemplate.execute(status -> {
+                Long maxId = jdbc.queryForObject(
+                        "SELECT MAX(id) FROM " + table + " WHERE revision IS NULL", Long.class);
+                if (maxId == null) return 0;
+                long base = allocate(maxId) - 1;
+                return jdbc.update("UPDATE " + table + " SET revision = ? + id, updated_at = ? WHERE revision IS NULL",
+                        base, Timestamp.valueOf(now));
+            });
+            if (stamped != null && stamped > 0) {
+                System.out.println("🔄 Sync: stamped " + stamped + " existing rows in " + table);
+                publisher.publishEvent(new BulkWriteEvent(table)); // Caches holding these rows are stale
+            }
+        }
+    }
+
+    /** Next revision for a write. Holds the counter until the surrounding transaction ends. */
+    public long next() {
+        return nextBlock(1);
+    }
+
+    /** Reserves 'size' consecutive revisions (for JDBC batch writes) and returns the first. */
+    public long nextBlock(int size) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return allocate(size);
+        }
+        // Auto-commit write: the counter moves on its own, just before the statement runs
+        return transactionTemplate.execute(status -> allocate(size));
+    }
+
+    /** Highest revision below which every write is committed (or rolled back). */
+    public long stableRevision() {
+        seed();
+        Long revision = jdbc.queryForObject("SELECT revision FROM sync_counter WHERE id = 1", Long.class);
+        return revision != null ? revision : 0L;
+    }
+
+    /** Records a delete so devices can drop their local copy. Runs inside the deleting transaction. */
+    public void recordTombstone(String table, Long entityId) {
+        jdbc.update("INSERT INTO sync_tombstones (table_name, entity_id, revision, deleted_at) VALUES (?, ?, ?, ?)",
+                table, entityId, next(), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Treatment rows have no revision of their own: an edit re-publishes the whole table.
+    // Touched once per transaction, however many rows change (grid batch edits).
+    @SuppressWarnings("unchecked")
+    public void touchTreatmentTable(Long tableId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Set<Long> touched = (Set<Long>) TransactionSynchronizationManager.getResource(TOUCHED_TABLES_KEY);
+            if (touched == null) {
+                touched = new HashSet<>();
+                TransactionSynchronizationManager.bindResource(TOUCHED_TABLES_KEY, touched);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(TOUCHED_TABLES_KEY);
+                    }
+                });
+            }
+            if (!touched.add(tableId)) return;
+        }
+        jdbc.update("UPDATE treatment_tables SET revision = ?, updated_at = ? WHERE id = ?",
+                next(), Timestamp.valueOf(LocalDateTime.now()), tableId);
+    }
+
+    // ================= HELPERS =================
+
+    // Inside the caller's transaction: the row lock is held until it commits or rolls back
+    private long allocate(long size) {
+        seed();
+        Long current = jdbc.queryForObject("SELECT revision FROM sync_counter WHERE id = 1 FOR UPDATE", Long.class);
+        long last = current != null ? current : 0L;
+        jdbc.update("UPDATE sync_counter SET revision = ? WHERE id = 1", last + size);
+        return last + 1;
+    }
+
+    // First use on a schema: continue numbering from the highest revision already stored
+    private void seed() {
+        if (seeded) return;
+        try {
+            separate.executeWithoutResult(status -> {
+                if (jdbc.queryForObject("SELECT COUNT(*) FROM sync_counter WHERE id = 1", Integer.class) > 0) return;
+                long max = maxRevision("sync_tombstones");
+                for (String table : TRACKED.keySet()) {
+                    max = Math.max(max, maxRevision(table));
+                }
+                jdbc.update("INSERT INTO sync_counter (id, revision) VALUES (1, ?)", max);
+            });
+        } catch (DuplicateKeyException e) {
+            // Another node seeded it at the same moment
+        }
+        seeded = true;
+    }
+
+    private long maxRevision(String table) {
+        Long max = jdbc.queryForObject("SELECT MAX(revision) FROM " + table, Long.class);
+        return max != null ? max : 0L;
+    }
+}
@@ -0,0 +1,184 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.event.TenantReadyEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a version per table, bumped after every committed write. Used to build ETags so
+ * unchanged lists can be answered with 304 without touching MySQL.
+ *
+ * The versions live in the database (table_versions), shared by every app node on the schema;
+ * each node answers from its own copy and polls the table every node.poll-ms. A version that
+ * moved on another node is published here as a remote BulkWriteEvent first, so the caches
+ * built from that table (second-level cache, schedule index, calendar ...) drop what they hold.
+ *
+ * A version is the time of its bump (epoch ms, or one more than the last when that is later),
+ * so it can be held against a read replica's heartbeat: see lastChange.
+ */
+@Service
+@TenantScoped
+public class TableVersionService {
+
+    private static final String TOUCHED_KEY = TableVersionService.class.getName() + ".touched";
+
+    private final String tenant = TenantContext.current();
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Bumps run after the writer committed: always in a transaction of their own
+    private TransactionTemplate separate;
+
+    // table -> version this node has seen (and told its caches about)
+    private final Map<String, Long> known = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        separate = new TransactionTemplate(transactionManager);
+        separate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long version(String table) {
+        return known.getOrDefault(table, 0L);
+    }
+
+    /** When the latest of these tables last changed (as far as this node knows), 0 if never. */
+    public long lastChange(String... tables) {
+        long last = 0;
+        for (String table : tables) last = Math.max(last, version(table));
+        return last;
+    }
+
+    public synchronized void bump(String table) {
+        long[] step = write(table);
+        // Another node wrote the table since we last looked: our caches have not heard of it yet
+        if (loaded && version(table) != step[0]) publisher.publishEvent(new BulkWriteEvent(table, true));
+        known.put(table, step[1]);
+    }
+
+    // For JDBC writes that bypass Hibernate events. Once per table and transaction.
+    @SuppressWarnings("unchecked")
+    public void bumpAfterCommit(String table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(table);
+            return;
+        }
+        Set<String> touched = (Set<String>) TransactionSynchronizationManager.getResource(TOUCHED_KEY);
+        if (touched == null) {
+            Set<String> tables = new HashSet<>();
+            touched = tables;
+            TransactionSynchronizationManager.bindResource(TOUCHED_KEY, tables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tables.forEach(TableVersionService.this::bump);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TOUCHED_KEY);
+                }
+            });
+        }
+        touched.add(table);
+    }
+
+    // e.g. "main-lx2k9a.lx2kb4" for @TableVersioned({"appointments", "patients"})
+    public String etag(String... tables) {
+        StringBuilder sb = new StringBuilder("\"").append(tenant).append('-');
+        for (int i = 0; i < tables.length; i++) {
+            if (i > 0) sb.append('.');
+            sb.append(Long.toString(version(tables[i]), 36));
+        }
+        return sb.append('"').toString();
+    }
+
+    // Bumped AFTER COMMIT (once per table) so a reader can never cache old rows under the new version
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        bumpAfterCommit(event.getTable());
+    }
+
+    // ================= OTHER NODES =================
+
+    @EventListener(TenantReadyEvent.class)
+    public synchronized void load() {
+        readAll().forEach(known::put);
+        loaded = true;
+    }
+
+    @Scheduled(fixedDelayString = "${node.poll-ms:1000}", initialDelayString = "${node.poll-ms:1000}")
+    public void poll() {
+        if (!loaded) return;
+        TenantContext.run(tenant, () -> {
+            synchronized (this) {
+                readAll().forEach((table, version) -> {
+                    if (version == version(table)) return;
+                    // Caches first: a reader given the new ETag must not be served the old rows
+                    publisher.publishEvent(new BulkWriteEvent(table, true));
+                    known.put(table, version);
+                });
+            }
+        });
+    }
+
+    // ================= HELPERS =================
+
+    // [version before, version after]. Never below the clock, so a restored backup cannot hand out an old ETag again.
+    private long[] write(String table) {
+        while (true) {
+            try {
+                return separate.execute(status -> {
+                    List<Long> current = jdbc.queryForList(
+                            "SELECT version FROM table_versions WHERE table_name = ? FOR UPDATE", Long.class, table);
+                    long before = current.isEmpty() ? 0L : current.get(0);
+                    long after = Math.max(before + 1, System.currentTimeMillis());
+                    if (current.isEmpty()) {
+                        jdbc.update("INSERT INTO table_versions (table_name, version) VALUES (?, ?)", table, after);
+                    } else {
+                        jdbc.update("UPDATE table_versions SET version = ? WHERE table_name = ?", after, table);
+                    }
+                    return new long[]{before, after};
+                });
+            } catch (DuplicateKeyException e) {
+                // Another node wrote the table's first version at the same moment: lock that row instead
+            }
+        }
+    }
+
+    private Map<String, Long> readAll() {
+        Map<String, Long> versions = new ConcurrentHashMap<>();
+        jdbc.query("SELECT table_name, version FROM table_versions",
+                rs -> { versions.put(rs.getString(1), rs.getLong(2)); });
+        return versions;
+    }
+}
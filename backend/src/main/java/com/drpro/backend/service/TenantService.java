@@ -0,0 +1,261 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenancyConfig.TenantRoutingDataSource;
+import com.drpro.backend.config.TenancyConfig.TenantSchemaMigrator;
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.config.TenantScope;
+import com.drpro.backend.dto.TenantDTO;
+import com.drpro.backend.event.TenantReadyEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The clinic branches (tenants) this node serves, from tenancy.tenants, plus any attached at
+ * runtime. Each one has its own schema, its own folder (uploads, packs, backups) and its own
+ * instances of the @TenantScoped services; the default tenant keeps the original schema and
+ * DrPro_Data folder, so a single-clinic install runs exactly as before.
+ *
+ * Moving a branch to another node on the same MySQL server: attach it there, point the branch's
+ * devices or the proxy at that node, then detach it here. Both nodes may serve it meanwhile, as
+ * its shared state (sync revisions, ETag versions, booking locks) lives in its own schema; with
+ * storage.type=local copy its uploads folder across too. To another MySQL server: detach it here,
+ * copy its folder and schema, attach it there. Attach / detach are not saved: add the branch to
+ * tenancy.tenants to keep it.
+ * They are admin calls (AdminAccessFilter): only from the node itself.
+ */
+@Service
+public class TenantService {
+
+    private static final Pattern TENANT_ID = Pattern.compile("[a-z0-9][a-z0-9_-]{0,31}");
+    private static final Pattern SCHEMA_NAME = Pattern.compile("[A-Za-z0-9_]{1,64}");
+    // The database's own schemas (MySQL, H2): never a branch's
+    private static final Set<String> SYSTEM_SCHEMAS = Set.of("mysql", "information_schema", "performance_schema", "sys");
+
+    @Value("${tenancy.tenants:}")
+    private String configuredTenants;
+
+    @Value("${tenancy.data-dir:${user.home}/DrPro_Data/tenants}")
+    private String tenantsDir;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TenantSchemaMigrator schemaMigrator;
+
+    @Autowired
+    private TenantScope tenantScope;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    @Lazy
+    private EntityManagerFactory entityManagerFactory;
+
+    /** schema is null for the default tenant (it uses the one in spring.datasource.url). */
+    public record Tenant(String id, String schema, Path dataDir) {
+    }
+
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public static class TenantNotFoundException extends RuntimeException {
+        public TenantNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        String defaultId = TenantContext.getDefaultTenant();
+        if (!TENANT_ID.matcher(defaultId).matches()) {
+            throw new IllegalStateException("tenancy.default-tenant: " + invalidId(defaultId));
+        }
+        tenants.put(defaultId, new Tenant(defaultId, null, Paths.get(System.getProperty("user.home"), "DrPro_Data")));
+
+        // e.g. "north=drpro_north, south=drpro_south"
+        for (String entry : configuredTenants.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalStateException("tenancy.tenants: expected id=schema, got '" + entry.trim() + "'");
+            }
+            Tenant tenant = newTenant(parts[0].trim(), parts[1].trim());
+            tenants.put(tenant.id(), tenant);
+        }
+    }
+
+    // ================= LOOKUP =================
+
+    /** The tenant, or null if this node does not serve it. */
+    public Tenant find(String id) {
+        return tenants.get(id);
+    }
+
+    public Tenant require(String id) {
+        Tenant tenant = tenants.get(id);
+        if (tenant == null) throw new TenantNotFoundException("Tenant '" + id + "' is not served by this node");
+        return tenant;
+    }
+
+    public Tenant current() {
+        return require(TenantContext.current());
+    }
+
+    public boolean isDefault(String id) {
+        return TenantContext.getDefaultTenant().equals(id);
+    }
+
+    public List<TenantDTO> list() {
+        return tenants.values().stream()
+                .sorted(Comparator.comparing((Tenant t) -> !isDefault(t.id())).thenComparing(Tenant::id))
+                .map(this::toDTO)
+                .toList();
+    }
+
+    // ================= LIFECYCLE =================
+
+    // Before the application is ready: command-line imports (BulkImportCli) already need them
+    @EventListener(ContextRefreshedEvent.class)
+    public void prepareAll() {
+        for (TenantDTO tenant : list()) {
+            prepare(tenants.get(tenant.getId()));
+        }
+    }
+
+    // Warm-up (indexes, caches) of every tenant, the default one first
+    @EventListener(ApplicationReadyEvent.class)
+    public void readyAll() {
+        for (TenantDTO tenant : list()) {
+            ready(tenant.getId());
+        }
+    }
+
+    /** Starts serving another branch: creates / migrates its schema and starts its services. */
+    public synchronized TenantDTO attach(String id, String schema) {
+        if (tenants.containsKey(id)) {
+            throw new IllegalArgumentException("Tenant '" + id + "' is already served by this node");
+        }
+        Tenant tenant = newTenant(id, schema);
+        tenants.put(id, tenant); // Connections for it are routed from here on
+        try {
+            prepare(tenant);
+        } catch (RuntimeException e) {
+            tenants.remove(id);
+            tenantScope.destroy(id);
+            throw e;
+        }
+        ready(id);
+        return toDTO(tenant);
+    }
+
+    /** Stops serving a branch: its services stop (jobs, SSE, open packs) and its cached rows are dropped. */
+    public synchronized void detach(String id) {
+        if (isDefault(id)) {
+            throw new IllegalArgumentException("The default tenant cannot be detached");
+        }
+        require(id);
+        tenants.remove(id);
+        tenantScope.destroy(id);
+        // The cache API cannot evict one tenant: the others reload what they need
+        entityManagerFactory.getCache().evictAll();
+        System.out.println("🏥 Tenant '" + id + "' detached");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tenantScope.destroyAll();
+    }
+
+    private void prepare(Tenant tenant) {
+        try {
+            TenantRoutingDataSource routing = tenant.schema() != null ? dataSource.unwrap(TenantRoutingDataSource.class) : null;
+            // Before the folder and schema exist: a rejected attach leaves nothing behind
+            if (routing != null) checkSchemaFree(tenant, routing);
+            Files.createDirectories(tenant.dataDir());
+            if (routing != null) {
+                routing.createSchema(tenant.schema());
+                TenantContext.run(tenant.id(),
+                        () -> schemaMigrator.migrate(routing.physicalName(tenant.schema()), routing.usesCatalogs()));
+            }
+        } catch (IOException | SQLException e) {
+            throw new RuntimeException("Could not prepare tenant '" + tenant.id() + "'", e);
+        }
+        TenantContext.run(tenant.id(), tenantScope::createAll);
+    }
+
+    private void ready(String id) {
+        TenantContext.run(id, () -> publisher.publishEvent(new TenantReadyEvent(id)));
+        if (tenants.size() > 1) {
+            Tenant tenant = tenants.get(id);
+            System.out.println("🏥 Tenant '" + id + "' ready (schema " + (tenant.schema() != null ? tenant.schema() : "default")
+                    + ", data in " + tenant.dataDir() + ")");
+        }
+    }
+
+    // ================= HELPERS =================
+
+    private Tenant newTenant(String id, String schema) {
+        if (!TENANT_ID.matcher(id).matches()) throw new IllegalArgumentException(invalidId(id));
+        if (!SCHEMA_NAME.matcher(schema).matches()) {
+            throw new IllegalArgumentException("Schema '" + schema + "' must be letters, digits and _ only");
+        }
+        return new Tenant(id, schema, Paths.get(tenantsDir, id).toAbsolutePath().normalize());
+    }
+
+    // A branch gets a schema of its own: not the default tenant's, another branch's or the database's
+    private void checkSchemaFree(Tenant tenant, TenantRoutingDataSource routing) throws SQLException {
+        String schema = tenant.schema();
+        if (SYSTEM_SCHEMAS.contains(schema.toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Schema '" + schema + "' belongs to the database itself");
+        }
+        if (routing.physicalName(schema).equalsIgnoreCase(routing.getDefaultSchema())) {
+            throw new IllegalArgumentException("Schema '" + schema + "' is the default tenant's");
+        }
+        for (Tenant other : tenants.values()) {
+            if (!other.id().equals(tenant.id()) && other.schema() != null && other.schema().equalsIgnoreCase(schema)) {
+                throw new IllegalArgumentException("Schema '" + schema + "' is already used by tenant '" + other.id() + "'");
+            }
+        }
+    }
+
+    private static String invalidId(String id) {
+        return "Tenant id '" + id + "' must be 1-32 lower-case letters, digits, - or _";
+    }
+
+    private TenantDTO toDTO(Tenant tenant) {
+        TenantDTO dto = new TenantDTO();
+        dto.setId(tenant.id());
+        dto.setSchema(tenant.schema());
+        dto.setDataDir(tenant.dataDir().toString());
+        dto.setDefaultTenant(isDefault(tenant.id()));
+        dto.setServices(tenantScope.size(tenant.id()));
+        return dto;
+    }
+}
@@ -0,0 +1,127 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.dto.TreatmentBatchRequestDTO;
+import com.drpro.backend.dto.TreatmentTableSummaryDTO;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.model.TreatmentTable;
+import com.drpro.backend.model.TreatmentTableRow;
+import com.drpro.backend.repository.TreatmentTableRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Applies a whole batch of treatment-grid edits in one transaction.
+ *
+ * Several edits of the same row are merged into one UPDATE, deletes win over updates,
+ * updates/deletes go out as Hibernate JDBC batches and inserts as one JDBC batch insert.
+ */
+@Service
+public class TreatmentBatchService {
+
+    private static final String INSERT_ROW_SQL =
+            "INSERT INTO treatment_table_rows (notes, cost, status, treatment_date, treatment_table_id) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private TreatmentTableRepository tableRepo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private SyncRevisionService syncRevisionService;
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
+    @Autowired
+    private PatientBalanceService patientBalanceService;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional
+    public TreatmentTableSummaryDTO applyBatch(Long tableId, TreatmentBatchRequestDTO batch) {
+        TreatmentTable table = tableRepo.findById(tableId)
+                .orElseThrow(() -> new RuntimeException("Treatment table not found with id " + tableId));
+
+        Map<Long, TreatmentTableRow> rows = new HashMap<>();
+        for (TreatmentTableRow row : table.getRows()) {
+            rows.put(row.getId(), row);
+        }
+
+        // 1. Deletes (orphanRemoval turns these into batched DELETEs)
+        Set<Long> deleted = new HashSet<>(batch.getDeletes());
+        for (Long rowId : deleted) {
+            TreatmentTableRow row = requireRow(rows, rowId, tableId);
+            table.getRows().remove(row);
+        }
+
+        // 2. Updates: merged into the managed rows, so each row gets at most one UPDATE
+        for (TreatmentTableRow updated : batch.getUpdates()) {
+            if (deleted.contains(updated.getId())) continue;
+            TreatmentTableRow row = requireRow(rows, updated.getId(), tableId);
+            if (updated.getNotes() != null) row.setNotes(updated.getNotes());
+            if (updated.getCost() != null) row.setCost(updated.getCost());
+            if (updated.getStatus() != null) row.setStatus(updated.getStatus());
+            if (updated.getDate() != null) row.setDate(updated.getDate());
+        }
+        entityManager.flush();
+
+        // 3. Inserts: one JDBC batch (Hibernate can't batch IDENTITY inserts)
+        if (!batch.getInserts().isEmpty()) {
+            List<Object[]> args = new ArrayList<>();
+            double charged = 0;
+            for (TreatmentTableRow row : batch.getInserts()) {
+                LocalDate date = row.getDate() != null ? row.getDate() : LocalDate.now();
+                args.add(new Object[]{row.getNotes(), row.getCost(), row.getStatus(), Date.valueOf(date), tableId});
+                if (row.getCost() != null) charged += row.getCost();
+            }
+            jdbc.batchUpdate(INSERT_ROW_SQL, args);
+
+            // JDBC bypasses the entity listeners, so do their work here
+            syncRevisionService.touchTreatmentTable(tableId);
+            patientBalanceService.add(table.getPatientId(), charged, 0);
+            tableVersionService.bumpAfterCommit("treatment_table_rows");
+            publisher.publishEvent(new BulkWriteEvent("treatment_table_rows"));
+        }
+
+        // 4. Reload rows so the response has the new ids
+        entityManager.refresh(table);
+        return summarize(table);
+    }
+
+    public TreatmentTableSummaryDTO summarize(TreatmentTable table) {
+        TreatmentTableSummaryDTO dto = new TreatmentTableSummaryDTO();
+        dto.setTable(table);
+        dto.setRowCount(table.getRows().size());
+        double total = 0;
+        for (TreatmentTableRow row : table.getRows()) {
+            double cost = row.getCost() != null ? row.getCost() : 0;
+            total += cost;
+            String status = row.getStatus() != null ? row.getStatus() : "Unknown";
+            dto.getTotalsByStatus().merge(status, cost, Double::sum);
+        }
+        dto.setTotalCost(total);
+        return dto;
+    }
+
+    private TreatmentTableRow requireRow(Map<Long, TreatmentTableRow> rows, Long rowId, Long tableId) {
+        TreatmentTableRow row = rowId != null ? rows.get(rowId) : null;
+        if (row == null) {
+            throw new RuntimeException("Row " + rowId + " does not belong to treatment table " + tableId);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,296 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.config.UploadUrls;
+import com.drpro.backend.dto.UploadGcReportDTO;
+import com.drpro.backend.event.EntityChangeEvent;
+import com.drpro.backend.model.*;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mark-and-sweep collector for uploads that no row points at any more
+ * (deleted appointments and patients, replaced prescriptions and avatars).
+ *
+ * Mark: one streaming query over every column that can hold an upload URL builds the set of
+ * referenced file names. Sweep: the upload store is walked in small batches with a pause in between,
+ * and a file is deleted only if it is unreferenced AND older than the grace period, so an
+ * upload whose URL the client has not saved yet is never touched. References written while a
+ * collection runs are added to the set by onEntityChange, so they are never swept either.
+ * Orphans already moved to cold storage are tombstoned there; their space comes back when
+ * ColdStorageService compacts the pack.
+ */
+@Service
+@TenantScoped
+public class UploadGcService {
+
+    // Every column that stores FileStorageService keys (or, not yet migrated, URLs)
+    private static final String REFERENCES_SQL =
+            "SELECT file_name FROM appointment_images"
+                    + " UNION ALL SELECT prescription_url FROM appointments"
+                    + " UNION ALL SELECT additional_file_url FROM appointments"
+                    + " UNION ALL SELECT prescription_url FROM dental_records"
+                    + " UNION ALL SELECT additional_file_url FROM dental_records"
+                    + " UNION ALL SELECT avatar_url FROM patients"
+                    + " UNION ALL SELECT receipt_url FROM payments"
+                    + " UNION ALL SELECT logo_url FROM clinic_settings"
+                    + " UNION ALL SELECT avatar_url FROM doctor_profile";
+
+    // Longer than any transaction: a reference seen this recently survives a mark that missed it
+    private static final Duration RECENT = Duration.ofHours(1);
+
+    @Value("${gc.uploads.grace-hours:24}")
+    private long graceHours;
+
+    @Value("${gc.uploads.batch-size:200}")
+    private int batchSize;
+
+    @Value("${gc.uploads.pause-ms:50}")
+    private long pauseMs;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ColdStorageService coldStorageService;
+
+    // Referenced file names as of the last mark, plus everything written since
+    private volatile Set<String> referenced = ConcurrentHashMap.newKeySet();
+
+    // File name -> when an entity write last referenced it (may not be committed yet at mark time)
+    private final Map<String, Instant> recent = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile UploadGcReportDTO lastReport;
+
+    // Runs off the request thread see this branch's rows and uploads
+    private final String tenant = TenantContext.current();
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "upload-gc");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    // ================= RUNS =================
+
+    // Nightly, after the backup
+    @Scheduled(cron = "${gc.uploads.schedule:0 30 3 * * *}")
+    public void scheduledRun() {
+        TenantContext.run(tenant, () -> collect(false));
+    }
+
+    /** Starts a collection in the background; returns its live report (or the running one's). */
+    public UploadGcReportDTO start(boolean dryRun) {
+        if (running.get()) return lastReport;
+        UploadGcReportDTO report = newReport(dryRun);
+        worker.submit(() -> TenantContext.run(tenant, () -> run(report)));
+        return report;
+    }
+
+    /** Runs a collection on the calling thread. Returns null if one is already running. */
+    public UploadGcReportDTO collect(boolean dryRun) {
+        if (running.get()) return null;
+        UploadGcReportDTO report = newReport(dryRun);
+        run(report);
+        return report;
+    }
+
+    public UploadGcReportDTO getLastReport() {
+        return lastReport;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private UploadGcReportDTO newReport(boolean dryRun) {
+        UploadGcReportDTO report = new UploadGcReportDTO();
+        report.setStatus("RUNNING");
+        report.setDryRun(dryRun);
+        report.setStartedAt(LocalDateTime.now());
+        return report;
+    }
+
+    private void run(UploadGcReportDTO report) {
+        if (!running.compareAndSet(false, true)) {
+            report.setStatus("SKIPPED");
+            report.setError("Another collection is already running");
+            return;
+        }
+        lastReport = report;
+        long start = System.currentTimeMillis();
+        try {
+            mark(report);
+            sweep(report);
+            sweepPacked(report);
+            report.setStatus("DONE");
+            System.out.println("🧹 Upload GC" + (report.isDryRun() ? " (dry run)" : "") + ": " + report.getReclaimedFiles()
+                    + " orphaned files, " + (report.getReclaimedBytes() / 1024) + " KB reclaimed of "
+                    + report.getScannedFiles() + " files scanned");
+        } catch (Exception e) {
+            // A failed mark must never turn into a sweep: nothing is deleted after an error
+            report.setStatus("FAILED");
+            report.setError(e.getMessage());
+            System.err.println("❌ Upload GC failed: " + e.getMessage());
+        } finally {
+            report.setElapsedMs(System.currentTimeMillis() - start);
+            running.set(false);
+        }
+    }
+
+    // ================= MARK =================
+
+    private void mark(UploadGcReportDTO report) {
+        Set<String> marked = ConcurrentHashMap.newKeySet();
+        // Swap first: references written during the query land in the new set too
+        referenced = marked;
+        // Written before the swap but perhaps not committed before the query reads
+        Instant horizon = Instant.now().minus(RECENT);
+        recent.values().removeIf(seen -> seen.isBefore(horizon));
+        marked.addAll(recent.keySet());
+        jdbc.query(REFERENCES_SQL, rs -> {
+            String name = fileNameOf(rs.getString(1));
+            if (name != null) marked.add(name);
+        });
+        report.setReferencedFiles(marked.size());
+    }
+
+    // Same process writes the rows: keep the set current between marks
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        List<String> urls = urlsOf(event.getEntity());
+        for (String url : urls) {
+            String name = fileNameOf(url);
+            if (name == null) continue;
+            if (event.getType() == EntityChangeEvent.Type.DELETE) {
+                recent.remove(name); // Gone from the next mark unless another row still has it
+            } else {
+                referenced.add(name);
+                recent.put(name, Instant.now());
+            }
+        }
+    }
+
+    private static List<String> urlsOf(Object entity) {
+        List<String> urls = new ArrayList<>();
+        if (entity instanceof Appointment a) {
+            urls.addAll(a.getFileUrls());
+            urls.add(a.getPrescriptionUrl());
+            urls.add(a.getAdditionalFileUrl());
+        } else if (entity instanceof DentalRecord d) {
+            urls.add(d.getPrescriptionUrl());
+            urls.add(d.getAdditionalFileUrl());
+        } else if (entity instanceof Patient p) {
+            urls.add(p.getAvatarUrl());
+        } else if (entity instanceof Payment p) {
+            urls.add(p.getReceiptUrl());
+        } else if (entity instanceof ClinicSettings c) {
+            urls.add(c.getLogoUrl());
+        } else if (entity instanceof DoctorProfile d) {
+            urls.add(d.getAvatarUrl());
+        }
+        return urls;
+    }
+
+    // "abc.png" or "http://192.168.1.5:8080/uploads/abc.png" -> "abc.png"; Cloudinary and other URLs -> null
+    static String fileNameOf(String ref) {
+        String key = UploadUrls.toKey(ref);
+        return UploadUrls.isKey(key) ? key : null;
+    }
+
+    // ================= SWEEP =================
+
+    private void sweep(UploadGcReportDTO report) throws IOException, InterruptedException {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+        int[] inBatch = {0};
+        try {
+            fileStorageService.list(blob -> {
+                report.setScannedFiles(report.getScannedFiles() + 1);
+                report.setScannedBytes(report.getScannedBytes() + blob.size());
+
+                String name = blob.key();
+                if (!referenced.contains(name)) {
+                    if (blob.lastModified().isAfter(cutoff)) {
+                        report.setYoungFiles(report.getYoungFiles() + 1);
+                    } else if (report.isDryRun() || delete(name)) {
+                        report.setReclaimedFiles(report.getReclaimedFiles() + 1);
+                        report.setReclaimedBytes(report.getReclaimedBytes() + blob.size());
+                    }
+                }
+
+                // Throttle: stay out of the way of the clinic's own disk I/O
+                if (++inBatch[0] >= batchSize) {
+                    inBatch[0] = 0;
+                    pause();
+                }
+            });
+        } catch (Interrupted e) {
+            throw (InterruptedException) e.getCause();
+        }
+    }
+
+    // The store's listing callback cannot throw InterruptedException itself
+    private static class Interrupted extends RuntimeException {
+        Interrupted(InterruptedException cause) {
+            super(cause);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            throw new Interrupted(e);
+        }
+    }
+
+    // Packed files are months old by definition: no grace period, just the reference check
+    private void sweepPacked(UploadGcReportDTO report) throws IOException {
+        for (String name : coldStorageService.packedNames()) {
+            report.setScannedFiles(report.getScannedFiles() + 1);
+            long length = coldStorageService.packedLength(name);
+            report.setScannedBytes(report.getScannedBytes() + length);
+            if (referenced.contains(name)) continue;
+            if (report.isDryRun() || coldStorageService.remove(name)) {
+                report.setReclaimedFiles(report.getReclaimedFiles() + 1);
+                report.setReclaimedBytes(report.getReclaimedBytes() + length);
+            }
+        }
+    }
+
+    private boolean delete(String name) {
+        // Last look: a reference may have been written since this file was reached
+        if (referenced.contains(name)) return false;
+        try {
+            return fileStorageService.delete(name);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not delete orphaned upload " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.config.TenantContext;
+import com.drpro.backend.config.TenantScoped;
+import com.drpro.backend.config.UploadUrls;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.event.TenantReadyEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One-off rewrite of the upload links stored before uploads were kept by key: a value like
+ * "http://192.168.1.5:8080/uploads/3f2a....png" becomes "3f2a....png", so the rows no longer
+ * carry one node's address. Runs per tenant at startup, in keyset batches; rows that are
+ * already keys (or links to somewhere else) are left alone, so running it again is a no-op.
+ *
+ * Rewritten rows (for appointment_images: their appointment) get a new sync revision in the
+ * same transaction, so /api/sync resends them and offline devices drop the old links.
+ */
+@Service
+@TenantScoped
+public class UploadUrlMigrationService {
+
+    // table, owner id column, upload column (the same columns UploadGcService marks)
+    private static final String[][] COLUMNS = {
+            {"appointment_images", "appointment_id", "file_name"},
+            {"appointments", "id", "prescription_url"},
+            {"appointments", "id", "additional_file_url"},
+            {"dental_records", "id", "prescription_url"},
+            {"dental_records", "id", "additional_file_url"},
+            {"patients", "id", "avatar_url"},
+            {"payments", "id", "receipt_url"},
+            {"clinic_settings", "id", "logo_url"},
+            {"doctor_profile", "id", "avatar_url"},
+    };
+
+    @Value("${storage.migrate-urls:true}")
+    private boolean enabled;
+
+    @Value("${storage.migration.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TableVersionService tableVersionService;
+
+    @Autowired
+    private SyncRevisionService syncRevisionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @EventListener(TenantReadyEvent.class)
+    public void migrate() {
+        if (!enabled) return;
+        for (String[] column : COLUMNS) {
+            int rewritten = migrate(column[0], column[1], column[2]);
+            if (rewritten == 0) continue;
+
+            String table = ownerTable(column[0]);
+            publisher.publishEvent(new BulkWriteEvent(table));
+            tableVersionService.bump(table);
+            System.out.println("🔗 Upload links: " + rewritten + " " + column[0] + "." + column[2]
+                    + " rewritten to keys (tenant '" + TenantContext.current() + "')");
+        }
+    }
+
+    private int migrate(String table, String idColumn, String column) {
+        String select = "SELECT " + idColumn + ", " + column + " FROM " + table
+                + " WHERE " + idColumn + " > ? AND " + column + " LIKE ? ORDER BY " + idColumn + " LIMIT ?";
+        String selectOwner = "SELECT " + idColumn + ", " + column + " FROM " + table
+                + " WHERE " + idColumn + " = ? AND " + column + " LIKE ?";
+        String update = "UPDATE " + table + " SET " + column + " = ? WHERE " + idColumn + " = ? AND " + column + " = ?";
+        String pattern = "%" + UploadUrls.PATH + "%";
+        boolean uniqueIds = idColumn.equals("id");
+        String owner = ownerTable(table);
+        boolean tracked = SyncRevisionService.TRACKED.containsKey(owner);
+
+        int rewritten = 0;
+        long after = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>(jdbc.query(select, (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2)},
+                    after, pattern, batchSize));
+            if (rows.isEmpty()) break;
+            long last = (Long) rows.get(rows.size() - 1)[0];
+            if (!uniqueIds && rows.size() == batchSize) {
+                // The last owner's rows may go on past the limit: take all of them in this batch
+                rows.removeIf(row -> (Long) row[0] == last);
+                rows.addAll(jdbc.query(selectOwner, (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2)},
+                        last, pattern));
+            }
+
+            List<Object[]> args = new ArrayList<>();
+            for (Object[] row : rows) {
+                String value = (String) row[1];
+                String key = UploadUrls.toKey(value);
+                if (!key.equals(value) && UploadUrls.isKey(key)) {
+                    args.add(new Object[]{key, row[0], value}); // Only if nobody changed it meanwhile
+                }
+            }
+            if (!args.isEmpty()) {
+                rewritten += transactionTemplate.execute(status -> {
+                    int[] counts = jdbc.batchUpdate(update, args);
+                    Set<Long> changed = new LinkedHashSet<>();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] != 0) changed.add((Long) args.get(i)[1]); // SUCCESS_NO_INFO counts as changed
+                    }
+                    if (tracked && !changed.isEmpty()) stampRevisions(owner, changed);
+                    return sum(counts);
+                });
+            }
+            after = last;
+        }
+        return rewritten;
+    }
+
+    // New revisions for the changed rows, inside the rewriting transaction
+    private void stampRevisions(String table, Set<Long> ids) {
+        long revision = syncRevisionService.nextBlock(ids.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        for (Long id : ids) {
+            args.add(new Object[]{revision++, now, id});
+        }
+        jdbc.batchUpdate("UPDATE " + table + " SET revision = ?, updated_at = ? WHERE id = ?", args);
+    }
+
+    // The element table belongs to the appointments (their cache region, ETag and sync revision)
+    private static String ownerTable(String table) {
+        return table.equals("appointment_images") ? "appointments" : table;
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) total += Math.max(count, 0);
+        return total;
+    }
+}
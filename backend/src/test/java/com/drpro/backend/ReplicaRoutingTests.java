@@ -0,0 +1,261 @@
+package com.drpro.backend;
+
+import com.drpro.backend.config.ReplicaConfig;
+import com.drpro.backend.config.ReplicaFilter;
+import com.drpro.backend.dto.ReplicaStatusDTO;
+import com.drpro.backend.model.Patient;
+import com.drpro.backend.repository.PatientRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two in-memory H2 databases: the primary, and a "replica" that is a copy taken with SCRIPT.
+ * Nothing replicates between them, so the test decides how far behind the replica is by
+ * writing its replica_heartbeat row by hand, and tells the two apart by a patient's name.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicaprimary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "replica.urls=" + ReplicaRoutingTests.REPLICA_URL,
+        "replica.heartbeat-ms=50",
+        "replica.max-lag-ms=2000",
+        "replica.clock-skew-ms=500",
+        "management.server.port=0",
+        "file.upload-dir=target/test-data/uploads",
+        "backup.dir=target/test-data/backups"
+})
+class ReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replicacopy;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final String ON_PRIMARY = "Asha";
+    private static final String ON_REPLICA = "Asha (replica)";
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private PatientRepository patientRepo;
+
+    @Autowired
+    private JdbcTemplate jdbc; // Outside a request: always the primary
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    private Long patientId;
+
+    @BeforeEach
+    void copyPrimaryToReplica() throws Exception {
+        Patient patient = new Patient();
+        patient.setName(ON_PRIMARY);
+        patient.setPhone("9800000001");
+        patient.setGender("Female");
+        patientId = patientRepo.save(patient).getId();
+
+        await(() -> !jdbc.queryForList("SELECT node FROM replica_heartbeat", String.class).isEmpty());
+        List<String> script = jdbc.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+        replica.update("UPDATE patients SET name = ? WHERE id = ?", ON_REPLICA, patientId);
+    }
+
+    // ================= ROUTING =================
+
+    @Test
+    void getReadsFromAReplicaThatIsUpToDate() throws Exception {
+        long reads = status().getReads();
+        setBeat(System.currentTimeMillis());
+
+        assertEquals(ON_REPLICA, patientName(null));
+        assertTrue(status().getReads() > reads);
+    }
+
+    @Test
+    void staleOrMissingHeartbeatFallsBackToThePrimary() throws Exception {
+        setBeat(System.currentTimeMillis() - 10_000); // Further behind than replica.max-lag-ms
+        assertFalse(status().isInRotation());
+        assertEquals(ON_PRIMARY, patientName(null));
+
+        replica.update("DELETE FROM replica_heartbeat");
+        await(() -> !status().isHealthy());
+        assertEquals(ON_PRIMARY, patientName(null));
+    }
+
+    // ================= READ-YOUR-WRITES =================
+
+    @Test
+    void writeGoesToThePrimaryAndPinsTheClientUntilTheReplicaCatchesUp() throws Exception {
+        setBeat(System.currentTimeMillis());
+
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("name", "Ravi");
+        form.add("phone", "9800000002");
+        form.add("gender", "Male");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        ResponseEntity<Patient> created = rest.postForEntity("/api/patients", new HttpEntity<>(form, headers), Patient.class);
+        assertEquals(HttpStatus.OK, created.getStatusCode());
+
+        Long raviId = created.getBody().getId();
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM patients WHERE id = ?", Integer.class, raviId));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM patients WHERE id = ?", Integer.class, raviId));
+
+        String cookie = lastWriteCookie(created);
+        long wroteAt = Long.parseLong(cookie.substring(cookie.indexOf('=') + 1));
+
+        // The replica's beat is from before the write: this client stays on the primary...
+        assertEquals(ON_PRIMARY, patientName(cookie));
+        // ...while a client that has not written still reads from the replica
+        assertEquals(ON_REPLICA, patientName(null));
+
+        setBeat(wroteAt + 600); // Past the write plus replica.clock-skew-ms
+        assertEquals(ON_REPLICA, patientName(cookie));
+    }
+
+    // Before the reply's body is written, also when the handler committed no transaction
+    @Test
+    void writeWithoutATransactionStillSetsTheCookie() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf("text/csv"));
+        ResponseEntity<String> imported = rest.postForEntity("/api/import/patients",
+                new HttpEntity<>("name,phone,gender\n", headers), String.class);
+
+        assertEquals(HttpStatus.OK, imported.getStatusCode());
+        assertNotNull(lastWriteCookie(imported));
+    }
+
+    // ================= PRIMARY-ONLY READS =================
+
+    // The replica is in rotation but has not applied the latest write: the feed (and its cursor) must not skip it
+    @Test
+    @SuppressWarnings("unchecked")
+    void syncFeedReadsFromThePrimaryWhenTheReplicaIsBehind() throws Exception {
+        setBeat(System.currentTimeMillis());
+        Long lateId = savePatient("Late");
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM patients WHERE id = ?", Integer.class, lateId));
+
+        long reads = status().getReads();
+        ResponseEntity<Map> response = rest.getForEntity("/api/sync?since=0&limit=2000", Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<Object, Object> names = new HashMap<>();
+        for (Map<String, Object> change : (List<Map<String, Object>>) response.getBody().get("changes")) {
+            if ("patients".equals(change.get("table"))) {
+                names.put(((Number) change.get("id")).longValue(), ((Map<?, ?>) change.get("data")).get("name"));
+            }
+        }
+        assertEquals("Late", names.get(lateId));
+        assertEquals(ON_PRIMARY, names.get(patientId));
+        assertEquals(jdbc.queryForObject("SELECT revision FROM sync_counter", Long.class),
+                ((Number) response.getBody().get("revision")).longValue());
+        assertEquals(reads, status().getReads());
+    }
+
+    // A list's body is never older than its ETag: a replica serves it once its beat is past the table's last change
+    @Test
+    void versionedListWaitsForAReplicaThatHasTheTablesLastChange() throws Exception {
+        setBeat(System.currentTimeMillis());
+        Thread.sleep(5);
+        savePatient("Late");
+        assertTrue(patientList().contains("Late"));
+
+        setBeat(System.currentTimeMillis() + 600); // Past the change plus replica.clock-skew-ms
+        String fromReplica = patientList();
+        assertFalse(fromReplica.contains("Late"));
+        assertTrue(fromReplica.contains(ON_REPLICA));
+    }
+
+    // ================= HELPERS =================
+
+    // Outside a request, so on the primary only; bumps the patients version after commit
+    private Long savePatient(String name) {
+        Patient patient = new Patient();
+        patient.setName(name);
+        patient.setPhone("9800000003");
+        patient.setGender("Male");
+        return patientRepo.save(patient).getId();
+    }
+
+    private String patientList() {
+        entityManagerFactory.getCache().evictAll();
+        ResponseEntity<String> response = rest.getForEntity("/api/patients", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    private String patientName(String cookie) {
+        entityManagerFactory.getCache().evictAll(); // Otherwise the second-level cache answers
+        HttpHeaders headers = new HttpHeaders();
+        if (cookie != null) headers.add(HttpHeaders.COOKIE, cookie);
+        ResponseEntity<Map> response = rest.exchange("/api/patients/" + patientId, HttpMethod.GET,
+                new HttpEntity<>(headers), Map.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(lastWriteCookie(response), "A plain read sets no cookie");
+        return (String) response.getBody().get("name");
+    }
+
+    private static String lastWriteCookie(ResponseEntity<?> response) {
+        List<String> cookies = response.getHeaders().get(HttpHeaders.SET_COOKIE);
+        if (cookies == null) return null;
+        return cookies.stream()
+                .filter(c -> c.startsWith(ReplicaFilter.LAST_WRITE_COOKIE + "="))
+                .map(c -> c.substring(0, c.indexOf(';')))
+                .findFirst().orElse(null);
+    }
+
+    // Writes this node's beat on the replica and waits until the heartbeat reader has seen it
+    private void setBeat(long beat) throws Exception {
+        String node = jdbc.queryForObject("SELECT node FROM replica_heartbeat", String.class);
+        replica.update("MERGE INTO replica_heartbeat (node, beat) KEY (node) VALUES (?, ?)", node, beat);
+        await(() -> {
+            ReplicaStatusDTO status = status();
+            return status.isHealthy() && status.getLagMs() != null
+                    && Math.abs(System.currentTimeMillis() - status.getLagMs() - beat) < 200;
+        });
+    }
+
+    private ReplicaStatusDTO status() throws SQLException {
+        return dataSource.unwrap(ReplicaConfig.ReplicaRoutingDataSource.class).report().getReplicas().get(0);
+    }
+
+    private interface Condition {
+        boolean holds() throws Exception;
+    }
+
+    private static void await(Condition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.holds()) {
+            if (System.currentTimeMillis() > deadline) fail("Timed out waiting for the heartbeat");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.drpro.backend;
+
+import com.drpro.backend.config.SecondLevelCacheConfig;
+import com.drpro.backend.event.BulkWriteEvent;
+import com.drpro.backend.model.Patient;
+import com.drpro.backend.model.ProcedureItem;
+import com.drpro.backend.repository.PatientRepository;
+import com.drpro.backend.repository.ProcedureItemRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs on in-memory H2 (MySQL mode), no MySQL server needed
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:cachetest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "file.upload-dir=target/test-data/uploads",
+        "backup.dir=target/test-data/backups"
+})
+class SecondLevelCacheTests {
+
+    @Autowired
+    private PatientRepository patientRepo;
+
+    @Autowired
+    private ProcedureItemRepository procedureRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void resetCache() {
+        entityManagerFactory.getCache().evictAll();
+        stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void patientIsLoadedFromDatabaseOnlyOnce() {
+        Long id = savePatient("Asha").getId();
+        entityManagerFactory.getCache().evictAll();
+        stats.clear();
+
+        patientRepo.findById(id);
+        patientRepo.findById(id);
+
+        var region = stats.getDomainDataRegionStatistics(SecondLevelCacheConfig.PATIENTS);
+        assertEquals(1, region.getMissCount());
+        assertEquals(1, region.getHitCount());
+    }
+
+    @Test
+    void patientUpdateIsVisibleOnNextRead() {
+        Patient patient = savePatient("Asha");
+        patientRepo.findById(patient.getId()); // Now cached
+
+        patient.setName("Asha Rao");
+        patientRepo.save(patient);
+
+        assertEquals("Asha Rao", patientRepo.findById(patient.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void deletedPatientIsNotServedFromCache() {
+        Long id = savePatient("Asha").getId();
+        patientRepo.findById(id);
+
+        patientRepo.deleteById(id);
+
+        assertTrue(patientRepo.findById(id).isEmpty());
+    }
+
+    @Test
+    void procedureCatalogIsQueryCachedAndInvalidatedOnWrite() {
+        saveProcedure("X-Ray", 500.0);
+        int before = procedureRepo.findAll().size();
+        procedureRepo.findAll();
+        assertEquals(1, stats.getQueryCacheHitCount());
+
+        saveProcedure("Cleaning", 800.0);
+
+        assertEquals(before + 1, procedureRepo.findAll().size());
+    }
+
+    @Test
+    void bulkWriteEventDropsStaleEntries() {
+        Long id = savePatient("Asha").getId();
+        patientRepo.findById(id);
+
+        // JDBC write behind Hibernate's back: cache still has the old row ...
+        jdbc.update("UPDATE patients SET name = ? WHERE id = ?", "Imported", id);
+        assertEquals("Asha", patientRepo.findById(id).orElseThrow().getName());
+
+        // ... until the writer announces it, as BulkImportService does
+        publisher.publishEvent(new BulkWriteEvent("patients"));
+        assertEquals("Imported", patientRepo.findById(id).orElseThrow().getName());
+    }
+
+    private Patient savePatient(String name) {
+        Patient patient = new Patient();
+        patient.setName(name);
+        patient.setPhone("9800000000");
+        return patientRepo.save(patient);
+    }
+
+    private ProcedureItem saveProcedure(String description, Double price) {
+        ProcedureItem item = new ProcedureItem();
+        item.setDescription(description);
+        item.setPrice(price);
+        return procedureRepo.save(item);
+    }
+}
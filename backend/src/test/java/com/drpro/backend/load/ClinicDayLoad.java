@@ -0,0 +1,353 @@
+package com.drpro.backend.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A busy clinic day against a running server, to find out how many devices it can carry.
+ *
+ * Reception devices search patients, book appointments (some with an X-Ray attached), take
+ * payments and print the invoice, check the calendar and now and then the dashboards; doctor
+ * devices open patient timelines (appointments, treatments, records, balance, an attachment)
+ * and look up procedures. Every device waits for its answer and then "thinks", like a person
+ * at a desk, and keeps ETags like the real app does.
+ *
+ * The load is run in steps of more and more devices. Each step prints HdrHistogram percentiles
+ * per endpoint, throughput and error rate, and the summary names the largest step that stayed
+ * within the SLO. Normally started by bench/clinic-day-load.sh (seeded embedded server); against
+ * any other server:
+ *
+ *   java -cp ... com.drpro.backend.load.ClinicDayLoad --base http://clinic-pc:8080 --steps 3,6,12,24
+ *
+ * Options: --base, --steps (devices per step), --duration and --warmup (seconds per step),
+ * --think-ms (mean pause between journeys), --attachment-kb, --attachment-ratio,
+ * --slo-p95-ms, --slo-error-pct, --out (folder for .hgrm files).
+ */
+public class ClinicDayLoad {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String[] PROCEDURE_QUERIES = {"ro", "root", "cr", "crown", "sc", "fill", "ext", "im", "bra"};
+
+    enum Role { RECEPTION, DOCTOR }
+
+    private final String base;
+    private final int[] steps;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int thinkMs;
+    private final double attachmentRatio;
+    private final double sloP95Ms;
+    private final double sloErrorPct;
+    private final Path outDir;
+    private final byte[] attachment;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final List<Long> patientIds = new ArrayList<>();
+    private final List<String> patientNames = new ArrayList<>();
+
+    // Null during warm-up: nothing is recorded until the step has settled
+    private volatile EndpointStats stats;
+    private volatile long stepEnd;
+
+    ClinicDayLoad(Map<String, String> options) {
+        base = options.getOrDefault("base", "http://localhost:8080").replaceAll("/$", "");
+        steps = Arrays.stream(options.getOrDefault("steps", "3,6,12,24").split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        thinkMs = Integer.parseInt(options.getOrDefault("think-ms", "1000"));
+        attachmentRatio = Double.parseDouble(options.getOrDefault("attachment-ratio", "0.3"));
+        sloP95Ms = Double.parseDouble(options.getOrDefault("slo-p95-ms", "500"));
+        sloErrorPct = Double.parseDouble(options.getOrDefault("slo-error-pct", "1"));
+        outDir = Paths.get(options.getOrDefault("out", "target/load"));
+
+        // A PNG header and noise: the size of a phone photo of an X-Ray
+        attachment = new byte[Integer.parseInt(options.getOrDefault("attachment-kb", "300")) * 1024];
+        new Random(42).nextBytes(attachment);
+        System.arraycopy(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 0, attachment, 0, 8);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new ClinicDayLoad(options).run();
+    }
+
+    // ================= STEPS =================
+
+    void run() throws Exception {
+        loadPatients();
+        System.out.printf("Target %s: %d patients, steps %s, %ds per step (+%ds warm-up), think %d ms%n%n",
+                base, patientIds.size(), Arrays.toString(steps), durationSeconds, warmupSeconds, thinkMs);
+
+        List<String> summary = new ArrayList<>();
+        int bestWithinSlo = 0;
+        for (int devices : steps) {
+            EndpointStats result = runStep(devices);
+            double p95 = result.percentileMs(95);
+            double errorPct = 100 * result.errorRate();
+            boolean withinSlo = p95 <= sloP95Ms && errorPct <= sloErrorPct;
+            if (withinSlo) bestWithinSlo = devices;
+
+            System.out.printf("=== %d devices (%d reception, %d doctor) ===%n", devices, receptionCount(devices), devices - receptionCount(devices));
+            result.print(System.out, durationSeconds);
+            result.writeDistributions(outDir.resolve("step-" + devices));
+            System.out.println();
+            summary.add(String.format("  %7d %9.1f %10.2f %8.1f %8.1f %7.2f %9d   %s", devices,
+                    result.throughput(durationSeconds), result.journeysPerSecond(durationSeconds),
+                    p95, result.percentileMs(99), errorPct, result.conflicts(), withinSlo ? "ok" : "OVER SLO"));
+        }
+
+        System.out.println("=== Summary ===");
+        System.out.printf("  %7s %9s %10s %8s %8s %7s %9s%n", "devices", "req/s", "journeys/s", "p95 ms", "p99 ms", "err%", "conflicts");
+        summary.forEach(System.out::println);
+        System.out.printf("%nLargest step within SLO (p95 <= %.0f ms, errors <= %.1f%%): %s%n", sloP95Ms, sloErrorPct,
+                bestWithinSlo > 0 ? bestWithinSlo + " devices" : "none");
+        System.out.println("Percentile distributions: " + outDir.toAbsolutePath());
+    }
+
+    private EndpointStats runStep(int devices) throws InterruptedException {
+        stats = null;
+        long warmupEnd = System.currentTimeMillis() + warmupSeconds * 1000L;
+        stepEnd = warmupEnd + durationSeconds * 1000L;
+
+        ExecutorService pool = Executors.newFixedThreadPool(devices);
+        int reception = receptionCount(devices);
+        for (int i = 0; i < devices; i++) {
+            Role role = i < reception ? Role.RECEPTION : Role.DOCTOR;
+            long seed = devices * 1000L + i;
+            pool.submit(() -> device(role, new Random(seed)));
+        }
+        Thread.sleep(Math.max(0, warmupEnd - System.currentTimeMillis()));
+        EndpointStats result = new EndpointStats();
+        stats = result;
+        pool.shutdown();
+        pool.awaitTermination(durationSeconds + 120L, TimeUnit.SECONDS);
+        stats = null;
+        return result;
+    }
+
+    // Two reception desks for every doctor's chair, at least one doctor
+    private static int receptionCount(int devices) {
+        return devices == 1 ? 1 : devices - Math.max(1, devices / 3);
+    }
+
+    private void loadPatients() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(HttpRequest.newBuilder(URI.create(base + "/api/patients")).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) throw new IllegalStateException("GET /api/patients returned " + response.statusCode());
+        for (JsonNode p : JSON.readTree(response.body())) {
+            patientIds.add(p.get("id").asLong());
+            patientNames.add(p.path("name").asText("a"));
+        }
+        if (patientIds.isEmpty()) throw new IllegalStateException("No patients on " + base + ": seed the database first");
+    }
+
+    // ================= DEVICES =================
+
+    private void device(Role role, Random random) {
+        Client client = new Client();
+        while (System.currentTimeMillis() < stepEnd) {
+            try {
+                if (role == Role.RECEPTION) receptionJourney(client, random);
+                else doctorJourney(client, random);
+                EndpointStats current = stats;
+                if (current != null) current.journeyDone();
+            } catch (Exception e) {
+                // Already counted as an error by the failing request; carry on with the next journey
+            }
+            long pause = thinkMs / 2 + (thinkMs > 0 ? random.nextInt(thinkMs) : 0);
+            long left = stepEnd - System.currentTimeMillis();
+            if (left <= 0) break;
+            try {
+                Thread.sleep(Math.min(pause, left));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void receptionJourney(Client c, Random random) throws IOException {
+        int pick = random.nextInt(100);
+        if (pick < 35) {
+            // Patient walks in: find them, open the card, look at their visits
+            String name = patientNames.get(random.nextInt(patientNames.size()));
+            c.get("GET /api/patients?query", "/api/patients?query=" + name.substring(0, Math.min(2, name.length())).replace(' ', '+'));
+            long id = randomPatient(random);
+            c.get("GET /api/patients/{id}", "/api/patients/" + id);
+            c.get("GET /api/appointments?patientId", "/api/appointments?patientId=" + id);
+        } else if (pick < 60) {
+            book(c, random);
+        } else if (pick < 85) {
+            // Payment at the desk, then the printed receipt
+            long id = randomPatient(random);
+            String body = String.format("{\"patientId\": %d, \"amount\": %d, \"notes\": \"Load test\", \"date\": \"%s\"}",
+                    id, 100 + random.nextInt(50) * 100, LocalDate.now());
+            JsonNode payment = c.json("POST /api/revenue", "POST", "/api/revenue", "application/json",
+                    body.getBytes(StandardCharsets.UTF_8), false);
+            if (payment != null) {
+                c.get("GET /api/payments/{id}/invoice", "/api/payments/" + payment.get("id").asLong() + "/invoice");
+            }
+        } else if (pick < 95) {
+            c.get("GET /api/appointments/calendar", "/api/appointments/calendar?month=" + YearMonth.now().plusMonths(random.nextInt(2)));
+        } else {
+            LocalDate today = LocalDate.now();
+            c.get("GET /api/finance/summary", "/api/finance/summary");
+            c.get("GET /api/finance/timeseries", "/api/finance/timeseries?from=" + today.withDayOfYear(1) + "&to=" + today + "&bucket=month");
+            c.get("GET /api/balances/outstanding", "/api/balances/outstanding?limit=20");
+            c.get("GET /api/analytics/payments", "/api/analytics/payments?groupBy=month");
+        }
+    }
+
+    private void book(Client c, Random random) throws IOException {
+        LocalDate day = LocalDate.now().plusDays(1 + random.nextInt(45));
+        JsonNode slots = c.getJson("GET /api/appointments/free-slots", "/api/appointments/free-slots?from=" + day + "&duration=30&count=5");
+        if (slots == null || slots.isEmpty()) return;
+        JsonNode slot = slots.get(random.nextInt(slots.size()));
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("patientId", String.valueOf(randomPatient(random)));
+        fields.put("date", slot.get("date").asText());
+        fields.put("time", slot.get("start").asText().substring(0, 5));
+        fields.put("durationMinutes", "30");
+        fields.put("notes", "Booked by load test");
+        boolean withFile = random.nextDouble() < attachmentRatio;
+        String boundary = "----drpro" + Long.toHexString(random.nextLong());
+        byte[] body = multipart(boundary, fields, withFile ? attachment : null);
+        // Two desks grabbing the same slot is normal: 409 is counted as a conflict, not an error
+        c.json(withFile ? "POST /api/appointments (+ X-Ray)" : "POST /api/appointments", "POST", "/api/appointments",
+                "multipart/form-data; boundary=" + boundary, body, true);
+    }
+
+    private void doctorJourney(Client c, Random random) throws IOException {
+        if (random.nextInt(100) < 75) {
+            // Next patient in the chair: the whole timeline, then one of their X-Rays
+            long id = randomPatient(random);
+            c.get("GET /api/patients/{id}", "/api/patients/" + id);
+            JsonNode visits = c.getJson("GET /api/appointments?patientId", "/api/appointments?patientId=" + id);
+            c.get("GET /api/treatments?patientId", "/api/treatments?patientId=" + id);
+            c.get("GET /api/dentalrecords?patientId", "/api/dentalrecords?patientId=" + id);
+            c.get("GET /api/patients/{id}/balance", "/api/patients/" + id + "/balance");
+            if (visits != null) {
+                for (JsonNode visit : visits) {
+                    JsonNode files = visit.path("fileUrls");
+                    if (files.isArray() && !files.isEmpty()) {
+                        String url = files.get(random.nextInt(files.size())).asText();
+                        c.get("GET /uploads/{file}", url.substring(url.indexOf("/uploads/")));
+                        break;
+                    }
+                }
+            }
+        } else {
+            String q = PROCEDURE_QUERIES[random.nextInt(PROCEDURE_QUERIES.length)];
+            c.get("GET /api/procedures/suggest", "/api/procedures/suggest?q=" + q);
+        }
+    }
+
+    private long randomPatient(Random random) {
+        return patientIds.get(random.nextInt(patientIds.size()));
+    }
+
+    private static byte[] multipart(String boundary, Map<String, String> fields, byte[] file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            out.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + field.getKey() + "\"\r\n\r\n"
+                    + field.getValue() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        if (file != null) {
+            out.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"files\"; filename=\"xray.png\"\r\n"
+                    + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.write(file);
+            out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    // ================= HTTP =================
+
+    /** One device's connection state: remembers ETags and bodies like the app's cache does. */
+    private class Client {
+        private final Map<String, String> etags = new HashMap<>();
+        private final Map<String, byte[]> bodies = new HashMap<>();
+
+        void get(String endpoint, String path) {
+            send(endpoint, "GET", path, null, null, false);
+        }
+
+        JsonNode getJson(String endpoint, String path) throws IOException {
+            byte[] body = send(endpoint, "GET", path, null, null, false);
+            return body != null ? JSON.readTree(body) : null;
+        }
+
+        JsonNode json(String endpoint, String method, String path, String contentType, byte[] body, boolean conflictOk) throws IOException {
+            byte[] response = send(endpoint, method, path, contentType, body, conflictOk);
+            return response != null && response.length > 0 ? JSON.readTree(response) : null;
+        }
+
+        // Returns the body (the cached one on 304), or null if the request failed
+        private byte[] send(String endpoint, String method, String path, String contentType, byte[] body, boolean conflictOk) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(60));
+            if (body != null) {
+                request.method(method, HttpRequest.BodyPublishers.ofByteArray(body)).header("Content-Type", contentType);
+            } else {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+            String etag = etags.get(path);
+            if (etag != null) request.header("If-None-Match", etag);
+
+            long start = System.nanoTime();
+            EndpointStats.Outcome outcome = EndpointStats.Outcome.ERROR;
+            byte[] result = null;
+            try {
+                HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                int status = response.statusCode();
+                if (status == 304) {
+                    outcome = EndpointStats.Outcome.OK;
+                    result = bodies.get(path);
+                } else if (status >= 200 && status < 300) {
+                    outcome = EndpointStats.Outcome.OK;
+                    result = response.body();
+                    Optional<String> newTag = response.headers().firstValue("ETag");
+                    if (newTag.isPresent() && "GET".equals(method)) {
+                        etags.put(path, newTag.get());
+                        bodies.put(path, result);
+                    }
+                } else if (status == 409 && conflictOk) {
+                    outcome = EndpointStats.Outcome.CONFLICT;
+                }
+            } catch (IOException e) {
+                // Connection refused / reset / timeout: an error like any 5xx
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                EndpointStats current = stats;
+                if (current != null) current.record(endpoint, System.nanoTime() - start, outcome);
+            }
+            return outcome == EndpointStats.Outcome.OK ? result : null;
+        }
+    }
+}
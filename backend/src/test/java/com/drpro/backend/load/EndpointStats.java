@@ -0,0 +1,114 @@
+package com.drpro.backend.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms (HdrHistogram, microseconds, 3 significant digits) and outcome counts
+ * per endpoint, plus one histogram over every request. One instance per load step.
+ */
+public class EndpointStats {
+
+    public enum Outcome { OK, CONFLICT, ERROR }
+
+    private static final long MAX_MICROS = 120_000_000L; // 2 minutes: anything slower is a timeout anyway
+
+    static class Endpoint {
+        final Histogram latency = new ConcurrentHistogram(1, MAX_MICROS, 3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        long count() {
+            return ok.sum() + conflicts.sum() + errors.sum();
+        }
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Endpoint all = new Endpoint();
+    private final LongAdder journeys = new LongAdder();
+
+    public void record(String endpoint, long nanos, Outcome outcome) {
+        long micros = Math.max(1, Math.min(MAX_MICROS, nanos / 1000));
+        Endpoint e = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        for (Endpoint target : new Endpoint[]{e, all}) {
+            target.latency.recordValue(micros);
+            switch (outcome) {
+                case OK -> target.ok.increment();
+                case CONFLICT -> target.conflicts.increment();
+                case ERROR -> target.errors.increment();
+            }
+        }
+    }
+
+    public void journeyDone() {
+        journeys.increment();
+    }
+
+    public long requests() {
+        return all.count();
+    }
+
+    public double throughput(double seconds) {
+        return all.count() / seconds;
+    }
+
+    public double journeysPerSecond(double seconds) {
+        return journeys.sum() / seconds;
+    }
+
+    public double errorRate() {
+        long count = all.count();
+        return count == 0 ? 0 : (double) all.errors.sum() / count;
+    }
+
+    public long conflicts() {
+        return all.conflicts.sum();
+    }
+
+    public double percentileMs(double percentile) {
+        return all.latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    // ================= REPORT =================
+
+    public void print(PrintStream out, double seconds) {
+        out.printf("  %-44s %7s %7s %8s %8s %8s %8s %8s %6s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "err%");
+        new TreeMap<>(endpoints).forEach((name, e) -> row(out, name, e, seconds));
+        row(out, "ALL", all, seconds);
+    }
+
+    private static void row(PrintStream out, String name, Endpoint e, double seconds) {
+        Histogram h = e.latency;
+        long count = e.count();
+        out.printf("  %-44s %7d %7.1f %8.1f %8.1f %8.1f %8.1f %8.1f %6.2f%n",
+                name, count, count / seconds,
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+                h.getMaxValue() / 1000.0,
+                count == 0 ? 0 : 100.0 * e.errors.sum() / count);
+    }
+
+    /** Full percentile distributions (.hgrm, in ms) for plotting, one file per endpoint. */
+    public void writeDistributions(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Map<String, Endpoint> files = new TreeMap<>(endpoints);
+        files.put("ALL", all);
+        for (Map.Entry<String, Endpoint> e : files.entrySet()) {
+            String fileName = e.getKey().replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(fileName)))) {
+                e.getValue().latency.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.drpro.backend.service;
+
+import com.drpro.backend.dto.ColdStorageReportDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Plain unit test: the service is built by hand on a temp folder, its two collaborators mocked
+class ColdStorageServiceTests {
+
+    private static final int FILE_SIZE = 3000;
+    private static final long FOOTPRINT = PackFile.footprint("fa.jpg", FILE_SIZE); // Every name is as long
+
+    @TempDir
+    Path dir;
+
+    private Path uploads;
+    private ColdStorageService service;
+    private final Map<String, byte[]> contents = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploads = Files.createDirectories(dir.resolve("uploads"));
+        service = start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void oldFilesArePackedAndServedFromThePack() throws IOException {
+        for (int i = 0; i < 5; i++) loose("old-" + i + ".jpg", 400);
+        loose("new.jpg", 10);
+
+        ColdStorageReportDTO report = run();
+        assertEquals("DONE", report.getStatus());
+        assertEquals(5, report.getPackedFiles());
+        assertTrue(Files.exists(uploads.resolve("new.jpg")));
+        for (int i = 0; i < 5; i++) {
+            assertFalse(Files.exists(uploads.resolve("old-" + i + ".jpg")));
+            assertServed("old-" + i + ".jpg");
+        }
+        assertNull(service.find("new.jpg"));
+    }
+
+    // A loose copy that survived packing (crash, or open on Windows) is only deleted if it matches
+    @Test
+    void leftoverLooseCopyIsDroppedOnlyWhenItMatchesThePack() throws IOException {
+        loose("a.jpg", 400);
+        run();
+        Files.write(uploads.resolve("a.jpg"), contents.get("a.jpg"));
+        age("a.jpg", 400);
+        run();
+        assertFalse(Files.exists(uploads.resolve("a.jpg")));
+
+        Files.write(uploads.resolve("a.jpg"), new byte[]{1, 2, 3});
+        age("a.jpg", 400);
+        run();
+        assertTrue(Files.exists(uploads.resolve("a.jpg")));
+    }
+
+    @Test
+    void removedFilesStayRemovedAcrossARestart() throws IOException {
+        loose("a.jpg", 400);
+        loose("b.jpg", 400);
+        run();
+        assertTrue(service.remove("a.jpg"));
+        assertFalse(service.remove("a.jpg"));
+
+        restart();
+        assertNull(service.find("a.jpg"));
+        assertServed("b.jpg");
+        assertEquals(1, service.getReport().getFilesInPacks());
+    }
+
+    // Packs hold four files each here. A sealed pack with half its files removed stays; one with
+    // three quarters removed has its last live file copied into the current pack and is deleted
+    @Test
+    void mostlyDeadSealedPacksAreCompactedIntoTheCurrentOne() throws IOException {
+        for (int i = 0; i < 12; i++) loose("f" + (char) ('a' + i) + ".jpg", 400);
+        run();
+        Map<Integer, List<String>> byPack = filesByPack();
+        assertEquals(Set.of(1, 2, 3), byPack.keySet());
+
+        List<String> removed = new ArrayList<>(byPack.get(1).subList(0, 2));
+        removed.addAll(byPack.get(2).subList(0, 3));
+        for (String name : removed) assertTrue(service.remove(name));
+        String survivor = byPack.get(2).get(3);
+
+        ColdStorageReportDTO report = run();
+        assertEquals(1, report.getCompactedPacks());
+        assertFalse(Files.exists(dir.resolve("packs").resolve(PackFile.dataName(2))));
+        assertTrue(Files.exists(dir.resolve("packs").resolve(PackFile.dataName(1))));
+        assertEquals(List.of(survivor), filesByPack().get(4)); // Pack 3 was full: a new current pack
+        assertEquals(3, report.getPacks());
+        assertEquals(7, report.getFilesInPacks());
+        assertEquals(2 * FOOTPRINT, report.getDeadBytes()); // Pack 1's two tombstoned files
+
+        // After a restart every live file is found where compaction put it, and nothing removed comes back
+        restart();
+        for (String name : contents.keySet()) {
+            if (removed.contains(name)) assertNull(service.find(name), name);
+            else assertServed(name);
+        }
+    }
+
+    // A crash mid-append leaves a torn tail: the next start cuts it off and keeps every finished file
+    @Test
+    void tornPackTailIsRepairedOnStart() throws IOException {
+        loose("a.jpg", 400);
+        loose("b.jpg", 400);
+        run();
+        Path dat = dir.resolve("packs").resolve(PackFile.dataName(1));
+        long size = Files.size(dat);
+        Files.write(dat, new byte[777], StandardOpenOption.APPEND);
+
+        restart();
+        assertEquals(size, Files.size(dat));
+        assertServed("a.jpg");
+        assertServed("b.jpg");
+
+        // And packing carries on after the repair
+        loose("c.jpg", 400);
+        run();
+        restart();
+        assertServed("c.jpg");
+    }
+
+    // ================= HELPERS =================
+
+    private ColdStorageService start() {
+        TenantService tenants = mock(TenantService.class);
+        when(tenants.require(anyString())).thenReturn(new TenantService.Tenant("main", "drpro", dir));
+        FileStorageService files = mock(FileStorageService.class);
+        when(files.getStorageLocation()).thenReturn(uploads);
+
+        ColdStorageService cold = new ColdStorageService();
+        ReflectionTestUtils.setField(cold, "tenantService", tenants);
+        ReflectionTestUtils.setField(cold, "fileStorageService", files);
+        ReflectionTestUtils.setField(cold, "coldAfterMonths", 6);
+        ReflectionTestUtils.setField(cold, "packMaxSize", DataSize.ofBytes(4 * FOOTPRINT));
+        ReflectionTestUtils.setField(cold, "maxFileSize", DataSize.ofMegabytes(16));
+        ReflectionTestUtils.setField(cold, "batchSize", 200);
+        ReflectionTestUtils.setField(cold, "pauseMs", 0L);
+        cold.init();
+        return cold;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, List<String>> filesByPack() {
+        Map<String, PackFile.Entry> entries = (Map<String, PackFile.Entry>) ReflectionTestUtils.getField(service, "entries");
+        Map<Integer, List<String>> byPack = new TreeMap<>();
+        entries.forEach((name, entry) -> byPack.computeIfAbsent(entry.pack(), k -> new ArrayList<>()).add(name));
+        byPack.values().forEach(Collections::sort);
+        return byPack;
+    }
+
+    private void restart() {
+        service.shutdown();
+        service = start();
+    }
+
+    // Runs on this thread (the scheduled entry point), then reports
+    private ColdStorageReportDTO run() {
+        service.scheduledRun();
+        return service.getReport();
+    }
+
+    private void loose(String name, int ageDays) throws IOException {
+        byte[] content = new byte[FILE_SIZE];
+        new Random(name.hashCode()).nextBytes(content);
+        contents.put(name, content);
+        Files.write(uploads.resolve(name), content);
+        age(name, ageDays);
+    }
+
+    private void age(String name, int days) throws IOException {
+        Files.setLastModifiedTime(uploads.resolve(name), FileTime.from(Instant.now().minus(days, ChronoUnit.DAYS)));
+    }
+
+    private void assertServed(String name) throws IOException {
+        Resource resource = service.find(name);
+        assertNotNull(resource, name + " is not packed");
+        assertEquals(FILE_SIZE, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(contents.get(name), in.readAllBytes(), name);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.drpro.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Plain unit tests: bodies are fed in small and odd-sized chunks, the way a socket hands them out
+class MultipartStreamReaderTests {
+
+    private static final String BOUNDARY = "----DrProBoundary7MA4YWxk";
+    private static final int DELIMITER = ("\r\n--" + BOUNDARY).length();
+    private static final int WINDOW = 64 * 1024; // MultipartStreamReader.BUFFER_SIZE
+
+    // ================= PART BODIES =================
+
+    @Test
+    void partsComeOutByteExactForAnyChunkSize() throws IOException {
+        byte[] scan = random(3 * WINDOW + 17, 1);
+        // Content that starts like a boundary but isn't one must come through untouched
+        byte[] nearMiss = ("x\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1) + "y\r\n-\r\n--")
+                .getBytes(StandardCharsets.ISO_8859_1);
+        byte[] body = body(field("note", "Upper left molar"), file("scan", "x-ray 1.jpg", scan),
+                file("empty", "empty.bin", new byte[0]), file("tricky", "tricky.bin", nearMiss));
+
+        for (int chunk : new int[]{1, 2, 3, 7, 13, 4097, WINDOW - 1, WINDOW + 1, body.length}) {
+            List<byte[]> parts = readAll(new Chunked(body, chunk));
+            assertEquals(4, parts.size(), "chunk " + chunk);
+            assertEquals("Upper left molar", new String(parts.get(0), StandardCharsets.UTF_8), "chunk " + chunk);
+            assertArrayEquals(scan, parts.get(1), "chunk " + chunk);
+            assertArrayEquals(new byte[0], parts.get(2), "chunk " + chunk);
+            assertArrayEquals(nearMiss, parts.get(3), "chunk " + chunk);
+        }
+    }
+
+    // The boundary lands at every offset of a small read, including split across reads
+    @Test
+    void boundaryAtEveryOffsetOfSmallReads() throws IOException {
+        for (int length = 0; length <= 2 * DELIMITER; length++) {
+            byte[] content = random(length, length);
+            byte[] body = body(file("a", "a.bin", content), file("b", "b.bin", content));
+            for (int chunk = 1; chunk <= DELIMITER + 2; chunk++) {
+                List<byte[]> parts = readAll(new Chunked(body, chunk));
+                assertEquals(2, parts.size());
+                assertArrayEquals(content, parts.get(0), "length " + length + ", chunk " + chunk);
+                assertArrayEquals(content, parts.get(1), "length " + length + ", chunk " + chunk);
+            }
+        }
+    }
+
+    // The boundary straddles the end of the 64 KB window at every offset
+    @Test
+    void boundaryAtEveryOffsetOfTheWindowEdge() throws IOException {
+        int headerLength = body(file("a", "a.bin", new byte[0])).length - DELIMITER - "--\r\n".length();
+        for (int end = WINDOW - 2 * DELIMITER; end <= WINDOW + DELIMITER; end++) {
+            byte[] content = random(end - headerLength, end);
+            byte[] body = body(file("a", "a.bin", content), field("after", "ok"));
+            for (int chunk : new int[]{8191, WINDOW, body.length}) {
+                List<byte[]> parts = readAll(new Chunked(body, chunk));
+                assertArrayEquals(content, parts.get(0), "boundary at " + end + ", chunk " + chunk);
+                assertEquals("ok", new String(parts.get(1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    void singleByteReadsAndSkippedPartsWork() throws IOException {
+        byte[] first = random(WINDOW + 5, 3);
+        byte[] second = random(1000, 4);
+        byte[] body = body(file("a", "a.bin", first), file("b", "b.bin", second));
+
+        MultipartStreamReader reader = new MultipartStreamReader(new Chunked(body, 5), BOUNDARY);
+        MultipartStreamReader.Part a = reader.next();
+        assertEquals("a", a.getName());
+        assertEquals("a.bin", a.getFileName());
+        assertEquals("application/octet-stream", a.getContentType());
+        assertTrue(a.isFile());
+        assertEquals(first[0] & 0xff, a.getBody().read()); // Rest of "a" is skipped by next()
+
+        MultipartStreamReader.Part b = reader.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int c; (c = b.getBody().read()) >= 0; ) out.write(c);
+        assertArrayEquals(second, out.toByteArray());
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    // ================= BROKEN BODIES =================
+
+    @Test
+    void everyTruncatedBodyFails() throws IOException {
+        byte[] body = body(field("note", "hello"), file("a", "a.bin", random(300, 5)));
+        int complete = body.length - "\r\n".length(); // The CRLF after the closing "--" is optional
+
+        for (int cut = 0; cut < complete; cut++) {
+            byte[] truncated = Arrays.copyOf(body, cut);
+            for (int chunk : new int[]{1, 7, body.length}) {
+                assertThrows(IOException.class, () -> readAll(new Chunked(truncated, chunk)),
+                        "cut at " + cut + ", chunk " + chunk);
+            }
+        }
+        assertEquals(2, readAll(new ByteArrayInputStream(Arrays.copyOf(body, complete))).size());
+    }
+
+    @Test
+    void truncationErrorsSayWhere() {
+        byte[] body = body(file("a", "a.bin", random(100, 6)));
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+
+        // Inside a part's body: its boundary never comes
+        assertError("Multipart body ended without a closing boundary", Arrays.copyOf(body, text.indexOf("\r\n\r\n") + 50));
+        // Inside the part's headers
+        assertError("Truncated multipart headers", Arrays.copyOf(body, text.indexOf("filename")));
+        // Right after a boundary: neither "--" nor CRLF
+        assertError("Truncated multipart body", Arrays.copyOf(body, text.lastIndexOf(BOUNDARY) + BOUNDARY.length()));
+        assertError("Truncated multipart body", Arrays.copyOf(body, text.lastIndexOf(BOUNDARY) + BOUNDARY.length() + 1));
+        // A body without any boundary at all
+        assertError("Multipart body ended without a closing boundary", "just some text".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void malformedBoundaryAndOversizedHeadersFail() {
+        assertError("Malformed multipart boundary", ("--" + BOUNDARY + "xx\r\n").getBytes(StandardCharsets.ISO_8859_1));
+
+        String huge = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"a\"\r\nX-Padding: "
+                + "p".repeat(9000) + "\r\n\r\nbody\r\n--" + BOUNDARY + "--\r\n";
+        assertError("Multipart headers too large", huge.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void boundaryComesFromTheContentType() {
+        assertEquals("abc", MultipartStreamReader.boundaryOf("multipart/form-data; boundary=abc"));
+        assertEquals("a b", MultipartStreamReader.boundaryOf("Multipart/Form-Data; charset=utf-8; boundary=\"a b\""));
+        assertNull(MultipartStreamReader.boundaryOf("application/json"));
+        assertNull(MultipartStreamReader.boundaryOf("multipart/form-data"));
+        assertNull(MultipartStreamReader.boundaryOf("multipart/form-data; boundary=" + "x".repeat(71)));
+        assertNull(MultipartStreamReader.boundaryOf(null));
+    }
+
+    // ================= HELPERS =================
+
+    private static List<byte[]> readAll(InputStream in) throws IOException {
+        MultipartStreamReader reader = new MultipartStreamReader(in, BOUNDARY);
+        List<byte[]> parts = new ArrayList<>();
+        for (MultipartStreamReader.Part part; (part = reader.next()) != null; ) {
+            parts.add(part.getBody().readAllBytes());
+        }
+        return parts;
+    }
+
+    private static void assertError(String message, byte[] body) {
+        for (int chunk : new int[]{1, 3, Math.max(body.length, 1)}) {
+            IOException error = assertThrows(IOException.class, () -> readAll(new Chunked(body, chunk)));
+            assertEquals(message, error.getMessage(), "chunk " + chunk);
+        }
+    }
+
+    private static byte[] field(String name, String value) {
+        return part("form-data; name=\"" + name + "\"", null, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] file(String name, String fileName, byte[] content) {
+        return part("form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"", "application/octet-stream", content);
+    }
+
+    private static byte[] part(String disposition, String contentType, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String headers = "--" + BOUNDARY + "\r\nContent-Disposition: " + disposition + "\r\n"
+                + (contentType != null ? "Content-Type: " + contentType + "\r\n" : "") + "\r\n";
+        out.writeBytes(headers.getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(content);
+        out.writeBytes("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        return out.toByteArray();
+    }
+
+    private static byte[] body(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) out.writeBytes(part);
+        out.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        return out.toByteArray();
+    }
+
+    // Boundary-like bytes ('\r', '\n', '-') made common so near misses show up inside the content
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        for (int i = 0; i < length; i += 11) bytes[i] = (byte) "\r\n-".charAt(i % 3);
+        return bytes;
+    }
+
+    // Hands out at most 'chunk' bytes per read
+    private static class Chunked extends InputStream {
+        private final byte[] data;
+        private final int chunk;
+        private int pos;
+
+        Chunked(byte[] data, int chunk) {
+            this.data = data;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return pos < data.length ? data[pos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (pos >= data.length) return -1;
+            int n = Math.min(Math.min(len, chunk), data.length - pos);
+            System.arraycopy(data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.drpro.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Plain unit tests: a "crash" is simulated by cutting or damaging the files between close and open
+class PackFileTests {
+
+    @TempDir
+    Path dir;
+
+    private final byte[] first = random(5000, 1);
+    private final byte[] second = random(70_000, 2); // Longer than one copy buffer
+    private final byte[] third = random(1, 3);
+
+    // ================= PACK / REOPEN =================
+
+    @Test
+    void packedFilesComeBackByteExactAfterReopen() throws IOException {
+        Index index = new Index();
+        try (PackFile pack = PackFile.open(dir, 1, index)) {
+            append(pack, index, "a.jpg", first);
+            append(pack, index, "b.pdf", second);
+            append(pack, index, "c.txt", third);
+            assertArrayEquals(second, read(pack, index.get("b.pdf"))); // Served before the pack is closed
+            assertEquals(PackFile.footprint("a.jpg", first.length) + PackFile.footprint("b.pdf", second.length)
+                    + PackFile.footprint("c.txt", third.length), pack.size());
+        }
+
+        Index reopened = reopenAndCheck(3);
+        assertEquals(index.entries, reopened.entries);
+    }
+
+    @Test
+    void appendRejectsBadNamesAndShortStreams() throws IOException {
+        Index index = new Index();
+        try (PackFile pack = PackFile.open(dir, 1, index)) {
+            append(pack, index, "a.jpg", first);
+            long size = pack.size();
+
+            assertThrows(IllegalArgumentException.class, () -> pack.append("", new ByteArrayInputStream(third), 1));
+            assertThrows(IllegalArgumentException.class, () -> pack.append("a\tb", new ByteArrayInputStream(third), 1));
+            assertThrows(IllegalArgumentException.class, () -> pack.append("x".repeat(256), new ByteArrayInputStream(third), 1));
+            IOException shortStream = assertThrows(IOException.class,
+                    () -> pack.append("b.pdf", new ByteArrayInputStream(second, 0, 100), second.length));
+            assertEquals("'b.pdf' ended after 100 of " + second.length + " bytes", shortStream.getMessage());
+            assertEquals(size, pack.size());
+            assertEquals(size, Files.size(dataFile()));
+
+            append(pack, index, "c.txt", third);
+        }
+        reopenAndCheck(2);
+    }
+
+    // ================= CRASH WHILE PACKING =================
+
+    // Data written, header not yet: nothing valid at the end, so it is cut off
+    @Test
+    void halfWrittenEntryAtTheEndIsCutOff() throws IOException {
+        long end = packTwo();
+        try (RandomAccessFile dat = new RandomAccessFile(dataFile().toFile(), "rw")) {
+            dat.seek(end + PackFile.footprint("c.txt", 0));
+            dat.write(random(3000, 9));
+        }
+
+        Index index = reopenAndCheck(2);
+        assertEquals(end, Files.size(dataFile()));
+
+        // The next entry goes where the broken one was
+        try (PackFile pack = PackFile.open(dir, 1, index)) {
+            append(pack, index, "c.txt", third);
+        }
+        reopenAndCheck(3);
+    }
+
+    // A complete header whose data never fully arrived
+    @Test
+    void entryWithShortDataIsCutOff() throws IOException {
+        long end = packTwo();
+        byte[] name = "c.txt".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(6 + name.length + 12);
+        header.putInt(0x4452504B).putShort((short) name.length).put(name).putLong(1000).putInt(0);
+        try (RandomAccessFile dat = new RandomAccessFile(dataFile().toFile(), "rw")) {
+            dat.seek(end);
+            dat.write(header.array());
+            dat.write(random(10, 9));
+        }
+
+        reopenAndCheck(2);
+        assertEquals(end, Files.size(dataFile()));
+    }
+
+    // Data and header on disk, .idx line not yet: the entry is re-indexed from the data
+    @Test
+    void entriesMissingFromTheIndexAreRecovered() throws IOException {
+        packTwo();
+        String idx = Files.readString(indexFile());
+        Files.writeString(indexFile(), idx.substring(0, idx.indexOf('\n') + 1));
+
+        reopenAndCheck(2);
+        assertEquals(idx, Files.readString(indexFile())); // Written back, the same as before
+    }
+
+    @Test
+    void lostIndexIsRebuiltFromTheData() throws IOException {
+        packTwo();
+        String idx = Files.readString(indexFile());
+        Files.delete(indexFile());
+
+        reopenAndCheck(2);
+        assertEquals(idx, Files.readString(indexFile()));
+    }
+
+    // Last .idx line cut mid-number: skipped, recovered from the data, and the next line starts fresh
+    @Test
+    void tornIndexLineIsRecoveredAndNotGluedToTheNextOne() throws IOException {
+        packTwo();
+        String idx = Files.readString(indexFile());
+        Files.writeString(indexFile(), idx.substring(0, idx.lastIndexOf('\t') - 2)); // Inside b.pdf's length
+
+        Index index = reopenAndCheck(2);
+        String recoveredLine = idx.substring(idx.indexOf('\n') + 1, idx.length() - 1);
+        assertTrue(Files.readAllLines(indexFile()).contains(recoveredLine));
+        try (PackFile pack = PackFile.open(dir, 1, index)) {
+            append(pack, index, "c.txt", third);
+        }
+        reopenAndCheck(3);
+        assertTrue(Files.readAllLines(indexFile()).stream()
+                .anyMatch(line -> line.startsWith("+\tc.txt\t") && line.split("\t").length == 5));
+    }
+
+    // An index line pointing past the end of the data is ignored; the data walk decides
+    @Test
+    void indexLinePastTheEndOfTheDataIsIgnored() throws IOException {
+        long end = packTwo();
+        try (RandomAccessFile dat = new RandomAccessFile(dataFile().toFile(), "rw")) {
+            dat.setLength(end - 10); // Lost the tail of b.pdf (e.g. the disk did not flush it)
+        }
+
+        Index index = reopenAndCheck(1);
+        assertNull(index.get("b.pdf"));
+        assertEquals(PackFile.footprint("a.jpg", first.length), Files.size(dataFile()));
+    }
+
+    // ================= CRC =================
+
+    @Test
+    void recoveryStopsAtTheFirstEntryWithABadChecksum() throws IOException {
+        packTwo();
+        Index index = new Index();
+        try (PackFile pack = PackFile.open(dir, 1, index)) {
+            append(pack, index, "c.txt", third);
+        }
+        long flipAt = index.get("b.pdf").offset() + 1234;
+        try (RandomAccessFile dat = new RandomAccessFile(dataFile().toFile(), "rw")) {
+            dat.seek(flipAt);
+            int b = dat.read();
+            dat.seek(flipAt);
+            dat.write(b ^ 0x01);
+        }
+        Files.delete(indexFile());
+
+        // Nothing after a damaged entry can be trusted to be framed right: cut from there on
+        Index recovered = reopenAndCheck(1);
+        assertNotNull(recovered.get("a.jpg"));
+        assertEquals(PackFile.footprint("a.jpg", first.length), Files.size(dataFile()));
+    }
+
+    // ================= TOMBSTONES =================
+
+    @Test
+    void removedFilesStayRemovedAfterReopen() throws IOException {
+        packTwo();
+        try (PackFile pack = PackFile.open(dir, 1, new Index())) {
+            pack.remove("a.jpg");
+        }
+
+        Index index = reopenAndCheck(1);
+        assertNull(index.get("a.jpg"));
+        assertNotNull(index.get("b.pdf"));
+
+        // Packed again later: the newer "+" line wins over the older "-"
+        try (PackFile pack = PackFile.open(dir, 1, index)) {
+            append(pack, index, "a.jpg", third);
+        }
+        assertEquals(2, reopenAndCheck(2).entries.size());
+    }
+
+    // ================= HELPERS =================
+
+    // Packs a.jpg and b.pdf into pack 1; returns where the data ends
+    private long packTwo() throws IOException {
+        Index index = new Index();
+        try (PackFile pack = PackFile.open(dir, 1, index)) {
+            append(pack, index, "a.jpg", first);
+            append(pack, index, "b.pdf", second);
+            return pack.size();
+        }
+    }
+
+    // Opens pack 1 again and checks every indexed file against what was packed under that name
+    private Index reopenAndCheck(int expectedFiles) throws IOException {
+        Index index = new Index();
+        try (PackFile pack = PackFile.open(dir, 1, index)) {
+            assertEquals(expectedFiles, index.entries.size(), "files in " + index.entries.keySet());
+            assertEquals(Files.size(dataFile()), pack.size());
+            for (Map.Entry<String, PackFile.Entry> e : index.entries.entrySet()) {
+                assertArrayEquals(expected(e.getKey(), e.getValue()), read(pack, e.getValue()), e.getKey());
+            }
+        }
+        return index;
+    }
+
+    private byte[] expected(String name, PackFile.Entry entry) {
+        for (byte[] content : new byte[][]{first, second, third}) {
+            if (content.length == entry.length()) return content;
+        }
+        throw new AssertionError("Unexpected entry " + name + " " + entry);
+    }
+
+    private static void append(PackFile pack, Index index, String name, byte[] content) throws IOException {
+        PackFile.Entry entry = pack.append(name, new ByteArrayInputStream(content), content.length);
+        assertEquals(content.length, entry.length());
+        index.put(name, entry);
+    }
+
+    private static byte[] read(PackFile pack, PackFile.Entry entry) throws IOException {
+        return new PackFile.SliceInputStream(pack.slice(entry)).readAllBytes();
+    }
+
+    private Path dataFile() {
+        return dir.resolve(PackFile.dataName(1));
+    }
+
+    private Path indexFile() {
+        return dir.resolve(PackFile.indexName(1));
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    // Same replay rules as ColdStorageService's visitor
+    private static class Index implements PackFile.IndexVisitor {
+        private final Map<String, PackFile.Entry> entries = new LinkedHashMap<>();
+
+        @Override
+        public void put(String name, PackFile.Entry entry) {
+            entries.put(name, entry);
+        }
+
+        @Override
+        public void remove(String name, int pack) {
+            entries.computeIfPresent(name, (n, e) -> e.pack() == pack ? null : e);
+        }
+
+        PackFile.Entry get(String name) {
+            return entries.get(name);
+        }
+    }
+}